@@ -0,0 +1,113 @@
+package io.easytx.reactive;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import com.zaxxer.hikari.HikariDataSource;
+import io.easytx.service.TransactionService;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Throughput of {@code concurrency} concurrent single-row read transactions, through the
+ * {@link ReactiveTransactionService} on R2DBC and through the blocking {@link TransactionService}
+ * on a pool of {@value #POOL_SIZE} JDBC connections, offloaded to {@code boundedElastic} as a
+ * WebFlux application would. One operation is the whole round of reads.
+ * <p>
+ * R2DBC connections are not pooled: {@code r2dbc-pool} is not a dependency, and opening an H2
+ * in-memory connection is cheap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReactiveReadBenchmark {
+
+    private static final int POOL_SIZE = 16;
+    private static final int ACCOUNTS = 1000;
+    private static final String CREATE_TABLE =
+            "CREATE TABLE account (id INT PRIMARY KEY, amount BIGINT)";
+    private static final String INSERT_ACCOUNTS =
+            "INSERT INTO account SELECT x, x * 10 FROM SYSTEM_RANGE(1, " + ACCOUNTS + ")";
+
+    @Param({"16", "256"})
+    private int concurrency;
+
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionService transactionService;
+    private DatabaseClient client;
+    private ReactiveTransactionService reactiveTransactionService;
+
+    @Setup
+    public void start() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:blockingRead;DB_CLOSE_DELAY=-1");
+        dataSource.setMaximumPoolSize(POOL_SIZE);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager txManager = new DataSourceTransactionManager(dataSource);
+        transactionService =
+                new TransactionService(txManager, txManager, jdbcTemplate, jdbcTemplate);
+        jdbcTemplate.execute(CREATE_TABLE);
+        jdbcTemplate.update(INSERT_ACCOUNTS);
+
+        ConnectionFactory factory = H2ConnectionFactory.inMemory("reactiveRead");
+        ReactiveRoutingConnectionFactory routing = new ReactiveRoutingConnectionFactory();
+        routing.setTargetConnectionFactories(Map.of("write", factory, "read", factory));
+        routing.setDefaultTargetConnectionFactory(factory);
+        routing.afterPropertiesSet();
+        client = DatabaseClient.create(routing);
+        reactiveTransactionService = new ReactiveTransactionService(
+                new R2dbcTransactionManager(routing), new R2dbcTransactionManager(routing));
+        client.sql(CREATE_TABLE).then().then(client.sql(INSERT_ACCOUNTS).then()).block();
+    }
+
+    @TearDown
+    public void close() {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public Long blocking() {
+        return Flux.range(0, concurrency)
+                .flatMap(i -> Mono.fromCallable(() -> transactionService.read(() -> jdbcTemplate
+                        .queryForObject("SELECT amount FROM account WHERE id = ?", Long.class,
+                                account(i))))
+                        .subscribeOn(Schedulers.boundedElastic()), concurrency)
+                .count().block();
+    }
+
+    @Benchmark
+    public Long reactive() {
+        return Flux.range(0, concurrency)
+                .flatMap(i -> reactiveTransactionService.read(client
+                        .sql("SELECT amount FROM account WHERE id = :id")
+                        .bind("id", account(i)).map(row -> row.get(0, Long.class)).one()),
+                        concurrency)
+                .count().block();
+    }
+
+    private static int account(int i) {
+        return i % ACCOUNTS + 1;
+    }
+}
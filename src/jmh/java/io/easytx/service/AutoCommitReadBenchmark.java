@@ -0,0 +1,84 @@
+package io.easytx.service;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Latency of a single-statement read in a read-only transaction and in autocommit. After each
+ * iteration the round trips per read, counted by {@link RoundTripCounter}, are printed to the
+ * benchmark output.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AutoCommitReadBenchmark {
+
+    private static final String SELECT = "SELECT amount FROM account WHERE id = ?";
+    private static final int ACCOUNTS = 1000;
+
+    private RoundTripCounter counter;
+    private BenchmarkDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionService transactionService;
+    private long reads;
+
+    @Setup
+    public void start() {
+        database = new BenchmarkDatabase("autoCommitRead", target -> {
+            counter = new RoundTripCounter(target);
+            return counter;
+        });
+        jdbcTemplate = database.jdbcTemplate();
+        transactionService = database.transactionService();
+        jdbcTemplate.execute("CREATE TABLE account (id INT PRIMARY KEY, amount BIGINT)");
+        jdbcTemplate.update(
+                "INSERT INTO account SELECT x, x * 10 FROM SYSTEM_RANGE(1, " + ACCOUNTS + ")");
+    }
+
+    @Setup(Level.Iteration)
+    public void resetCounter() {
+        counter.reset();
+        reads = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void printRoundTrips(BenchmarkParams benchmark) {
+        System.out.printf("%s: %.2f round trips per read%n", benchmark.getBenchmark(),
+                (double) counter.roundTrips() / Math.max(1, reads));
+    }
+
+    @TearDown
+    public void close() {
+        database.close();
+    }
+
+    @Benchmark
+    public Long transaction() {
+        return transactionService.read(this::select);
+    }
+
+    @Benchmark
+    public Long autoCommit() {
+        return transactionService.readAutoCommit(this::select);
+    }
+
+    private Long select() {
+        return jdbcTemplate.queryForObject(SELECT, Long.class, (int) (reads++ % ACCOUNTS) + 1);
+    }
+}
@@ -0,0 +1,50 @@
+package io.easytx.service;
+
+import java.util.function.UnaryOperator;
+import javax.sql.DataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+/**
+ * In-memory H2 database behind a single connection, used as both the write and the read route of
+ * a {@link TransactionService}. Benchmarks run on one thread, so the connection is never shared.
+ */
+final class BenchmarkDatabase implements AutoCloseable {
+
+    private final SingleConnectionDataSource connection;
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionService transactionService;
+
+    BenchmarkDatabase(String name) {
+        this(name, UnaryOperator.identity());
+    }
+
+    /** Uses {@code wrapper} of the H2 connection's DataSource everywhere. */
+    BenchmarkDatabase(String name, UnaryOperator<DataSource> wrapper) {
+        connection = new SingleConnectionDataSource("jdbc:h2:mem:" + name, true);
+        dataSource = wrapper.apply(connection);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager txManager = new DataSourceTransactionManager(dataSource);
+        transactionService =
+                new TransactionService(txManager, txManager, jdbcTemplate, jdbcTemplate);
+    }
+
+    DataSource dataSource() {
+        return dataSource;
+    }
+
+    JdbcTemplate jdbcTemplate() {
+        return jdbcTemplate;
+    }
+
+    TransactionService transactionService() {
+        return transactionService;
+    }
+
+    @Override
+    public void close() {
+        connection.destroy();
+    }
+}
@@ -0,0 +1,116 @@
+package io.easytx.service;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import io.easytx.jdbc.ColumnType;
+import io.easytx.jdbc.Columns;
+
+/**
+ * Time and heap allocation ({@code gc.alloc.rate.norm}) of reading {@code rows} (id, amount,
+ * timestamp) rows into primitive columns with {@link TransactionService#readColumns} and into a
+ * {@code List} of row objects with a {@link RowMapper}. Both include what H2 itself allocates per
+ * value; {@code epochColumns} selects the timestamp as a number, so no {@code Timestamp} is
+ * created.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ColumnarReadBenchmark {
+
+    private static final String SELECT = "SELECT id, amount, created_at FROM payment";
+    private static final String SELECT_EPOCH =
+            "SELECT id, amount, DATEDIFF(MILLISECOND, TIMESTAMP '1970-01-01 00:00:00', created_at)"
+                    + " FROM payment";
+    private static final ColumnType[] TYPES =
+            {ColumnType.LONG, ColumnType.DOUBLE, ColumnType.EPOCH_MILLIS};
+    private static final ColumnType[] EPOCH_TYPES =
+            {ColumnType.LONG, ColumnType.DOUBLE, ColumnType.LONG};
+    private static final RowMapper<Row> ROW_MAPPER = (rs, rowNum) -> new Row(rs.getLong(1),
+            rs.getDouble(2), rs.getTimestamp(3));
+
+    @Param({"10000", "1000000"})
+    private int rows;
+
+    private BenchmarkDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionService transactionService;
+
+    @Setup
+    public void start() {
+        database = new BenchmarkDatabase("columnarRead");
+        jdbcTemplate = database.jdbcTemplate();
+        transactionService = database.transactionService();
+        jdbcTemplate.execute("CREATE TABLE payment (id BIGINT PRIMARY KEY, amount DOUBLE, "
+                + "created_at TIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO payment SELECT x, x / 100.0, "
+                + "DATEADD(SECOND, x, TIMESTAMP '2024-01-01 00:00:00') FROM SYSTEM_RANGE(1, "
+                + rows + ")");
+    }
+
+    @TearDown
+    public void close() {
+        database.close();
+    }
+
+    @Benchmark
+    public double columns() {
+        return sum(transactionService.readColumns(SELECT, TYPES));
+    }
+
+    @Benchmark
+    public double epochColumns() {
+        return sum(transactionService.readColumns(SELECT_EPOCH, EPOCH_TYPES));
+    }
+
+    @Benchmark
+    public double rowObjects() {
+        List<Row> result = transactionService.read(() -> jdbcTemplate.query(SELECT, ROW_MAPPER));
+        double sum = 0;
+        for (Row row : result) {
+            sum += row.id + row.amount + row.createdAt.getTime();
+        }
+        return sum;
+    }
+
+    private static double sum(Columns columns) {
+        long[] ids = columns.longs(0);
+        double[] amounts = columns.doubles(1);
+        long[] createdAt = columns.longs(2);
+        double sum = 0;
+        for (int i = 0; i < columns.size(); i++) {
+            sum += ids[i] + amounts[i] + createdAt[i];
+        }
+        return sum;
+    }
+
+    private static final class Row {
+
+        private final long id;
+        private final double amount;
+        private final Timestamp createdAt;
+
+        private Row(long id, double amount, Timestamp createdAt) {
+            this.id = id;
+            this.amount = amount;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package io.easytx.service;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import io.easytx.annotation.TransactionConfiguration;
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * Cost of an empty read transaction without an observation registry ({@code none}), with the
+ * no-op registry ({@code noop}) and with a registry timing observations into a meter registry
+ * ({@code meters}). {@code none} and {@code noop} should be within noise of each other.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ObservationBenchmark {
+
+    @Param({"none", "noop", "meters"})
+    private String registry;
+
+    private BenchmarkDatabase database;
+    private TransactionService transactionService;
+    private TransactionConfiguration config;
+
+    @Setup
+    public void start() {
+        database = new BenchmarkDatabase("observation");
+        transactionService = database.transactionService();
+        switch (registry) {
+            case "noop":
+                transactionService.enableObservations(ObservationRegistry.NOOP);
+                break;
+            case "meters":
+                ObservationRegistry observations = ObservationRegistry.create();
+                observations.observationConfig().observationHandler(
+                        new DefaultMeterObservationHandler(new SimpleMeterRegistry()));
+                transactionService.enableObservations(observations);
+                break;
+            default:
+                break;
+        }
+        // A fixed name keeps the caller lookup out of the measurement
+        config = new TransactionConfiguration(Propagation.REQUIRED, Isolation.DEFAULT);
+        config.setName("Payments.find");
+    }
+
+    @TearDown
+    public void close() {
+        database.close();
+    }
+
+    @Benchmark
+    public int read() {
+        return transactionService.read(() -> 1, config);
+    }
+}
@@ -0,0 +1,73 @@
+package io.easytx.service;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Wraps a {@link DataSource} and counts the JDBC calls that cost a database round trip on a
+ * networked driver: statement executions and the transaction control calls that drivers turn
+ * into {@code BEGIN}, {@code COMMIT} or {@code SET} statements.
+ */
+final class RoundTripCounter extends DelegatingDataSource {
+
+    private static final Set<String> CONNECTION_CALLS = Set.of("setAutoCommit", "commit",
+            "rollback", "setReadOnly", "setTransactionIsolation", "setSavepoint",
+            "releaseSavepoint");
+    private static final Set<String> STATEMENT_CALLS = Set.of("execute", "executeQuery",
+            "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    private long roundTrips;
+
+    RoundTripCounter(DataSource target) {
+        super(target);
+    }
+
+    long roundTrips() {
+        return roundTrips;
+    }
+
+    void reset() {
+        roundTrips = 0;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return counting(Connection.class, super.getConnection(), CONNECTION_CALLS);
+    }
+
+    private <T> T counting(Class<T> type, T target, Set<String> counted) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (counted.contains(method.getName())) {
+                roundTrips++;
+            }
+            Object result = invoke(target, method, args);
+            if (result instanceof PreparedStatement) {
+                return counting(PreparedStatement.class, (PreparedStatement) result,
+                        STATEMENT_CALLS);
+            }
+            if (result instanceof Statement) {
+                return counting(Statement.class, (Statement) result, STATEMENT_CALLS);
+            }
+            return result;
+        };
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+                handler));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package io.easytx.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Batches of {@code items} inserts, {@code failurePercent} of which violate a check constraint,
+ * written with {@link TransactionService#writeBatch} (a savepoint per item or per group) or with
+ * one {@code write} transaction per item. Scores are batches per second.
+ * <p>
+ * H2 commits in memory, so this understates the per-transaction cost of a networked database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WriteBatchBenchmark {
+
+    private static final int GROUP_SIZE = 10;
+
+    @Param({"100", "1000"})
+    private int items;
+
+    @Param({"0", "5"})
+    private int failurePercent;
+
+    private BenchmarkDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionService transactionService;
+    private List<Integer> amounts;
+
+    @Setup
+    public void start() {
+        database = new BenchmarkDatabase("writeBatch");
+        jdbcTemplate = database.jdbcTemplate();
+        transactionService = database.transactionService();
+        jdbcTemplate.execute(
+                "CREATE TABLE batch_item (id IDENTITY, amount INT CHECK (amount >= 0))");
+        amounts = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            // Spreads the failing items over the batch instead of grouping them at the start
+            amounts.add(i * 37 % 100 < failurePercent ? -1 : i);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void truncate() {
+        jdbcTemplate.execute("TRUNCATE TABLE batch_item");
+    }
+
+    @TearDown
+    public void close() {
+        database.close();
+    }
+
+    @Benchmark
+    public int savepointPerItem() {
+        return transactionService.writeBatch(amounts, this::insert).getFailures().size();
+    }
+
+    @Benchmark
+    public int savepointPerGroup() {
+        return transactionService.writeBatch(amounts, this::insert, GROUP_SIZE).getFailures()
+                .size();
+    }
+
+    @Benchmark
+    public int transactionPerItem() {
+        int failures = 0;
+        for (Integer amount : amounts) {
+            try {
+                transactionService.write(() -> insert(amount));
+            } catch (DataAccessException e) {
+                failures++;
+            }
+        }
+        return failures;
+    }
+
+    private int insert(Integer amount) {
+        return jdbcTemplate.update("INSERT INTO batch_item (amount) VALUES (?)", amount);
+    }
+}
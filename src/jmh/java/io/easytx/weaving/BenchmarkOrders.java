@@ -0,0 +1,22 @@
+package io.easytx.weaving;
+
+import io.easytx.annotation.TxRead;
+import io.easytx.annotation.TxWrite;
+
+/**
+ * Service advised either by the {@code EasyTxAspect} proxy or by its generated
+ * {@code BenchmarkOrders_EasyTx} subclass. The methods do no work of their own, so only the
+ * advice and the transaction are measured.
+ */
+public class BenchmarkOrders {
+
+    @TxRead
+    public long find(long id) {
+        return id;
+    }
+
+    @TxWrite
+    public long place(long id, int quantity) {
+        return id + quantity;
+    }
+}
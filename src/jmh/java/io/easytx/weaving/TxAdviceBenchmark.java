@@ -0,0 +1,59 @@
+package io.easytx.weaving;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+/**
+ * Per-call cost of a {@code @TxRead}/{@code @TxWrite} method through the aspect proxy and through
+ * the generated advice, on an in-memory H2 connection. With the {@code gc} profiler the
+ * {@code gc.alloc.rate.norm} column shows the per-call garbage, including the proxy's boxed
+ * arguments.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TxAdviceBenchmark {
+
+    @Param({"proxy", "generated"})
+    private String advice;
+
+    private AnnotationConfigApplicationContext context;
+    private BenchmarkOrders orders;
+    private long id;
+
+    @Setup
+    public void start() {
+        context = WeavingContexts.start("generated".equals(advice), 1);
+        orders = context.getBean(WeavingContexts.FIRST_BEAN, BenchmarkOrders.class);
+    }
+
+    @TearDown
+    public void close() {
+        context.close();
+    }
+
+    @Benchmark
+    public long read() {
+        return orders.find(id++);
+    }
+
+    @Benchmark
+    public long write() {
+        return orders.place(id++, 2);
+    }
+}
@@ -0,0 +1,41 @@
+package io.easytx.weaving;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+/**
+ * Time to refresh and close a context of {@code beans} advised services, with aspect proxies or
+ * with the generated advice. Every invocation builds a new context in an already warmed JVM.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(3)
+public class TxAdviceStartupBenchmark {
+
+    @Param({"proxy", "generated"})
+    private String advice;
+
+    @Param({"1", "200"})
+    private int beans;
+
+    @Benchmark
+    public Object startup() {
+        try (AnnotationConfigApplicationContext context =
+                WeavingContexts.start("generated".equals(advice), beans)) {
+            return context.getBean(WeavingContexts.FIRST_BEAN);
+        }
+    }
+}
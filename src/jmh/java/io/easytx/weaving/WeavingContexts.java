@@ -0,0 +1,68 @@
+package io.easytx.weaving;
+
+import javax.sql.DataSource;
+import org.springframework.beans.factory.support.GenericBeanDefinition;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import io.easytx.interceptor.EasyTxAspect;
+import io.easytx.metrics.Metrics;
+import io.easytx.service.TransactionService;
+
+/**
+ * Spring contexts with {@code beans} {@link BenchmarkOrders} beans, advised by the aspect proxy or,
+ * with {@code generated}, by the build-time advice. Both contexts register the aspect.
+ */
+final class WeavingContexts {
+
+    static final String FIRST_BEAN = "orders0";
+
+    private WeavingContexts() {}
+
+    static AnnotationConfigApplicationContext start(boolean generated, int beans) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        if (generated) {
+            context.addBeanFactoryPostProcessor(new TxAdviceBeanDefinitionPostProcessor());
+        }
+        context.register(BenchmarkConfig.class);
+        for (int i = 0; i < beans; i++) {
+            GenericBeanDefinition definition = new GenericBeanDefinition();
+            definition.setBeanClassName(BenchmarkOrders.class.getName());
+            context.registerBeanDefinition("orders" + i, definition);
+        }
+        context.refresh();
+        return context;
+    }
+
+    @Configuration
+    @EnableAspectJAutoProxy
+    @Import(EasyTxAspect.class)
+    static class BenchmarkConfig {
+
+        @Bean(destroyMethod = "destroy")
+        SingleConnectionDataSource dataSource() {
+            return new SingleConnectionDataSource("jdbc:h2:mem:weaving;DB_CLOSE_DELAY=-1", true);
+        }
+
+        @Bean
+        JdbcTemplate jdbcTemplate(DataSource dataSource) {
+            return new JdbcTemplate(dataSource);
+        }
+
+        @Bean
+        Metrics metrics() {
+            return new Metrics(null);
+        }
+
+        @Bean
+        TransactionService transactionService(DataSource dataSource, JdbcTemplate jdbcTemplate) {
+            DataSourceTransactionManager txManager = new DataSourceTransactionManager(dataSource);
+            return new TransactionService(txManager, txManager, jdbcTemplate, jdbcTemplate);
+        }
+    }
+}
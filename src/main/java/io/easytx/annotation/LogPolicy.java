@@ -0,0 +1,60 @@
+package io.easytx.annotation;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+public class LogPolicy {
+
+    public static final LogPolicy OFF = new LogPolicy(LogLevel.OFF, 1, -1);
+
+    private final LogLevel logLevel;
+    private final int sampleRate;
+    private final long slowThresholdNanos;
+
+    public LogPolicy(TxRead txRead) {
+        this(txRead.logLevel(), txRead.sampleRate(), txRead.slowThresholdMillis());
+    }
+
+    public LogPolicy(TxWrite txWrite) {
+        this(txWrite.logLevel(), txWrite.sampleRate(), txWrite.slowThresholdMillis());
+    }
+
+    public LogPolicy(LogLevel logLevel, int sampleRate, long slowThresholdMillis) {
+        this.logLevel = logLevel;
+        this.sampleRate = Math.max(1, sampleRate);
+        this.slowThresholdNanos =
+                slowThresholdMillis < 0 ? -1 : TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+    }
+
+    public LogLevel getLogLevel() {
+        return logLevel;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public long getSlowThresholdNanos() {
+        return slowThresholdNanos;
+    }
+
+    /** True when no invocation is ever logged or timed. */
+    public boolean isOff() {
+        return logLevel.isOff() && !hasSlowThreshold();
+    }
+
+    public boolean hasSlowThreshold() {
+        return slowThresholdNanos >= 0;
+    }
+
+    /**
+     * Decides whether this invocation logs according to its {@link LogLevel}: one call out of
+     * {@code sampleRate} on average.
+     */
+    public boolean sample() {
+        if (logLevel.isOff()) {
+            return false;
+        }
+        return sampleRate == 1 || ThreadLocalRandom.current().nextInt(sampleRate) == 0;
+    }
+}
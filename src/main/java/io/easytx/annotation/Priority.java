@@ -0,0 +1,6 @@
+package io.easytx.annotation;
+
+/** Priority classes for route capacity, from highest to lowest. */
+public enum Priority {
+    CRITICAL, NORMAL, BACKGROUND
+}
@@ -1,5 +1,20 @@
 package io.easytx.annotation;
 
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Routes the annotated method to the {@code read} DataSource without opening a transaction. Its
+ * statements share one connection, held for the length of the call; nested routed calls restore
+ * the outer route when they return. On a class, it applies to the methods that carry no
+ * {@code @Read} or {@code @Write} of their own.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
 public @interface Read {
 
 }
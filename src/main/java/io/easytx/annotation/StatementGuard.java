@@ -0,0 +1,11 @@
+package io.easytx.annotation;
+
+/** What an autocommit read does when its method issues more than one statement. */
+public enum StatementGuard {
+    /** Logs a warning, once per method. */
+    WARN,
+    /** Rejects the second statement. */
+    FAIL,
+    /** Runs the remaining statements in a transaction and later calls in a regular read. */
+    UPGRADE
+}
@@ -7,17 +7,28 @@ public class TransactionConfiguration {
     private Propagation propagation;
     private Isolation isolation;
     private boolean useMicrometer;
+    private String name;
+    private StatementGuard statementGuard = StatementGuard.WARN;
+    private long hedgeDelayMillis = -1;
+    private long deadlineMillis = -1;
+    private Priority priority = Priority.NORMAL;
 
     public TransactionConfiguration(TxRead txRead) {
         this.propagation = txRead.propagation();
         this.isolation = txRead.isolation();
         this.useMicrometer = txRead.useMicrometer;
+        this.statementGuard = txRead.statementGuard();
+        this.hedgeDelayMillis = txRead.hedgeDelayMillis();
+        this.deadlineMillis = txRead.deadlineMillis();
+        this.priority = txRead.priority();
     }
 
     public TransactionConfiguration(TxWrite txWrite) {
         this.propagation = txWrite.propagation();
         this.isolation = txWrite.isolation();
         this.useMicrometer = txWrite.useMicrometer;
+        this.deadlineMillis = txWrite.deadlineMillis();
+        this.priority = txWrite.priority();
     }
 
     public TransactionConfiguration(Propagation propagation, Isolation isolation) {
@@ -49,4 +60,44 @@ public class TransactionConfiguration {
         this.useMicrometer = useMicrometer;
     }
 
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public StatementGuard getStatementGuard() {
+        return statementGuard;
+    }
+
+    public void setStatementGuard(StatementGuard statementGuard) {
+        this.statementGuard = statementGuard;
+    }
+
+    public long getHedgeDelayMillis() {
+        return hedgeDelayMillis;
+    }
+
+    public void setHedgeDelayMillis(long hedgeDelayMillis) {
+        this.hedgeDelayMillis = hedgeDelayMillis;
+    }
+
+    public long getDeadlineMillis() {
+        return deadlineMillis;
+    }
+
+    public void setDeadlineMillis(long deadlineMillis) {
+        this.deadlineMillis = deadlineMillis;
+    }
+
+    public Priority getPriority() {
+        return priority;
+    }
+
+    public void setPriority(Priority priority) {
+        this.priority = priority;
+    }
+
 }
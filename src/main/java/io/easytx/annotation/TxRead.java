@@ -14,9 +14,50 @@ import org.springframework.transaction.annotation.Propagation;
 public @interface TxRead {
     LogLevel logLevel() default LogLevel.OFF;
 
+    /** Logs one invocation out of {@code sampleRate}, according to {@link #logLevel()}. */
+    int sampleRate() default 1;
+
+    /** Invocations slower than this are always logged, a negative value disables the rule. */
+    long slowThresholdMillis() default -1;
+
     Propagation propagation() default Propagation.REQUIRED;
 
     Isolation isolation() default Isolation.DEFAULT;
 
+    /**
+     * Time budget in milliseconds for this call and every easyTx call nested in it, a negative
+     * value keeps the caller's deadline. It bounds the transaction and statement timeouts.
+     */
+    long deadlineMillis() default -1;
+
+    /** Capacity class of the transaction when priorities are enabled. */
+    Priority priority() default Priority.NORMAL;
+
+    /**
+     * Concurrent invocations with equal arguments share one in-flight execution. Ignored when a
+     * transaction is already active.
+     */
+    boolean singleFlight() default false;
+
+    /** Maximum wait for an in-flight execution before running the call independently. */
+    long singleFlightTimeoutMillis() default 1000;
+
+    /**
+     * Runs on the read route in autocommit, without a transaction. Meant for methods that issue a
+     * single statement, see {@link #statementGuard()}.
+     */
+    boolean autoCommit() default false;
+
+    StatementGuard statementGuard() default StatementGuard.WARN;
+
+    /**
+     * Starts the same read on another replica when the first one has not answered within
+     * {@link #hedgeDelayMillis()}. Only for idempotent methods, the losing attempt is cancelled.
+     */
+    boolean hedged() default false;
+
+    /** Hedge delay, a negative value uses the method's observed p95. */
+    long hedgeDelayMillis() default -1;
+
     boolean useMicrometer = false;
 }
@@ -14,9 +14,24 @@ import org.springframework.transaction.annotation.Propagation;
 public @interface TxWrite {
     LogLevel logLevel() default LogLevel.OFF;
 
+    /** Logs one invocation out of {@code sampleRate}, according to {@link #logLevel()}. */
+    int sampleRate() default 1;
+
+    /** Invocations slower than this are always logged, a negative value disables the rule. */
+    long slowThresholdMillis() default -1;
+
     Propagation propagation() default Propagation.REQUIRED;
 
     Isolation isolation() default Isolation.DEFAULT;
 
+    /**
+     * Time budget in milliseconds for this call and every easyTx call nested in it, a negative
+     * value keeps the caller's deadline. It bounds the transaction and statement timeouts.
+     */
+    long deadlineMillis() default -1;
+
+    /** Capacity class of the transaction when priorities are enabled. */
+    Priority priority() default Priority.NORMAL;
+
     boolean useMicrometer = false;
 }
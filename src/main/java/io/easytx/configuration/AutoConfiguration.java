@@ -1,20 +1,35 @@
 package io.easytx.configuration;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
 import javax.sql.DataSource;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.transaction.PlatformTransactionManager;
+import io.easytx.context.TxExecutors;
+import io.easytx.jdbc.EasyTxJdbcTemplate;
+import io.easytx.metrics.Metrics;
+import io.easytx.metrics.TxStatistics;
+import io.easytx.routing.Replicas;
 import io.easytx.routing.RoutingDataSource;
+import io.easytx.routing.TenantDataSourceResolver;
+import io.easytx.routing.TenantPools;
+import io.easytx.service.PriorityGate;
 import io.easytx.service.TransactionService;
+import io.easytx.weaving.TxAdviceBeanDefinitionPostProcessor;
+import io.micrometer.observation.ObservationRegistry;
 
 @Configuration
 public class AutoConfiguration {
@@ -25,8 +40,13 @@ public class AutoConfiguration {
     private static final String TX_READ_SOURCE = "txReadSource";
     private static final String WRITE_TX_MANAGER = "writeTxManager";
     private static final String READ_TX_MANAGER = "readTxManager";
+    private static final String ROUTING_SOURCE = "routingDataSource";
     private static final String WRITE_JDBC_TEMPLATE = "writeJdbcTemplate";
     private static final String READ_JDBC_TEMPLATE = "readJdbcTemplate";
+    private static final String EXECUTOR = "easyTxExecutor";
+    private static final String SCAN_EXECUTOR = "easyTxScanExecutor";
+    private static final String DEFAULT_PRIORITY_SHARES =
+            "critical:0.2:1.0,normal:0:1.0,background:0:0.5";
     private static final String DS_OR_ROUTING_AVAILABLE =
             " DataSource or routingDataSource available";
 
@@ -61,31 +81,56 @@ public class AutoConfiguration {
     @ConditionalOnMissingBean(name = WRITE_JDBC_TEMPLATE)
     public JdbcTemplate writeJdbcTemplate(
             @Autowired(required = false) @Qualifier(TX_WRITE_SOURCE) DataSource txWriteSource,
-            @Autowired(required = false) DataSource routingDataSource) {
-        return configureTemplate(txWriteSource, routingDataSource, WRITE);
+            @Autowired(required = false) DataSource routingDataSource,
+            @Value("${easytx.jdbc.query-memo:false}") boolean queryMemo,
+            @Value("${easytx.jdbc.write-behind:false}") boolean writeBehind) {
+        EasyTxJdbcTemplate template =
+                configureTemplate(txWriteSource, routingDataSource, WRITE, queryMemo);
+        template.setWriteBehind(writeBehind);
+        return template;
     }
 
     @Bean
     @ConditionalOnMissingBean(name = READ_JDBC_TEMPLATE)
     public JdbcTemplate readJdbcTemplate(
             @Autowired(required = false) @Qualifier(TX_READ_SOURCE) DataSource txReadSource,
-            @Autowired(required = false) DataSource routingDataSource) {
-        return configureTemplate(txReadSource, routingDataSource, READ);
+            @Autowired(required = false) DataSource routingDataSource,
+            @Value("${easytx.jdbc.query-memo:false}") boolean queryMemo) {
+        return configureTemplate(txReadSource, routingDataSource, READ, queryMemo);
     }
 
-    private JdbcTemplate configureTemplate(DataSource dataSource, DataSource routingDataSource,
-            String type) {
+    private EasyTxJdbcTemplate configureTemplate(DataSource dataSource,
+            DataSource routingDataSource, String type, boolean queryMemo) {
+        EasyTxJdbcTemplate template;
         if (dataSource != null) {
-            return new JdbcTemplate(dataSource);
+            template = new EasyTxJdbcTemplate(dataSource);
         } else if (routingDataSource != null) {
-            return new JdbcTemplate(getFromRouting(routingDataSource, type));
+            template = new EasyTxJdbcTemplate(getFromRouting(routingDataSource, type));
         } else {
             throw new IllegalStateException("No " + type + DS_OR_ROUTING_AVAILABLE);
         }
+        template.setQueryMemoization(queryMemo);
+        return template;
     }
 
+    // Follows the route's current target, so runtime changes reach managers and templates
     private DataSource getFromRouting(DataSource routingDataSource, String type) {
-        return ((RoutingDataSource) routingDataSource).getResolvedDataSources().get(type);
+        return ((RoutingDataSource) routingDataSource).routeTo(type);
+    }
+
+    // Runs the background work of the service and the routing, stopped with the context
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean(name = EXECUTOR)
+    public ScheduledExecutorService easyTxExecutor(
+            @Value("${easytx.executor.threads:" + TxExecutors.DEFAULT_THREADS + "}") int threads) {
+        return TxExecutors.create(threads);
+    }
+
+    // Partition workers, kept apart so their blocking never delays the short tasks above
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean(name = SCAN_EXECUTOR)
+    public ExecutorService easyTxScanExecutor() {
+        return TxExecutors.createScans();
     }
 
     @Bean
@@ -93,20 +138,67 @@ public class AutoConfiguration {
             @Qualifier(WRITE_TX_MANAGER) PlatformTransactionManager writeTxManager,
             @Qualifier(READ_TX_MANAGER) PlatformTransactionManager readTxManager,
             @Qualifier(WRITE_JDBC_TEMPLATE) JdbcTemplate writeJdbcTemplate,
-            @Qualifier(READ_JDBC_TEMPLATE) JdbcTemplate readJdbcTemplate) {
-        return new TransactionService(writeTxManager, readTxManager, writeJdbcTemplate,
-                readJdbcTemplate);
+            @Qualifier(READ_JDBC_TEMPLATE) JdbcTemplate readJdbcTemplate,
+            TxStatistics txStatistics, Metrics metrics,
+            @Autowired(required = false) @Qualifier(ROUTING_SOURCE) DataSource routingDataSource,
+            @Value("${easytx.hedging.budget:0.05}") double hedgingBudget,
+            @Value("${easytx.hedging.default-delay:PT0.05S}") Duration hedgingDelay,
+            @Value("${easytx.priority.capacity:0}") int priorityCapacity,
+            @Value("${easytx.priority.shares:" + DEFAULT_PRIORITY_SHARES + "}") String shares,
+            @Value("${easytx.priority.max-wait:PT30S}") Duration priorityMaxWait,
+            @Value("${easytx.partitioned.max-per-replica:4}") int partitionsPerReplica,
+            ObjectProvider<ObservationRegistry> observationRegistry,
+            @Qualifier(EXECUTOR) ScheduledExecutorService executor,
+            @Qualifier(SCAN_EXECUTOR) ExecutorService scanExecutor) {
+        TransactionService transactionService = new TransactionService(writeTxManager,
+                readTxManager, writeJdbcTemplate, readJdbcTemplate, txStatistics, metrics);
+        transactionService.setExecutor(executor);
+        transactionService.setScanExecutor(scanExecutor);
+        observationRegistry.ifAvailable(transactionService::enableObservations);
+        Replicas replicas = routingDataSource instanceof RoutingDataSource
+                ? new Replicas((RoutingDataSource) routingDataSource)
+                : null;
+        if (replicas != null) {
+            transactionService.enableHedging(replicas, hedgingBudget, hedgingDelay);
+        }
+        transactionService.enablePartitionedReads(replicas, partitionsPerReplica);
+        if (priorityCapacity > 0) {
+            transactionService.enablePriorities(PriorityGate.parse(priorityCapacity, shares),
+                    PriorityGate.parse(priorityCapacity, shares), priorityMaxWait);
+        }
+        return transactionService;
     }
 
     @Bean
     public DataSource routingDataSource(ObjectProvider<Map<String, DataSource>> txSourcesProvider,
             ObjectProvider<DataSource> writeDataSourceProvider,
-            ObjectProvider<DataSource> readDataSourceProvider) {
+            ObjectProvider<DataSource> readDataSourceProvider,
+            @Value("${easytx.routing.statement-inspection:false}") boolean statementInspection,
+            @Value("${easytx.routing.weights:}") String weights,
+            @Value("${easytx.routing.drain-timeout:PT30S}") Duration drainTimeout,
+            @Value("${easytx.routing.warmup-connections:1}") int warmupConnections,
+            ObjectProvider<TenantDataSourceResolver> tenantResolver,
+            @Value("${easytx.tenants.pool-size:5}") int tenantPoolSize,
+            @Value("${easytx.tenants.max-total-connections:200}") int tenantMaxConnections,
+            @Value("${easytx.tenants.idle-timeout:PT10M}") Duration tenantIdleTimeout,
+            @Qualifier(EXECUTOR) ScheduledExecutorService executor) {
         Map<Object, Object> finalSources = validateAndCreateDataSources(txSourcesProvider,
                 writeDataSourceProvider, readDataSourceProvider);
         RoutingDataSource routing = new RoutingDataSource();
         routing.setTargetDataSources(finalSources);
         routing.setDefaultTargetDataSource(finalSources.get(WRITE));
+        routing.setStatementInspection(statementInspection);
+        routing.setDrainTimeout(drainTimeout);
+        routing.setWarmupConnections(warmupConnections);
+        routing.setScheduler(executor);
+        for (String weight : weights.split(",")) {
+            if (!weight.isBlank()) {
+                String[] parts = weight.trim().split(":");
+                routing.setWeight(parts[0], Integer.parseInt(parts[1]));
+            }
+        }
+        tenantResolver.ifAvailable(resolver -> routing.setTenantPools(new TenantPools(resolver,
+                tenantPoolSize, tenantMaxConnections, tenantIdleTimeout, executor)));
         return routing;
     }
 
@@ -132,6 +224,12 @@ public class AutoConfiguration {
         return finalSources;
     }
 
+    @Bean
+    @ConditionalOnProperty(name = "easytx.weaving.enabled", havingValue = "true")
+    public static TxAdviceBeanDefinitionPostProcessor txAdviceBeanDefinitionPostProcessor() {
+        return new TxAdviceBeanDefinitionPostProcessor();
+    }
+
     @Bean
     @ConditionalOnMissingBean(name = "transactionManager")
     public DataSourceTransactionManager transactionManager(DataSource routingDataSource) {
@@ -0,0 +1,93 @@
+package io.easytx.configuration;
+
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.ReactiveTransactionManager;
+import io.easytx.interceptor.ReactiveTxHandler;
+import io.easytx.reactive.ReactiveAspectSupport;
+import io.easytx.reactive.ReactiveRoutingConnectionFactory;
+import io.easytx.reactive.ReactiveTransactionService;
+import io.r2dbc.spi.ConnectionFactory;
+
+/**
+ * Reactive easyTx beans, built on the {@code txWriteConnectionFactory} and
+ * {@code txReadConnectionFactory} R2DBC connection factories. Transaction managers and database
+ * clients all use the {@link ReactiveRoutingConnectionFactory} over them, so statements find the
+ * connection of the surrounding transaction whatever its route. Enabled with
+ * {@code easytx.reactive.enabled=true} when Spring R2DBC is on the classpath.
+ */
+@Configuration
+@ConditionalOnClass(name = "org.springframework.r2dbc.connection.R2dbcTransactionManager")
+@ConditionalOnProperty(name = "easytx.reactive.enabled", havingValue = "true")
+public class ReactiveConfiguration {
+
+    private static final String WRITE = "write";
+    private static final String READ = "read";
+    private static final String TX_WRITE_FACTORY = "txWriteConnectionFactory";
+    private static final String TX_READ_FACTORY = "txReadConnectionFactory";
+    private static final String WRITE_TX_MANAGER = "writeReactiveTxManager";
+    private static final String READ_TX_MANAGER = "readReactiveTxManager";
+
+    @Bean
+    public ReactiveRoutingConnectionFactory reactiveRoutingConnectionFactory(
+            @Qualifier(TX_WRITE_FACTORY) ConnectionFactory txWriteFactory,
+            @Qualifier(TX_READ_FACTORY) ConnectionFactory txReadFactory) {
+        ReactiveRoutingConnectionFactory routing = new ReactiveRoutingConnectionFactory();
+        routing.setTargetConnectionFactories(Map.of(WRITE, txWriteFactory, READ, txReadFactory));
+        routing.setDefaultTargetConnectionFactory(txWriteFactory);
+        return routing;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(name = WRITE_TX_MANAGER)
+    public ReactiveTransactionManager writeReactiveTxManager(
+            ReactiveRoutingConnectionFactory routingConnectionFactory) {
+        return new R2dbcTransactionManager(routingConnectionFactory);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(name = READ_TX_MANAGER)
+    public ReactiveTransactionManager readReactiveTxManager(
+            ReactiveRoutingConnectionFactory routingConnectionFactory) {
+        return new R2dbcTransactionManager(routingConnectionFactory);
+    }
+
+    /** Routes by the Reactor context, to {@code write} outside of easyTx scopes. */
+    @Bean
+    @ConditionalOnMissingBean(name = "writeDatabaseClient")
+    public DatabaseClient writeDatabaseClient(
+            ReactiveRoutingConnectionFactory routingConnectionFactory) {
+        return DatabaseClient.create(routingConnectionFactory);
+    }
+
+    /**
+     * Same routing as {@link #writeDatabaseClient}: reads go to {@code read} inside
+     * {@code ReactiveTransactionService.read} or {@code @Read} methods.
+     */
+    @Bean
+    @ConditionalOnMissingBean(name = "readDatabaseClient")
+    public DatabaseClient readDatabaseClient(
+            ReactiveRoutingConnectionFactory routingConnectionFactory) {
+        return DatabaseClient.create(routingConnectionFactory);
+    }
+
+    @Bean
+    public ReactiveTransactionService reactiveTransactionService(
+            @Qualifier(WRITE_TX_MANAGER) ReactiveTransactionManager writeTxManager,
+            @Qualifier(READ_TX_MANAGER) ReactiveTransactionManager readTxManager) {
+        return new ReactiveTransactionService(writeTxManager, readTxManager);
+    }
+
+    @Bean
+    public ReactiveTxHandler reactiveTxHandler(
+            ReactiveTransactionService reactiveTransactionService) {
+        return new ReactiveAspectSupport(reactiveTransactionService);
+    }
+}
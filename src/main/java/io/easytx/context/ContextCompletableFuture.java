@@ -0,0 +1,27 @@
+package io.easytx.context;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * {@link CompletableFuture} whose dependent stages keep using a context-propagating executor, so
+ * {@code thenApplyAsync(fn)} and friends see the context captured when the chain was started.
+ */
+class ContextCompletableFuture<T> extends CompletableFuture<T> {
+
+    private final Executor defaultExecutor;
+
+    ContextCompletableFuture(Executor defaultExecutor) {
+        this.defaultExecutor = defaultExecutor;
+    }
+
+    @Override
+    public <U> CompletableFuture<U> newIncompleteFuture() {
+        return new ContextCompletableFuture<>(defaultExecutor);
+    }
+
+    @Override
+    public Executor defaultExecutor() {
+        return defaultExecutor;
+    }
+}
@@ -0,0 +1,17 @@
+package io.easytx.context;
+
+import java.util.concurrent.Executor;
+
+class ContextExecutor implements Executor {
+
+    private final Executor delegate;
+
+    ContextExecutor(Executor delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        delegate.execute(TxContexts.wrap(command));
+    }
+}
@@ -0,0 +1,50 @@
+package io.easytx.context;
+
+import java.time.Duration;
+
+public final class Deadline {
+
+    private final long deadlineNanos;
+
+    private Deadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public static Deadline after(Duration timeout) {
+        return new Deadline(System.nanoTime() + timeout.toNanos());
+    }
+
+    public static Deadline afterMillis(long millis) {
+        return after(Duration.ofMillis(millis));
+    }
+
+    public long remainingNanos() {
+        return deadlineNanos - System.nanoTime();
+    }
+
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0, remainingNanos()));
+    }
+
+    /** Remaining time in whole seconds rounded up, as used by JDBC and Spring timeouts. */
+    public int remainingSeconds() {
+        long nanos = Math.max(0, remainingNanos());
+        return (int) Math.min(Integer.MAX_VALUE, (nanos + 999_999_999L) / 1_000_000_000L);
+    }
+
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+
+    public Deadline earliest(Deadline other) {
+        if (other == null) {
+            return this;
+        }
+        return deadlineNanos - other.deadlineNanos <= 0 ? this : other;
+    }
+
+    @Override
+    public String toString() {
+        return "Deadline[remaining=" + remaining().toMillis() + "ms]";
+    }
+}
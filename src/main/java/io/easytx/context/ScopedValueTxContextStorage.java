@@ -0,0 +1,135 @@
+package io.easytx.context;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * {@link TxContextStorage} backed by {@code java.lang.ScopedValue}. The project compiles against
+ * Java 17, so the API is reached through method handles and is only available on runtimes that
+ * ship it.
+ * <p>
+ * Scoped values cannot be rebound in place, so {@link #set(TxContext)} stores an override in a
+ * thread-local that hides the scoped value until the enclosing {@link #callWith} returns, or for
+ * the rest of the thread outside of any scope. Lookups only consult the thread-local while some
+ * thread holds an override, so threads that never call {@code set} never allocate a
+ * thread-local map.
+ */
+class ScopedValueTxContextStorage implements TxContextStorage {
+
+    private final Object scopedValue;
+    private final MethodHandle isBound;
+    private final MethodHandle get;
+    private final MethodHandle where;
+    private final MethodHandle run;
+    private final ThreadLocal<TxContext> override = new ThreadLocal<>();
+    // Threads currently holding an override; a thread that dies holding one leaves this raised
+    private final AtomicInteger overrides = new AtomicInteger();
+
+    ScopedValueTxContextStorage() throws ReflectiveOperationException {
+        Class<?> scopedValueClass = Class.forName("java.lang.ScopedValue");
+        Class<?> carrierClass = Class.forName("java.lang.ScopedValue$Carrier");
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        MethodHandle newInstance = lookup.findStatic(scopedValueClass, "newInstance",
+                MethodType.methodType(scopedValueClass));
+        try {
+            this.scopedValue = newInstance.invoke();
+        } catch (Throwable e) {
+            throw new ReflectiveOperationException("ScopedValue not usable", e);
+        }
+        this.isBound = lookup
+                .findVirtual(scopedValueClass, "isBound", MethodType.methodType(boolean.class))
+                .bindTo(scopedValue);
+        this.get = lookup.findVirtual(scopedValueClass, "get", MethodType.methodType(Object.class))
+                .bindTo(scopedValue);
+        this.where = lookup.findStatic(scopedValueClass, "where",
+                MethodType.methodType(carrierClass, scopedValueClass, Object.class));
+        this.run = lookup.findVirtual(carrierClass, "run",
+                MethodType.methodType(void.class, Runnable.class));
+    }
+
+    @Override
+    public TxContext get() {
+        TxContext current = currentOverride();
+        if (current != null) {
+            return current;
+        }
+        try {
+            if ((boolean) isBound.invoke()) {
+                return (TxContext) get.invoke();
+            }
+            return TxContext.EMPTY;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Unable to read easyTx scoped context", e);
+        }
+    }
+
+    @Override
+    public <T> T callWith(TxContext context, Supplier<T> action) {
+        Object[] result = new Object[1];
+        RuntimeException[] failure = new RuntimeException[1];
+        Runnable task = () -> {
+            try {
+                result[0] = action.get();
+            } catch (RuntimeException e) {
+                failure[0] = e;
+            }
+        };
+        TxContext previous = currentOverride();
+        restore(null);
+        try {
+            Object carrier = where.invoke(scopedValue, context);
+            run.invoke(carrier, task);
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Unable to bind easyTx scoped context", e);
+        } finally {
+            restore(previous);
+        }
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+        @SuppressWarnings("unchecked")
+        T value = (T) result[0];
+        return value;
+    }
+
+    @Override
+    public void set(TxContext context) {
+        TxContext value = context != null ? context : TxContext.EMPTY;
+        boolean scoped;
+        try {
+            scoped = (boolean) isBound.invoke();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Unable to read easyTx scoped context", e);
+        }
+        // Outside of any scope an empty context needs no override
+        restore(value.isEmpty() && !scoped ? null : value);
+    }
+
+    int overrides() {
+        return overrides.get();
+    }
+
+    private TxContext currentOverride() {
+        return overrides.get() == 0 ? null : override.get();
+    }
+
+    private void restore(TxContext previous) {
+        TxContext current = currentOverride();
+        if (previous == null) {
+            if (current != null) {
+                override.remove();
+                overrides.decrementAndGet();
+            }
+        } else {
+            if (current == null) {
+                overrides.incrementAndGet();
+            }
+            override.set(previous);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package io.easytx.context;
+
+import java.util.function.Supplier;
+
+class ThreadLocalTxContextStorage implements TxContextStorage {
+
+    private final ThreadLocal<TxContext> context = new ThreadLocal<>();
+
+    @Override
+    public TxContext get() {
+        TxContext current = context.get();
+        return current != null ? current : TxContext.EMPTY;
+    }
+
+    @Override
+    public <T> T callWith(TxContext value, Supplier<T> action) {
+        TxContext previous = context.get();
+        set(value);
+        try {
+            return action.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    @Override
+    public void set(TxContext value) {
+        if (value == null || value.isEmpty()) {
+            // Removing instead of storing EMPTY keeps per-thread maps small on virtual threads
+            context.remove();
+        } else {
+            context.set(value);
+        }
+    }
+
+    private void restore(TxContext previous) {
+        if (previous == null) {
+            context.remove();
+        } else {
+            context.set(previous);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package io.easytx.context;
+
+/**
+ * Immutable snapshot of the easyTx state that has to follow a unit of work: the routing key, an
+ * optional consistency token (for read-your-writes checks against replicas), an optional
+ * deadline and an optional tenant id. Use {@link TxContextHolder} to bind it and {@link TxContexts} to carry it across
+ * threads.
+ */
+public final class TxContext {
+
+    public static final TxContext EMPTY = new TxContext(null, null, null, null);
+
+    private final String routeKey;
+    private final String consistencyToken;
+    private final Deadline deadline;
+    private final String tenantId;
+
+    private TxContext(String routeKey, String consistencyToken, Deadline deadline,
+            String tenantId) {
+        this.routeKey = routeKey;
+        this.consistencyToken = consistencyToken;
+        this.deadline = deadline;
+        this.tenantId = tenantId;
+    }
+
+    public String getRouteKey() {
+        return routeKey;
+    }
+
+    public String getConsistencyToken() {
+        return consistencyToken;
+    }
+
+    public Deadline getDeadline() {
+        return deadline;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public TxContext withRouteKey(String routeKey) {
+        return new TxContext(routeKey, consistencyToken, deadline, tenantId);
+    }
+
+    public TxContext withConsistencyToken(String consistencyToken) {
+        return new TxContext(routeKey, consistencyToken, deadline, tenantId);
+    }
+
+    public TxContext withDeadline(Deadline deadline) {
+        return new TxContext(routeKey, consistencyToken, deadline, tenantId);
+    }
+
+    public TxContext withTenantId(String tenantId) {
+        return new TxContext(routeKey, consistencyToken, deadline, tenantId);
+    }
+
+    public boolean isEmpty() {
+        return routeKey == null && consistencyToken == null && deadline == null
+                && tenantId == null;
+    }
+
+    @Override
+    public String toString() {
+        return "TxContext[route=" + routeKey + ", consistencyToken=" + consistencyToken
+                + ", deadline=" + deadline + ", tenant=" + tenantId + "]";
+    }
+}
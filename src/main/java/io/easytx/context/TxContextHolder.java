@@ -0,0 +1,66 @@
+package io.easytx.context;
+
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Entry point to the current {@link TxContext}. Thread-locals are used by default; start the JVM
+ * with {@code -Deasytx.context.storage=scoped-value} to use scoped values on runtimes that
+ * provide them.
+ */
+public final class TxContextHolder {
+
+    public static final String STORAGE_PROPERTY = "easytx.context.storage";
+    public static final String SCOPED_VALUE_STORAGE = "scoped-value";
+
+    private static final Logger LOG = LoggerFactory.getLogger(TxContextHolder.class);
+
+    private static final TxContextStorage STORAGE = createStorage();
+
+    private TxContextHolder() {}
+
+    public static TxContext current() {
+        return STORAGE.get();
+    }
+
+    public static <T> T callWith(TxContext context, Supplier<T> action) {
+        return STORAGE.callWith(context, action);
+    }
+
+    public static void runWith(TxContext context, Runnable action) {
+        STORAGE.callWith(context, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Replaces the context of the current thread without restoring it afterwards; with scoped
+     * value storage the replacement lasts until the enclosing {@link #callWith} returns. Prefer
+     * {@link #callWith(TxContext, Supplier)}.
+     */
+    public static void set(TxContext context) {
+        STORAGE.set(context);
+    }
+
+    public static void clear() {
+        STORAGE.set(TxContext.EMPTY);
+    }
+
+    public static boolean isScopedValueStorage() {
+        return STORAGE instanceof ScopedValueTxContextStorage;
+    }
+
+    private static TxContextStorage createStorage() {
+        if (SCOPED_VALUE_STORAGE.equals(System.getProperty(STORAGE_PROPERTY))) {
+            try {
+                return new ScopedValueTxContextStorage();
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                LOG.warn("ScopedValue is not available on this runtime, using thread-locals: {}",
+                        e.toString());
+            }
+        }
+        return new ThreadLocalTxContextStorage();
+    }
+}
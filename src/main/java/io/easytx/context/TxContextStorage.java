@@ -0,0 +1,12 @@
+package io.easytx.context;
+
+import java.util.function.Supplier;
+
+interface TxContextStorage {
+
+    TxContext get();
+
+    <T> T callWith(TxContext context, Supplier<T> action);
+
+    void set(TxContext context);
+}
@@ -0,0 +1,91 @@
+package io.easytx.context;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Helpers that capture the caller's {@link TxContext} and restore it wherever the work runs.
+ */
+public final class TxContexts {
+
+    private TxContexts() {}
+
+    public static Runnable wrap(Runnable task) {
+        TxContext captured = TxContextHolder.current();
+        return () -> TxContextHolder.runWith(captured, task);
+    }
+
+    public static <T> Supplier<T> wrapSupplier(Supplier<T> supplier) {
+        TxContext captured = TxContextHolder.current();
+        return () -> TxContextHolder.callWith(captured, supplier);
+    }
+
+    public static <T> Callable<T> wrapCallable(Callable<T> callable) {
+        TxContext captured = TxContextHolder.current();
+        return () -> {
+            Object[] result = new Object[1];
+            Exception[] failure = new Exception[1];
+            TxContextHolder.runWith(captured, () -> {
+                try {
+                    result[0] = callable.call();
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    failure[0] = e;
+                }
+            });
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+            @SuppressWarnings("unchecked")
+            T value = (T) result[0];
+            return value;
+        };
+    }
+
+    public static Executor wrapExecutor(Executor executor) {
+        if (executor instanceof ContextExecutor || executor instanceof ContextExecutorService) {
+            return executor;
+        }
+        return new ContextExecutor(executor);
+    }
+
+    public static ExecutorService wrapExecutorService(ExecutorService executorService) {
+        if (executorService instanceof ContextExecutorService) {
+            return executorService;
+        }
+        return new ContextExecutorService(executorService);
+    }
+
+    public static <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+        return supplyAsync(supplier, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Like {@link CompletableFuture#supplyAsync(Supplier, Executor)}, but the returned future and
+     * every stage derived from it without an explicit executor run with the caller's context.
+     */
+    public static <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier, Executor executor) {
+        Executor contextExecutor = wrapExecutor(executor);
+        CompletableFuture<T> future = new ContextCompletableFuture<>(contextExecutor);
+        contextExecutor.execute(() -> {
+            try {
+                future.complete(supplier.get());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    public static CompletableFuture<Void> runAsync(Runnable task, Executor executor) {
+        return supplyAsync(() -> {
+            task.run();
+            return null;
+        }, executor);
+    }
+}
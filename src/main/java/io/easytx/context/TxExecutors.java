@@ -0,0 +1,69 @@
+package io.easytx.context;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pools for the background work of easyTx. Short tasks, such as hedge attempts, prefetches, route
+ * drains and tenant pool evictions, run on a bounded pool. Partition workers, which block for as
+ * long as their consumer is behind, get a pool of their own so they never hold up short tasks.
+ * The auto-configuration creates both per application context and shuts them down with the
+ * context; components used without it share {@link #shared()} and {@link #sharedScans()}.
+ */
+public final class TxExecutors {
+
+    public static final int DEFAULT_THREADS = 16;
+
+    private TxExecutors() {}
+
+    /**
+     * Pool of {@code threads} daemon threads. Tasks beyond them wait in the queue, and delayed
+     * tasks still pending at shutdown are dropped.
+     */
+    public static ScheduledExecutorService create(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        }
+        AtomicInteger count = new AtomicInteger();
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(threads,
+                runnable -> {
+                    Thread thread = new Thread(runnable, "easytx-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    /** Pool that starts a daemon thread for each scan that finds no idle one. */
+    public static ExecutorService createScans() {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "easytx-scan-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** Process-wide pool of {@value #DEFAULT_THREADS} threads, created on first use. */
+    public static ScheduledExecutorService shared() {
+        return Shared.EXECUTOR;
+    }
+
+    /** Process-wide scan pool, created on first use. */
+    public static ExecutorService sharedScans() {
+        return SharedScans.EXECUTOR;
+    }
+
+    private static final class Shared {
+        private static final ScheduledExecutorService EXECUTOR = create(DEFAULT_THREADS);
+    }
+
+    private static final class SharedScans {
+        private static final ExecutorService EXECUTOR = createScans();
+    }
+}
@@ -1,20 +1,29 @@
 package io.easytx.interceptor;
 
+import java.util.function.Supplier;
+import javax.sql.DataSource;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import io.easytx.annotation.LogPolicy;
 import io.easytx.annotation.Read;
 import io.easytx.annotation.TransactionConfiguration;
 import io.easytx.annotation.TxRead;
 import io.easytx.annotation.TxWrite;
 import io.easytx.annotation.Write;
+import io.easytx.context.TxContextHolder;
 import io.easytx.interceptor.executor.BaseExecutor;
 import io.easytx.interceptor.executor.Executor;
 import io.easytx.interceptor.executor.MicrometerExecutor;
 import io.easytx.metrics.Metrics;
 import io.easytx.routing.RoutingDataSource;
 import io.easytx.service.TransactionService;
+import io.easytx.weaving.TxAdvised;
 
 @Aspect
 @Component
@@ -22,26 +31,73 @@ public class EasyTxAspect {
 
     private final TransactionService transactionService;
     private final Metrics metrics;
+    private final ReactiveTxHandler reactiveTxHandler;
+    private final RoutingDataSource routingDataSource;
 
-    public EasyTxAspect(TransactionService transactionService, Metrics metrics) {
+    public EasyTxAspect(TransactionService transactionService, Metrics metrics,
+            ObjectProvider<ReactiveTxHandler> reactiveTxHandler,
+            @Qualifier("routingDataSource") ObjectProvider<DataSource> routingDataSource) {
         this.transactionService = transactionService;
         this.metrics = metrics;
+        this.reactiveTxHandler = reactiveTxHandler.getIfAvailable();
+        DataSource routing = routingDataSource.getIfAvailable();
+        this.routingDataSource =
+                routing instanceof RoutingDataSource ? (RoutingDataSource) routing : null;
     }
 
     @Around("@annotation(txRead)")
     public Object aroundTxRead(ProceedingJoinPoint pjp, TxRead txRead) {
+        if (pjp.getTarget() instanceof TxAdvised) {
+            return new BaseExecutor(pjp).execute();
+        }
         TransactionConfiguration transactionConfig = new TransactionConfiguration(txRead);
+        transactionConfig.setName(new Environment(pjp).getQualifiedName());
+        Class<?> reactiveType = reactiveReturnType(pjp);
+        if (reactiveType != null) {
+            return reactiveTxHandler.transactional(reactiveType, new BaseExecutor(pjp)::execute,
+                    transactionConfig, true);
+        }
+        LogPolicy logPolicy = new LogPolicy(txRead);
+        if (joinsDirectly(logPolicy, transactionConfig)
+                && transactionService.joinsRead(transactionConfig)) {
+            return transactionService.read(new BaseExecutor(pjp)::execute, transactionConfig);
+        }
         Executor executor = getExecutorByFlag(pjp, transactionConfig.useMicrometer());
-        return transactionService.read(() -> executor.execute(txRead.logLevel()),
-                transactionConfig);
+        Supplier<Object> call = () -> executor.execute(logPolicy);
+        Supplier<Object> read;
+        if (txRead.autoCommit()) {
+            read = () -> transactionService.readAutoCommit(call, transactionConfig);
+        } else if (txRead.hedged()) {
+            read = () -> transactionService.readHedged(call, transactionConfig);
+        } else {
+            read = () -> transactionService.read(call, transactionConfig);
+        }
+        if (txRead.singleFlight()) {
+            return transactionService.readOnce(pjp.getTarget(), pjp.getArgs(),
+                    txRead.singleFlightTimeoutMillis(), read, transactionConfig);
+        }
+        return read.get();
     }
 
     @Around("@annotation(txWrite)")
     public Object aroundTxWrite(ProceedingJoinPoint pjp, TxWrite txWrite) {
+        if (pjp.getTarget() instanceof TxAdvised) {
+            return new BaseExecutor(pjp).execute();
+        }
         TransactionConfiguration transactionConfig = new TransactionConfiguration(txWrite);
+        transactionConfig.setName(new Environment(pjp).getQualifiedName());
+        Class<?> reactiveType = reactiveReturnType(pjp);
+        if (reactiveType != null) {
+            return reactiveTxHandler.transactional(reactiveType, new BaseExecutor(pjp)::execute,
+                    transactionConfig, false);
+        }
+        LogPolicy logPolicy = new LogPolicy(txWrite);
+        if (joinsDirectly(logPolicy, transactionConfig)
+                && transactionService.joinsWrite(transactionConfig)) {
+            return transactionService.write(new BaseExecutor(pjp)::execute, transactionConfig);
+        }
         Executor executor = getExecutorByFlag(pjp, transactionConfig.useMicrometer());
-        return transactionService.write(() -> executor.execute(txWrite.logLevel()),
-                transactionConfig);
+        return transactionService.write(() -> executor.execute(logPolicy), transactionConfig);
     }
 
     @Around("@annotation(read)")
@@ -50,18 +106,49 @@ public class EasyTxAspect {
     }
 
     @Around("@annotation(write)")
-    public Object aroundRead(ProceedingJoinPoint pjp, Write write) {
+    public Object aroundWrite(ProceedingJoinPoint pjp, Write write) {
+        return route(pjp, "write");
+    }
+
+    // Methods of a @Read or @Write class, unless the method carries its own routing annotation
+    @Around("@within(read) && execution(* *(..)) && !@annotation(io.easytx.annotation.Read)"
+            + " && !@annotation(io.easytx.annotation.Write)")
+    public Object aroundReadType(ProceedingJoinPoint pjp, Read read) {
+        return route(pjp, "read");
+    }
+
+    @Around("@within(write) && execution(* *(..)) && !@annotation(io.easytx.annotation.Read)"
+            + " && !@annotation(io.easytx.annotation.Write)")
+    public Object aroundWriteType(ProceedingJoinPoint pjp, Write write) {
         return route(pjp, "write");
     }
 
     private Object route(ProceedingJoinPoint pjp, String dataSourceKey) {
-        try {
-            RoutingDataSource.setDataSourceKey(dataSourceKey);
-            BaseExecutor baseExecutor = new BaseExecutor(pjp);
-            return baseExecutor.execute();
-        } finally {
-            RoutingDataSource.clear();
+        BaseExecutor baseExecutor = new BaseExecutor(pjp);
+        Class<?> reactiveType = reactiveReturnType(pjp);
+        if (reactiveType != null) {
+            return reactiveTxHandler.routed(reactiveType, baseExecutor::execute, dataSourceKey);
+        }
+        if (routingDataSource != null) {
+            return routingDataSource.callPinned(dataSourceKey, baseExecutor::execute);
         }
+        return TxContextHolder.callWith(TxContextHolder.current().withRouteKey(dataSourceKey),
+                baseExecutor::execute);
+    }
+
+    // Reactive methods only complete on subscription, their publisher is wrapped instead
+    private Class<?> reactiveReturnType(ProceedingJoinPoint pjp) {
+        if (reactiveTxHandler == null) {
+            return null;
+        }
+        Class<?> returnType = ((MethodSignature) pjp.getSignature()).getReturnType();
+        return reactiveTxHandler.supports(returnType) ? returnType : null;
+    }
+
+    // Nested calls without logging join the active transaction with no executor layer
+    private boolean joinsDirectly(LogPolicy logPolicy, TransactionConfiguration config) {
+        return logPolicy.isOff() && !config.useMicrometer()
+                && TransactionSynchronizationManager.isActualTransactionActive();
     }
 
     private Executor getExecutorByFlag(ProceedingJoinPoint pjp, boolean useMicrometer) {
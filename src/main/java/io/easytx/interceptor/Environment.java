@@ -14,6 +14,15 @@ public class Environment {
         this.methodName = signature.getName();
     }
 
+    public Environment(String className, String methodName) {
+        this.className = className;
+        this.methodName = methodName;
+    }
+
+    public String getQualifiedName() {
+        return className + "." + methodName;
+    }
+
     public String getClassName() {
         return className;
     }
@@ -0,0 +1,20 @@
+package io.easytx.interceptor;
+
+import java.util.function.Supplier;
+import io.easytx.annotation.TransactionConfiguration;
+
+/**
+ * Lets {@link EasyTxAspect} wrap methods returning reactive types without depending on a
+ * reactive library itself.
+ */
+public interface ReactiveTxHandler {
+
+    boolean supports(Class<?> returnType);
+
+    /** Returns the publisher of {@code invocation} in a transaction, invoked on subscription. */
+    Object transactional(Class<?> returnType, Supplier<Object> invocation,
+            TransactionConfiguration configuration, boolean readOnly);
+
+    /** Returns the publisher of {@code invocation} routed to {@code routeKey}. */
+    Object routed(Class<?> returnType, Supplier<Object> invocation, String routeKey);
+}
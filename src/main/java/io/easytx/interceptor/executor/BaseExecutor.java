@@ -11,30 +11,58 @@ public class BaseExecutor extends Executor {
         super(joinPoint);
     }
 
-    public Object executeWithAllLogs() {
+    public Object executeWithAllLogs(long slowThresholdNanos) {
+        Environment env = environment();
         long start = System.nanoTime();
-        Object result = executeWithWrapLogs();
+        LOGGER.start(env);
+        Object result = execute();
+        LOGGER.finish(env);
         long durationNs = System.nanoTime() - start;
-        LOGGER.took(durationNs);
+        LOGGER.took(env, durationNs);
+        slow(env, durationNs, slowThresholdNanos);
         return result;
     }
 
-    public Object executeWithWrapLogs() {
-        Environment env = new Environment(pjp);
+    public Object executeWithWrapLogs(long slowThresholdNanos) {
+        Environment env = environment();
+        long start = System.nanoTime();
         LOGGER.start(env);
         Object result = execute();
         LOGGER.finish(env);
+        slow(env, System.nanoTime() - start, slowThresholdNanos);
+        return result;
+    }
+
+    public Object executeWithTimeLogs(long slowThresholdNanos) {
+        long start = System.nanoTime();
+        Object result = execute();
+        long durationNs = System.nanoTime() - start;
+        Environment env = environment();
+        LOGGER.took(env, durationNs);
+        slow(env, durationNs, slowThresholdNanos);
         return result;
     }
 
-    public Object executeWithTimeLogs() {
+    public Object executeWithSlowLogs(long thresholdNanos) {
         long start = System.nanoTime();
         Object result = execute();
         long durationNs = System.nanoTime() - start;
-        LOGGER.took(durationNs);
+        if (durationNs > thresholdNanos) {
+            LOGGER.slow(environment(), durationNs, thresholdNanos);
+        }
         return result;
     }
 
+    private static void slow(Environment env, long durationNs, long thresholdNanos) {
+        if (durationNs > thresholdNanos) {
+            LOGGER.slow(env, durationNs, thresholdNanos);
+        }
+    }
+
+    protected Environment environment() {
+        return new Environment(pjp);
+    }
+
     public Object execute() {
         try {
             return pjp.proceed();
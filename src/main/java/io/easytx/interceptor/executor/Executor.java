@@ -3,6 +3,7 @@ package io.easytx.interceptor.executor;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.slf4j.LoggerFactory;
 import io.easytx.annotation.LogLevel;
+import io.easytx.annotation.LogPolicy;
 
 public abstract class Executor {
 
@@ -10,26 +11,62 @@ public abstract class Executor {
 
     public abstract Object execute();
 
-    public abstract Object executeWithAllLogs();
+    public abstract Object executeWithAllLogs(long slowThresholdNanos);
 
-    public abstract Object executeWithWrapLogs();
+    public abstract Object executeWithWrapLogs(long slowThresholdNanos);
 
-    public abstract Object executeWithTimeLogs();
+    public abstract Object executeWithTimeLogs(long slowThresholdNanos);
+
+    public abstract Object executeWithSlowLogs(long thresholdNanos);
 
     protected Executor(ProceedingJoinPoint pjp) {
         this.pjp = pjp;
     }
 
+    public Object executeWithAllLogs() {
+        return executeWithAllLogs(Long.MAX_VALUE);
+    }
+
+    public Object executeWithWrapLogs() {
+        return executeWithWrapLogs(Long.MAX_VALUE);
+    }
+
+    public Object executeWithTimeLogs() {
+        return executeWithTimeLogs(Long.MAX_VALUE);
+    }
+
+    public Object execute(LogPolicy logPolicy) {
+        if (logPolicy.sample()) {
+            // Sampled calls still report when they run past the slow threshold
+            long threshold = logPolicy.hasSlowThreshold() ? logPolicy.getSlowThresholdNanos()
+                    : Long.MAX_VALUE;
+            return execute(logPolicy.getLogLevel(), threshold);
+        }
+        if (logPolicy.hasSlowThreshold()) {
+            return executeWithSlowLogs(logPolicy.getSlowThresholdNanos());
+        }
+        if (logPolicy.getLogLevel().isOff()) {
+            return execute();
+        }
+        // Not sampled: only the timing side effects (metrics) are kept
+        return executeWithSlowLogs(Long.MAX_VALUE);
+    }
+
     public Object execute(LogLevel logLevel) {
+        return execute(logLevel, Long.MAX_VALUE);
+    }
+
+    private Object execute(LogLevel logLevel, long slowThresholdNanos) {
         switch (logLevel) {
             case OFF:
-                return execute();
+                return slowThresholdNanos == Long.MAX_VALUE ? execute()
+                        : executeWithSlowLogs(slowThresholdNanos);
             case WRAP:
-                return executeWithWrapLogs();
+                return executeWithWrapLogs(slowThresholdNanos);
             case TIME:
-                return executeWithTimeLogs();
+                return executeWithTimeLogs(slowThresholdNanos);
             case ALL:
-                return executeWithAllLogs();
+                return executeWithAllLogs(slowThresholdNanos);
             default:
                 return execute();
         }
@@ -2,40 +2,38 @@ package io.easytx.interceptor.executor;
 
 import org.slf4j.Logger;
 import io.easytx.interceptor.Environment;
+import io.easytx.interceptor.logging.AsyncTxEventWriter;
+import io.easytx.interceptor.logging.TxEvent;
+import io.easytx.interceptor.logging.TxEvent.Kind;
 
 public class ExecutorLogger {
 
-    private static final String TRANSACTION_STARTED = "{} -> {}: transaction started";
-    private static final String TRANSACTION_FINISHED = "{} -> {}: transaction finished";
-    private static final String TRANSACTION_TOOK = "Transaction took {} ms";
-
     private final Logger log;
+    private final AsyncTxEventWriter writer;
 
     ExecutorLogger(Logger logger) {
         log = logger;
+        writer = AsyncTxEventWriter.getInstance();
     }
 
     public void start(Environment env) {
-        log(TRANSACTION_STARTED, env);
+        publish(Kind.STARTED, env, 0, -1);
     }
 
     public void finish(Environment env) {
-        log(TRANSACTION_FINISHED, env);
-    }
-
-    public void took(long nanoSeconds) {
-        log(TRANSACTION_TOOK, getMilliseconds(nanoSeconds));
+        publish(Kind.FINISHED, env, 0, -1);
     }
 
-    private void log(String message, Environment env) {
-        log(message, env.getClassName(), env.getMethodName());
+    public void took(Environment env, long nanoSeconds) {
+        publish(Kind.TOOK, env, nanoSeconds, -1);
     }
 
-    private void log(String message, Object... params) {
-        log.info(message, params);
+    public void slow(Environment env, long nanoSeconds, long thresholdNanos) {
+        publish(Kind.SLOW, env, nanoSeconds, thresholdNanos);
     }
 
-    private long getMilliseconds(long nanoSeconds) {
-        return nanoSeconds / 1_000_000;
+    private void publish(Kind kind, Environment env, long durationNanos, long thresholdNanos) {
+        writer.publish(new TxEvent(log, kind, env.getClassName(), env.getMethodName(),
+                durationNanos, thresholdNanos));
     }
 }
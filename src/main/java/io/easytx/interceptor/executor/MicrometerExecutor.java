@@ -19,34 +19,54 @@ public class MicrometerExecutor extends Executor {
         this.micrometerId = env.getClassName() + "." + env.getMethodName();
     }
 
-    public Object executeWithAllLogs() {
+    public Object executeWithAllLogs(long slowThresholdNanos) {
         long start = System.nanoTime();
-        Object result = executeWithWrapLogs();
+        LOGGER.start(env);
+        Object result = execute();
+        LOGGER.finish(env);
         long durationNs = System.nanoTime() - start;
         metrics.recordTransactionTime(micrometerId, durationNs);
-        LOGGER.took(durationNs);
+        LOGGER.took(env, durationNs);
+        slow(durationNs, slowThresholdNanos);
         return result;
     }
 
-    public Object executeWithWrapLogs() {
+    public Object executeWithWrapLogs(long slowThresholdNanos) {
         long start = System.nanoTime();
         LOGGER.start(env);
         Object result = execute();
         LOGGER.finish(env);
         long durationNs = System.nanoTime() - start;
         metrics.recordTransactionTime(micrometerId, durationNs);
+        slow(durationNs, slowThresholdNanos);
         return result;
     }
 
-    public Object executeWithTimeLogs() {
+    public Object executeWithTimeLogs(long slowThresholdNanos) {
         long start = System.nanoTime();
         Object result = execute();
         long durationNs = System.nanoTime() - start;
         metrics.recordTransactionTime(micrometerId, durationNs);
-        LOGGER.took(durationNs);
+        LOGGER.took(env, durationNs);
+        slow(durationNs, slowThresholdNanos);
         return result;
     }
 
+    public Object executeWithSlowLogs(long thresholdNanos) {
+        long start = System.nanoTime();
+        Object result = execute();
+        long durationNs = System.nanoTime() - start;
+        metrics.recordTransactionTime(micrometerId, durationNs);
+        slow(durationNs, thresholdNanos);
+        return result;
+    }
+
+    private void slow(long durationNs, long thresholdNanos) {
+        if (durationNs > thresholdNanos) {
+            LOGGER.slow(env, durationNs, thresholdNanos);
+        }
+    }
+
     public Object execute() {
         try {
             return pjp.proceed();
@@ -0,0 +1,123 @@
+package io.easytx.interceptor.logging;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Drains {@link TxEvent}s from a ring buffer on a daemon thread and writes them through SLF4J.
+ * Events published while the ring is full are dropped and reported as a count.
+ */
+public final class AsyncTxEventWriter {
+
+    public static final String BUFFER_SIZE_PROPERTY = "easytx.logging.buffer-size";
+
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncTxEventWriter.class);
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private static final String STARTED = "{} -> {}: transaction started";
+    private static final String FINISHED = "{} -> {}: transaction finished";
+    private static final String TOOK = "{} -> {}: transaction took {} ms";
+    private static final String SLOW = "{} -> {}: slow transaction took {} ms (threshold {} ms)";
+    private static final String DROPPED = "{} transaction log events dropped, buffer full";
+
+    private static final AsyncTxEventWriter INSTANCE =
+            new AsyncTxEventWriter(Integer.getInteger(BUFFER_SIZE_PROPERTY, DEFAULT_BUFFER_SIZE));
+
+    private final TxEventRing ring;
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+
+    private AsyncTxEventWriter(int bufferSize) {
+        this(bufferSize, true);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "easytx-log-flush"));
+    }
+
+    // Without a writer thread, events are only written by shutdown()
+    AsyncTxEventWriter(int bufferSize, boolean startWriter) {
+        this.ring = new TxEventRing(bufferSize);
+        this.writer = startWriter ? new Thread(this::run, "easytx-log-writer") : null;
+        if (writer != null) {
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
+
+    public static AsyncTxEventWriter getInstance() {
+        return INSTANCE;
+    }
+
+    public void publish(TxEvent event) {
+        if (!ring.offer(event)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /** Stops the writer thread and writes the events still buffered. */
+    void shutdown() {
+        if (writer != null) {
+            writer.interrupt();
+            try {
+                writer.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        drain();
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            if (drain() == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    private synchronized int drain() {
+        int written = 0;
+        TxEvent event;
+        while ((event = ring.poll()) != null) {
+            write(event);
+            written++;
+        }
+        long lost = dropped.getAndSet(0);
+        if (lost > 0) {
+            LOG.warn(DROPPED, lost);
+        }
+        return written;
+    }
+
+    private void write(TxEvent event) {
+        Logger logger = event.getLogger();
+        switch (event.getKind()) {
+            case STARTED:
+                logger.info(STARTED, event.getClassName(), event.getMethodName());
+                break;
+            case FINISHED:
+                logger.info(FINISHED, event.getClassName(), event.getMethodName());
+                break;
+            case TOOK:
+                logger.info(TOOK, event.getClassName(), event.getMethodName(),
+                        toMillis(event.getDurationNanos()));
+                break;
+            case SLOW:
+                logger.warn(SLOW, event.getClassName(), event.getMethodName(),
+                        toMillis(event.getDurationNanos()), toMillis(event.getThresholdNanos()));
+                break;
+            default:
+                break;
+        }
+    }
+
+    private long toMillis(long nanos) {
+        return nanos / 1_000_000;
+    }
+}
@@ -0,0 +1,61 @@
+package io.easytx.interceptor.logging;
+
+import org.slf4j.Logger;
+
+/**
+ * Structured transaction log event. It only carries references and primitives, the message is
+ * rendered by {@link AsyncTxEventWriter} on its own thread.
+ */
+public final class TxEvent {
+
+    public enum Kind {
+        STARTED, FINISHED, TOOK, SLOW
+    }
+
+    private final Logger logger;
+    private final Kind kind;
+    private final String className;
+    private final String methodName;
+    private final long durationNanos;
+    private final long thresholdNanos;
+    private final long timestampMillis;
+
+    public TxEvent(Logger logger, Kind kind, String className, String methodName,
+            long durationNanos, long thresholdNanos) {
+        this.logger = logger;
+        this.kind = kind;
+        this.className = className;
+        this.methodName = methodName;
+        this.durationNanos = durationNanos;
+        this.thresholdNanos = thresholdNanos;
+        this.timestampMillis = System.currentTimeMillis();
+    }
+
+    public Logger getLogger() {
+        return logger;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public long getThresholdNanos() {
+        return thresholdNanos;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+}
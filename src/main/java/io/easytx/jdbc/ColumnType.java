@@ -0,0 +1,19 @@
+package io.easytx.jdbc;
+
+/**
+ * Storage of a column read by {@link ColumnarExtractor}.
+ */
+public enum ColumnType {
+    /** {@code ResultSet.getInt}, stored in an {@code int[]}. */
+    INT,
+    /** {@code ResultSet.getLong}, stored in a {@code long[]}. */
+    LONG,
+    /** {@code ResultSet.getDouble}, stored in a {@code double[]}. */
+    DOUBLE,
+    /**
+     * {@code ResultSet.getTimestamp} as epoch milliseconds, stored in a {@code long[]}. Drivers
+     * still create a {@code Timestamp} per value; select an epoch number as {@link #LONG} to
+     * avoid it.
+     */
+    EPOCH_MILLIS
+}
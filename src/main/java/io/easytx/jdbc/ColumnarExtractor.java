@@ -0,0 +1,115 @@
+package io.easytx.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.BitSet;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+/**
+ * Reads a result with a fixed schema into growable primitive arrays, one per column, without
+ * creating objects per row. Column {@code i} of the schema is result column {@code i + 1}.
+ */
+public final class ColumnarExtractor implements ResultSetExtractor<Columns> {
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private final ColumnType[] types;
+    private final int initialCapacity;
+
+    public ColumnarExtractor(ColumnType... types) {
+        this(DEFAULT_CAPACITY, types);
+    }
+
+    /** @param initialCapacity expected row count, arrays grow by half when it is exceeded */
+    public ColumnarExtractor(int initialCapacity, ColumnType... types) {
+        if (types.length == 0) {
+            throw new IllegalArgumentException("At least one column is required");
+        }
+        this.types = types.clone();
+        this.initialCapacity = Math.max(initialCapacity, 16);
+    }
+
+    @Override
+    public Columns extractData(ResultSet rs) throws SQLException {
+        if (rs.getMetaData().getColumnCount() < types.length) {
+            throw new InvalidDataAccessApiUsageException("Query returns "
+                    + rs.getMetaData().getColumnCount() + " columns, " + types.length
+                    + " expected");
+        }
+        Object[] values = new Object[types.length];
+        BitSet[] nulls = new BitSet[types.length];
+        int capacity = initialCapacity;
+        for (int c = 0; c < types.length; c++) {
+            values[c] = allocate(types[c], capacity);
+        }
+        int row = 0;
+        while (rs.next()) {
+            if (row == capacity) {
+                capacity = capacity + (capacity >> 1);
+                for (int c = 0; c < types.length; c++) {
+                    values[c] = resize(values[c], capacity);
+                }
+            }
+            for (int c = 0; c < types.length; c++) {
+                if (read(rs, c, values[c], row)) {
+                    if (nulls[c] == null) {
+                        nulls[c] = new BitSet();
+                    }
+                    nulls[c].set(row);
+                }
+            }
+            row++;
+        }
+        if (row != capacity) {
+            for (int c = 0; c < types.length; c++) {
+                values[c] = resize(values[c], row);
+            }
+        }
+        return new Columns(types, values, nulls, row);
+    }
+
+    // Stores column c of the current row, returns true when it was NULL
+    private boolean read(ResultSet rs, int c, Object array, int row) throws SQLException {
+        int index = c + 1;
+        switch (types[c]) {
+            case INT:
+                ((int[]) array)[row] = rs.getInt(index);
+                break;
+            case LONG:
+                ((long[]) array)[row] = rs.getLong(index);
+                break;
+            case DOUBLE:
+                ((double[]) array)[row] = rs.getDouble(index);
+                break;
+            default:
+                Timestamp timestamp = rs.getTimestamp(index);
+                ((long[]) array)[row] = timestamp != null ? timestamp.getTime() : 0L;
+                return timestamp == null;
+        }
+        return rs.wasNull();
+    }
+
+    private static Object allocate(ColumnType type, int capacity) {
+        switch (type) {
+            case INT:
+                return new int[capacity];
+            case DOUBLE:
+                return new double[capacity];
+            default:
+                return new long[capacity];
+        }
+    }
+
+    private static Object resize(Object array, int length) {
+        if (array instanceof int[]) {
+            return Arrays.copyOf((int[]) array, length);
+        }
+        if (array instanceof double[]) {
+            return Arrays.copyOf((double[]) array, length);
+        }
+        return Arrays.copyOf((long[]) array, length);
+    }
+}
@@ -0,0 +1,63 @@
+package io.easytx.jdbc;
+
+import java.util.BitSet;
+
+/**
+ * Query result stored column by column in primitive arrays, as read by
+ * {@link ColumnarExtractor}. Arrays are exactly {@link #size()} long and returned without
+ * copying; SQL {@code NULL} is stored as {@code 0} and reported by {@link #isNull(int, int)}.
+ */
+public final class Columns {
+
+    private final ColumnType[] types;
+    private final Object[] values;
+    private final BitSet[] nulls;
+    private final int size;
+
+    Columns(ColumnType[] types, Object[] values, BitSet[] nulls, int size) {
+        this.types = types;
+        this.values = values;
+        this.nulls = nulls;
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int columnCount() {
+        return types.length;
+    }
+
+    public ColumnType type(int column) {
+        return types[column];
+    }
+
+    public int[] ints(int column) {
+        return (int[]) values(column, ColumnType.INT);
+    }
+
+    /** Values of a {@link ColumnType#LONG} or {@link ColumnType#EPOCH_MILLIS} column. */
+    public long[] longs(int column) {
+        if (types[column] == ColumnType.EPOCH_MILLIS) {
+            return (long[]) values[column];
+        }
+        return (long[]) values(column, ColumnType.LONG);
+    }
+
+    public double[] doubles(int column) {
+        return (double[]) values(column, ColumnType.DOUBLE);
+    }
+
+    public boolean isNull(int row, int column) {
+        return nulls[column] != null && nulls[column].get(row);
+    }
+
+    private Object values(int column, ColumnType expected) {
+        if (types[column] != expected) {
+            throw new IllegalArgumentException(
+                    "Column " + column + " is " + types[column] + ", not " + expected);
+        }
+        return values[column];
+    }
+}
@@ -0,0 +1,324 @@
+package io.easytx.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import javax.sql.DataSource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.ArgumentTypePreparedStatementSetter;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.CallableStatementCallback;
+import org.springframework.jdbc.core.CallableStatementCreator;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.SqlParameter;
+import org.springframework.jdbc.core.StatementCallback;
+import org.springframework.jdbc.support.KeyHolder;
+import io.easytx.context.Deadline;
+import io.easytx.context.TxContextHolder;
+
+/**
+ * {@link JdbcTemplate} with two opt-in, transaction-local optimizations:
+ * <ul>
+ * <li>Query memoization: inside a read-only transaction, repeated queries with the same SQL and
+ * arguments are answered from the first materialized result. Any write clears the memo.</li>
+ * <li>Write-behind: inside a write transaction, consecutive
+ * {@link #queueUpdate(String, Object...)} calls with the same SQL are queued and sent as one JDBC
+ * batch when different SQL, any other statement through this template or the commit comes.
+ * {@code update} methods always run immediately.</li>
+ * </ul>
+ * The queue is only flushed by this template and by the transaction: statements issued on the
+ * same connection through another template or plain JDBC do not see queued updates, so call
+ * {@code TransactionStatus.flush()} before using them.
+ */
+public class EasyTxJdbcTemplate extends JdbcTemplate {
+
+    private boolean queryMemoization;
+    private boolean writeBehind;
+
+    public EasyTxJdbcTemplate(DataSource dataSource) {
+        super(dataSource);
+    }
+
+    public void setQueryMemoization(boolean queryMemoization) {
+        this.queryMemoization = queryMemoization;
+    }
+
+    public boolean isQueryMemoization() {
+        return queryMemoization;
+    }
+
+    /**
+     * Lets {@link #queueUpdate(String, Object...)} defer updates until this template or the
+     * transaction flushes them, see the class comment for the limits.
+     */
+    public void setWriteBehind(boolean writeBehind) {
+        this.writeBehind = writeBehind;
+    }
+
+    public boolean isWriteBehind() {
+        return writeBehind;
+    }
+
+    /**
+     * Like {@link #update(String, Object...)}, returning a handle on the update count. In
+     * write-behind mode the count is available once the batch holding the update was sent, which
+     * {@link PendingUpdate#getUpdateCount()} forces.
+     */
+    public PendingUpdate queueUpdate(String sql, Object... args) {
+        PreparedStatementSetter pss = newArgPreparedStatementSetter(args);
+        if (!writeBehindActive()) {
+            return PendingUpdate.completed(update(sql, pss));
+        }
+        QueryMemo.invalidate();
+        return WriteBehindQueue.current(this).add(sql, pss);
+    }
+
+    @Override
+    public int update(String sql, PreparedStatementSetter pss) throws DataAccessException {
+        beforeWrite();
+        return super.update(sql, pss);
+    }
+
+    @Override
+    public <T> T query(String sql, ResultSetExtractor<T> rse) throws DataAccessException {
+        WriteBehindQueue.flush(getDataSource());
+        if (!memoActive()) {
+            return super.query(sql, rse);
+        }
+        return memoized(QueryMemo.key(getDataSource(), sql, null), rse,
+                extractor -> super.query(sql, extractor));
+    }
+
+    @Override
+    public <T> T query(String sql, PreparedStatementSetter pss, ResultSetExtractor<T> rse)
+            throws DataAccessException {
+        WriteBehindQueue.flush(getDataSource());
+        if (!memoActive() || !(pss == null || pss instanceof ArgsSetter)) {
+            return super.query(sql, pss, rse);
+        }
+        Object[] args = pss != null ? ((ArgsSetter) pss).args() : null;
+        return memoized(QueryMemo.key(getDataSource(), sql, args), rse,
+                extractor -> super.query(sql, pss, extractor));
+    }
+
+    @Override
+    public <T> T query(PreparedStatementCreator psc, PreparedStatementSetter pss,
+            ResultSetExtractor<T> rse) throws DataAccessException {
+        WriteBehindQueue.flush(getDataSource());
+        return super.query(psc, pss, rse);
+    }
+
+    @Override
+    public <T> Stream<T> queryForStream(String sql, RowMapper<T> rowMapper)
+            throws DataAccessException {
+        WriteBehindQueue.flush(getDataSource());
+        return super.queryForStream(sql, rowMapper);
+    }
+
+    @Override
+    public <T> Stream<T> queryForStream(PreparedStatementCreator psc, PreparedStatementSetter pss,
+            RowMapper<T> rowMapper) throws DataAccessException {
+        WriteBehindQueue.flush(getDataSource());
+        return super.queryForStream(psc, pss, rowMapper);
+    }
+
+    /** Also bounds the query timeout by the deadline of the current easyTx context. */
+    @Override
+    protected void applyStatementSettings(Statement stmt) throws SQLException {
+        super.applyStatementSettings(stmt);
+        Deadline deadline = TxContextHolder.current().getDeadline();
+        if (deadline != null) {
+            if (deadline.isExpired()) {
+                throw new SQLTimeoutException("easyTx deadline exceeded");
+            }
+            int seconds = deadline.remainingSeconds();
+            if (stmt.getQueryTimeout() == 0 || seconds < stmt.getQueryTimeout()) {
+                stmt.setQueryTimeout(seconds);
+            }
+        }
+    }
+
+    @Override
+    protected PreparedStatementSetter newArgPreparedStatementSetter(Object[] args) {
+        return new ArgsPreparedStatementSetter(args);
+    }
+
+    @Override
+    protected PreparedStatementSetter newArgTypePreparedStatementSetter(Object[] args,
+            int[] argTypes) {
+        return new ArgsTypePreparedStatementSetter(args, argTypes);
+    }
+
+    @Override
+    public void execute(String sql) throws DataAccessException {
+        beforeWrite();
+        super.execute(sql);
+    }
+
+    @Override
+    public <T> T execute(ConnectionCallback<T> action) throws DataAccessException {
+        beforeWrite();
+        return super.execute(action);
+    }
+
+    @Override
+    public <T> T execute(StatementCallback<T> action) throws DataAccessException {
+        beforeWrite();
+        return super.execute(action);
+    }
+
+    @Override
+    public <T> T execute(PreparedStatementCreator psc, PreparedStatementCallback<T> action)
+            throws DataAccessException {
+        beforeWrite();
+        return super.execute(psc, action);
+    }
+
+    @Override
+    public int update(String sql) throws DataAccessException {
+        beforeWrite();
+        return super.update(sql);
+    }
+
+    @Override
+    protected int update(PreparedStatementCreator psc, PreparedStatementSetter pss)
+            throws DataAccessException {
+        beforeWrite();
+        return super.update(psc, pss);
+    }
+
+    @Override
+    public int update(PreparedStatementCreator psc, KeyHolder generatedKeyHolder)
+            throws DataAccessException {
+        beforeWrite();
+        return super.update(psc, generatedKeyHolder);
+    }
+
+    @Override
+    public int[] batchUpdate(String... sql) throws DataAccessException {
+        beforeWrite();
+        return super.batchUpdate(sql);
+    }
+
+    @Override
+    public int[] batchUpdate(String sql, BatchPreparedStatementSetter pss)
+            throws DataAccessException {
+        beforeWrite();
+        return super.batchUpdate(sql, pss);
+    }
+
+    @Override
+    public int[] batchUpdate(PreparedStatementCreator psc, BatchPreparedStatementSetter pss,
+            KeyHolder generatedKeyHolder) throws DataAccessException {
+        beforeWrite();
+        return super.batchUpdate(psc, pss, generatedKeyHolder);
+    }
+
+    @Override
+    public <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize,
+            ParameterizedPreparedStatementSetter<T> pss) throws DataAccessException {
+        beforeWrite();
+        return super.batchUpdate(sql, batchArgs, batchSize, pss);
+    }
+
+    @Override
+    public <T> T execute(CallableStatementCreator csc, CallableStatementCallback<T> action)
+            throws DataAccessException {
+        beforeWrite();
+        return super.execute(csc, action);
+    }
+
+    @Override
+    public Map<String, Object> call(CallableStatementCreator csc,
+            List<SqlParameter> declaredParameters) throws DataAccessException {
+        beforeWrite();
+        return super.call(csc, declaredParameters);
+    }
+
+    int[] sendBatch(String sql, BatchPreparedStatementSetter pss) {
+        return super.batchUpdate(sql, pss);
+    }
+
+    // Sends queued updates first to keep statement order, then drops memoized results
+    private void beforeWrite() {
+        WriteBehindQueue.flush(getDataSource());
+        QueryMemo.invalidate();
+    }
+
+    private boolean writeBehindActive() {
+        return writeBehind && WriteBehindQueue.isAvailable();
+    }
+
+    private boolean memoActive() {
+        return queryMemoization && QueryMemo.isAvailable();
+    }
+
+    private <T> T memoized(QueryMemo.Key key, ResultSetExtractor<T> rse,
+            Query<T> query) {
+        QueryMemo memo = QueryMemo.current();
+        ResultSet cached;
+        try {
+            cached = memo.get(key);
+            if (cached != null) {
+                return rse.extractData(cached);
+            }
+        } catch (SQLException e) {
+            throw translateException("QueryMemo", null, e);
+        }
+        return query.run(rs -> rse.extractData(memo.put(key, rs)));
+    }
+
+    @FunctionalInterface
+    private interface Query<T> {
+        T run(ResultSetExtractor<T> extractor);
+    }
+
+    private interface ArgsSetter {
+        Object[] args();
+    }
+
+    private static final class ArgsPreparedStatementSetter
+            extends ArgumentPreparedStatementSetter implements ArgsSetter {
+
+        private final Object[] args;
+
+        private ArgsPreparedStatementSetter(Object[] args) {
+            super(args);
+            this.args = args;
+        }
+
+        @Override
+        public Object[] args() {
+            return args;
+        }
+    }
+
+    private static final class ArgsTypePreparedStatementSetter
+            extends ArgumentTypePreparedStatementSetter implements ArgsSetter {
+
+        private final Object[] args;
+
+        private ArgsTypePreparedStatementSetter(Object[] args, int[] argTypes) {
+            super(args, argTypes);
+            this.args = args;
+        }
+
+        @Override
+        public Object[] args() {
+            return args;
+        }
+    }
+}
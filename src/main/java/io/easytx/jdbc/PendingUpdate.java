@@ -0,0 +1,50 @@
+package io.easytx.jdbc;
+
+import org.springframework.dao.DataAccessException;
+
+/**
+ * Update queued by a write-behind {@link EasyTxJdbcTemplate}. Its update count is known once the
+ * batch it belongs to has been sent.
+ */
+public final class PendingUpdate {
+
+    private final WriteBehindQueue queue;
+    private boolean done;
+    private int updateCount;
+    private DataAccessException error;
+
+    PendingUpdate(WriteBehindQueue queue) {
+        this.queue = queue;
+    }
+
+    static PendingUpdate completed(int updateCount) {
+        PendingUpdate update = new PendingUpdate(null);
+        update.complete(updateCount);
+        return update;
+    }
+
+    /** Sends the pending batch if needed and returns this statement's update count. */
+    public int getUpdateCount() {
+        if (!done && queue != null) {
+            queue.flush();
+        }
+        if (error != null) {
+            throw error;
+        }
+        return updateCount;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    void complete(int updateCount) {
+        this.updateCount = updateCount;
+        this.done = true;
+    }
+
+    void fail(DataAccessException error) {
+        this.error = error;
+        this.done = true;
+    }
+}
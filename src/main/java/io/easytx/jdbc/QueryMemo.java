@@ -0,0 +1,131 @@
+package io.easytx.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import javax.sql.DataSource;
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetFactory;
+import javax.sql.rowset.RowSetProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Transaction-local memo of materialized query results, bound through
+ * {@link TransactionSynchronizationManager} and dropped when the transaction completes.
+ */
+final class QueryMemo {
+
+    private static final Object RESOURCE_KEY = new Object();
+    private static final RowSetFactory ROW_SETS = createRowSetFactory();
+
+    private final Map<Key, CachedRowSet> results = new HashMap<>();
+
+    private QueryMemo() {}
+
+    static boolean isAvailable() {
+        return TransactionSynchronizationManager.isSynchronizationActive()
+                && TransactionSynchronizationManager.isActualTransactionActive()
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    static QueryMemo current() {
+        QueryMemo memo = (QueryMemo) TransactionSynchronizationManager.getResource(RESOURCE_KEY);
+        if (memo == null) {
+            memo = new QueryMemo();
+            TransactionSynchronizationManager.bindResource(RESOURCE_KEY, memo);
+            TransactionSynchronizationManager.registerSynchronization(new MemoSynchronization(memo));
+        }
+        return memo;
+    }
+
+    static void invalidate() {
+        QueryMemo memo = (QueryMemo) TransactionSynchronizationManager.getResource(RESOURCE_KEY);
+        if (memo != null) {
+            memo.results.clear();
+        }
+    }
+
+    ResultSet get(Key key) throws SQLException {
+        CachedRowSet rows = results.get(key);
+        return rows != null ? rows.createShared() : null;
+    }
+
+    ResultSet put(Key key, ResultSet resultSet) throws SQLException {
+        CachedRowSet rows = ROW_SETS.createCachedRowSet();
+        rows.populate(resultSet);
+        results.put(key, rows);
+        return rows.createShared();
+    }
+
+    static Key key(DataSource dataSource, String sql, Object[] args) {
+        return new Key(dataSource, sql, args != null ? Arrays.asList(args.clone()) : List.of());
+    }
+
+    private static RowSetFactory createRowSetFactory() {
+        try {
+            return RowSetProvider.newFactory();
+        } catch (SQLException e) {
+            throw new IllegalStateException("No RowSetFactory available", e);
+        }
+    }
+
+    static final class Key {
+
+        private final DataSource dataSource;
+        private final String sql;
+        private final List<Object> args;
+
+        private Key(DataSource dataSource, String sql, List<Object> args) {
+            this.dataSource = dataSource;
+            this.sql = sql;
+            this.args = args;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return dataSource == key.dataSource && sql.equals(key.sql) && args.equals(key.args);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(dataSource), sql, args);
+        }
+    }
+
+    private static final class MemoSynchronization implements TransactionSynchronization {
+
+        private final QueryMemo memo;
+
+        private MemoSynchronization(QueryMemo memo) {
+            this.memo = memo;
+        }
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResourceIfPossible(RESOURCE_KEY);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(RESOURCE_KEY, memo);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(RESOURCE_KEY);
+            memo.results.clear();
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package io.easytx.jdbc;
+
+import java.sql.BatchUpdateException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Consecutive updates with the same SQL, queued in the current write transaction and sent as one
+ * JDBC batch. Bound per DataSource through {@link TransactionSynchronizationManager} and flushed
+ * before commit.
+ */
+final class WriteBehindQueue {
+
+    private final EasyTxJdbcTemplate template;
+    private String sql;
+    private final List<PreparedStatementSetter> setters = new ArrayList<>();
+    private final List<PendingUpdate> pending = new ArrayList<>();
+
+    private WriteBehindQueue(EasyTxJdbcTemplate template) {
+        this.template = template;
+    }
+
+    static boolean isAvailable() {
+        return TransactionSynchronizationManager.isSynchronizationActive()
+                && TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    static WriteBehindQueue current(EasyTxJdbcTemplate template) {
+        Key key = new Key(template.getDataSource());
+        WriteBehindQueue queue =
+                (WriteBehindQueue) TransactionSynchronizationManager.getResource(key);
+        if (queue == null) {
+            queue = new WriteBehindQueue(template);
+            TransactionSynchronizationManager.bindResource(key, queue);
+            TransactionSynchronizationManager
+                    .registerSynchronization(new QueueSynchronization(key, queue));
+        }
+        return queue;
+    }
+
+    /** Flushes the queue bound for {@code dataSource}, if any. */
+    static void flush(DataSource dataSource) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            Key key = new Key(dataSource);
+            WriteBehindQueue queue =
+                    (WriteBehindQueue) TransactionSynchronizationManager.getResource(key);
+            if (queue != null) {
+                queue.flush();
+            }
+        }
+    }
+
+    PendingUpdate add(String sql, PreparedStatementSetter setter) {
+        if (this.sql != null && !this.sql.equals(sql)) {
+            flush();
+        }
+        this.sql = sql;
+        setters.add(setter);
+        PendingUpdate update = new PendingUpdate(this);
+        pending.add(update);
+        return update;
+    }
+
+    void flush() {
+        if (setters.isEmpty()) {
+            return;
+        }
+        String batchSql = sql;
+        List<PreparedStatementSetter> batch = new ArrayList<>(setters);
+        List<PendingUpdate> updates = new ArrayList<>(pending);
+        clear();
+        int[] counts;
+        try {
+            counts = template.sendBatch(batchSql, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    batch.get(i).setValues(ps);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return batch.size();
+                }
+            });
+        } catch (DataAccessException e) {
+            int failed = firstFailure(e, updates.size());
+            for (int i = 0; i < updates.size(); i++) {
+                if (i < failed) {
+                    updates.get(i).complete(Statement.SUCCESS_NO_INFO);
+                } else {
+                    updates.get(i).fail(e);
+                }
+            }
+            throw e;
+        }
+        for (int i = 0; i < updates.size(); i++) {
+            updates.get(i).complete(i < counts.length ? counts[i] : Statement.SUCCESS_NO_INFO);
+        }
+    }
+
+    private void clear() {
+        sql = null;
+        setters.clear();
+        pending.clear();
+    }
+
+    private void discard() {
+        InvalidDataAccessApiUsageException error = new InvalidDataAccessApiUsageException(
+                "Transaction completed before the queued update was sent");
+        pending.forEach(update -> update.fail(error));
+        clear();
+    }
+
+    // Index of the first failed statement, as far as the driver reports it
+    private static int firstFailure(DataAccessException e, int size) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof BatchUpdateException) {
+                int[] counts = ((BatchUpdateException) cause).getUpdateCounts();
+                if (counts == null) {
+                    return 0;
+                }
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] == Statement.EXECUTE_FAILED) {
+                        return i;
+                    }
+                }
+                return Math.min(counts.length, size);
+            }
+        }
+        return 0;
+    }
+
+    private static final class Key {
+
+        private final DataSource dataSource;
+
+        private Key(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key && ((Key) other).dataSource == dataSource;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(dataSource);
+        }
+    }
+
+    private static final class QueueSynchronization implements TransactionSynchronization {
+
+        private final Key key;
+        private final WriteBehindQueue queue;
+
+        private QueueSynchronization(Key key, WriteBehindQueue queue) {
+            this.key = key;
+            this.queue = queue;
+        }
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResourceIfPossible(key);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(key, queue);
+        }
+
+        @Override
+        public void flush() {
+            queue.flush();
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            queue.flush();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(key);
+            queue.discard();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package io.easytx.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import io.easytx.annotation.TransactionConfiguration;
+
+/**
+ * Flight Recorder event emitted for every transaction run by the {@code TransactionService}. It is
+ * enabled by default and can be switched off or given a threshold through the usual JFR settings
+ * for {@value #NAME}.
+ */
+@Name(TransactionEvent.NAME)
+@Label("easyTx Transaction")
+@Category({"easyTx"})
+@Description("Transaction executed through easyTx annotations or TransactionService")
+@StackTrace(false)
+public class TransactionEvent extends Event {
+
+    public static final String NAME = "io.easytx.Transaction";
+
+    public static final String COMMITTED = "COMMITTED";
+    public static final String ROLLED_BACK = "ROLLED_BACK";
+    public static final String JOINED = "JOINED";
+    public static final String FAILED = "FAILED";
+    public static final String NON_TRANSACTIONAL = "NON_TRANSACTIONAL";
+
+    @Label("Method")
+    String method;
+
+    @Label("Route")
+    @Description("Routing or target DataSource key")
+    String route;
+
+    @Label("Propagation")
+    String propagation;
+
+    @Label("Isolation")
+    String isolation;
+
+    @Label("Read Only")
+    boolean readOnly;
+
+    @Label("Outcome")
+    @Description("COMMITTED, ROLLED_BACK, JOINED/FAILED when participating in an outer "
+            + "transaction, NON_TRANSACTIONAL/FAILED when run without a transaction")
+    String outcome;
+
+    @Label("Retries")
+    int retries;
+
+    private transient boolean participating;
+    private transient boolean nonTransactional;
+
+    public void participating(boolean participating) {
+        this.participating = participating;
+    }
+
+    /** The call ran without an actual transaction, such as SUPPORTS or autocommit reads. */
+    public void nonTransactional() {
+        this.nonTransactional = true;
+    }
+
+    public void succeeded(String method, String route, TransactionConfiguration configuration,
+            boolean readOnly) {
+        complete(method, route, configuration, readOnly,
+                nonTransactional ? NON_TRANSACTIONAL : participating ? JOINED : COMMITTED);
+    }
+
+    public void failed(String method, String route, TransactionConfiguration configuration,
+            boolean readOnly) {
+        complete(method, route, configuration, readOnly,
+                nonTransactional || participating ? FAILED : ROLLED_BACK);
+    }
+
+    private void complete(String method, String route, TransactionConfiguration configuration,
+            boolean readOnly, String outcome) {
+        end();
+        if (shouldCommit()) {
+            this.method = method;
+            this.route = route;
+            this.propagation = configuration.getPropagation().name();
+            this.isolation = configuration.getIsolation().name();
+            this.readOnly = readOnly;
+            this.outcome = outcome;
+            this.retries = 0;
+            commit();
+        }
+    }
+}
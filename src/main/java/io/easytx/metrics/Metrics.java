@@ -2,6 +2,7 @@ package io.easytx.metrics;
 
 import java.util.concurrent.TimeUnit;
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 
@@ -25,4 +26,49 @@ public class Metrics {
             Counter.builder("txlens.errors").tag("type", type).register(registry).increment();
         }
     }
+
+    public void incrementCoalesced(String method) {
+        if (registry != null) {
+            Counter.builder("txlens.singleflight.coalesced").tag("method", method)
+                    .register(registry).increment();
+        }
+    }
+
+    public void incrementCoalesceTimeouts(String method) {
+        if (registry != null) {
+            Counter.builder("txlens.singleflight.timeouts").tag("method", method)
+                    .register(registry).increment();
+        }
+    }
+
+    public void recordBulkLoad(String table, long rows, long nanos) {
+        if (registry != null) {
+            Counter.builder("txlens.bulk.rows").tag("table", table).register(registry)
+                    .increment(rows);
+            DistributionSummary.builder("txlens.bulk.throughput").baseUnit("rows/s")
+                    .tag("table", table).register(registry)
+                    .record(rows * (double) TimeUnit.SECONDS.toNanos(1) / Math.max(1, nanos));
+        }
+    }
+
+    public void incrementHedges(String method) {
+        if (registry != null) {
+            Counter.builder("txlens.hedge.fired").tag("method", method).register(registry)
+                    .increment();
+        }
+    }
+
+    public void incrementHedgeWins(String method) {
+        if (registry != null) {
+            Counter.builder("txlens.hedge.won").tag("method", method).register(registry)
+                    .increment();
+        }
+    }
+
+    public void recordPriorityWait(String route, String priority, long nanos) {
+        if (registry != null) {
+            Timer.builder("txlens.priority.wait").tag("route", route).tag("priority", priority)
+                    .register(registry).record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
 }
@@ -0,0 +1,64 @@
+package io.easytx.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory transaction statistics, always available whether or not a Micrometer backend is
+ * configured.
+ */
+public class TxStatistics {
+
+    private final Map<String, Map<String, TxStats>> stats = new ConcurrentHashMap<>();
+
+    public void record(String method, String route, long nanos, boolean error) {
+        statsFor(method, route).record(nanos, error);
+    }
+
+    public TxStatsSnapshot get(String method, String route) {
+        Map<String, TxStats> byRoute = stats.get(method);
+        TxStats methodStats = byRoute != null ? byRoute.get(route) : null;
+        return methodStats != null ? methodStats.snapshot() : null;
+    }
+
+    public List<TxStatsSnapshot> snapshot() {
+        List<TxStatsSnapshot> snapshots = new ArrayList<>();
+        stats.values().forEach(byRoute -> byRoute.values()
+                .forEach(methodStats -> snapshots.add(methodStats.snapshot())));
+        return snapshots;
+    }
+
+    public List<TxStatsSnapshot> topSlowest(int limit) {
+        return top(Comparator.comparingLong(TxStatsSnapshot::getP99Micros), limit);
+    }
+
+    public List<TxStatsSnapshot> topMostFrequent(int limit) {
+        return top(Comparator.comparingLong(TxStatsSnapshot::getCount), limit);
+    }
+
+    public void reset() {
+        stats.clear();
+    }
+
+    private List<TxStatsSnapshot> top(Comparator<TxStatsSnapshot> comparator, int limit) {
+        return snapshot().stream().sorted(comparator.reversed()).limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    // get() first: computeIfAbsent would allocate a capturing lambda on every call
+    private TxStats statsFor(String method, String route) {
+        Map<String, TxStats> byRoute = stats.get(method);
+        if (byRoute == null) {
+            byRoute = stats.computeIfAbsent(method, key -> new ConcurrentHashMap<>());
+        }
+        TxStats methodStats = byRoute.get(route);
+        if (methodStats == null) {
+            methodStats = byRoute.computeIfAbsent(route, key -> new TxStats(method, key));
+        }
+        return methodStats;
+    }
+}
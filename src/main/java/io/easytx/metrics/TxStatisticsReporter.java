@@ -0,0 +1,61 @@
+package io.easytx.metrics;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+/**
+ * Logs the slowest and most frequent transactions every {@code interval}. A zero or negative
+ * interval disables the periodic report, {@link #report()} can still be called directly.
+ */
+public class TxStatisticsReporter implements DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TxStatisticsReporter.class);
+
+    private final TxStatistics statistics;
+    private final int top;
+    private final ScheduledExecutorService scheduler;
+
+    public TxStatisticsReporter(TxStatistics statistics, Duration interval, int top) {
+        this.statistics = statistics;
+        this.top = top;
+        long millis = interval.toMillis();
+        if (millis <= 0) {
+            this.scheduler = null;
+            return;
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "easytx-statistics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::report, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isScheduled() {
+        return scheduler != null;
+    }
+
+    public void report() {
+        List<TxStatsSnapshot> slowest = statistics.topSlowest(top);
+        if (slowest.isEmpty()) {
+            return;
+        }
+        LOG.info("Top {} slowest transactions (p99):", top);
+        slowest.forEach(snapshot -> LOG.info("  {}", snapshot));
+        LOG.info("Top {} most frequent transactions:", top);
+        statistics.topMostFrequent(top).forEach(snapshot -> LOG.info("  {}", snapshot));
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package io.easytx.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latency histogram and counters of one method on one route. Recording is wait-free and does not
+ * allocate.
+ */
+public class TxStats {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.HOURS.toMicros(1);
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private final String method;
+    private final String route;
+    private final ConcurrentHistogram histogram =
+            new ConcurrentHistogram(1, HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    TxStats(String method, String route) {
+        this.method = method;
+        this.route = route;
+    }
+
+    void record(long nanos, boolean error) {
+        long micros = Math.max(1, Math.min(HIGHEST_TRACKABLE_MICROS, nanos / 1_000));
+        histogram.recordValue(micros);
+        count.increment();
+        if (error) {
+            errors.increment();
+        }
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getRoute() {
+        return route;
+    }
+
+    public TxStatsSnapshot snapshot() {
+        Histogram copy = histogram.copy();
+        return new TxStatsSnapshot(method, route, count.sum(), errors.sum(), copy);
+    }
+}
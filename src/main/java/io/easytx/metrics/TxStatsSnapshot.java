@@ -0,0 +1,78 @@
+package io.easytx.metrics;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Point-in-time view of a {@link TxStats}. Latencies are expressed in microseconds.
+ */
+public class TxStatsSnapshot {
+
+    private final String method;
+    private final String route;
+    private final long count;
+    private final long errors;
+    private final double mean;
+    private final long p50;
+    private final long p95;
+    private final long p99;
+    private final long max;
+
+    TxStatsSnapshot(String method, String route, long count, long errors, Histogram histogram) {
+        this.method = method;
+        this.route = route;
+        this.count = count;
+        this.errors = errors;
+        this.mean = histogram.getMean();
+        this.p50 = histogram.getValueAtPercentile(50);
+        this.p95 = histogram.getValueAtPercentile(95);
+        this.p99 = histogram.getValueAtPercentile(99);
+        this.max = histogram.getMaxValue();
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getRoute() {
+        return route;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public double getErrorRate() {
+        return count == 0 ? 0 : (double) errors / count;
+    }
+
+    public double getMeanMicros() {
+        return mean;
+    }
+
+    public long getP50Micros() {
+        return p50;
+    }
+
+    public long getP95Micros() {
+        return p95;
+    }
+
+    public long getP99Micros() {
+        return p99;
+    }
+
+    public long getMaxMicros() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s [%s] count=%d errors=%.2f%% mean=%.0fus p50=%dus p95=%dus "
+                + "p99=%dus max=%dus", method, route, count, getErrorRate() * 100, mean, p50, p95,
+                p99, max);
+    }
+}
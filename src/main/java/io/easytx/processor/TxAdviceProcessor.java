@@ -0,0 +1,312 @@
+package io.easytx.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.TypeParameterElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates a {@code <Class>_EasyTx} subclass for every class with {@code @TxRead}/{@code @TxWrite}
+ * methods. The overrides call {@code TransactionService} directly with a definition resolved at
+ * build time, so no AOP proxy is needed and self-invocations are transactional too. Every
+ * annotation attribute is carried over and handled by the same {@code TransactionService} paths as
+ * with the aspect.
+ * <p>
+ * Only runs when the compiler option {@code -Aeasytx.generateAdvice=true} is set.
+ */
+@SupportedAnnotationTypes({TxAdviceProcessor.TX_READ, TxAdviceProcessor.TX_WRITE})
+@SupportedOptions(TxAdviceProcessor.OPTION)
+public class TxAdviceProcessor extends AbstractProcessor {
+
+    static final String TX_READ = "io.easytx.annotation.TxRead";
+    static final String TX_WRITE = "io.easytx.annotation.TxWrite";
+    static final String OPTION = "easytx.generateAdvice";
+
+    private static final String SUFFIX = "_EasyTx";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (!Boolean.parseBoolean(processingEnv.getOptions().get(OPTION))) {
+            return false;
+        }
+        Map<TypeElement, List<ExecutableElement>> methodsByType = new LinkedHashMap<>();
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() == ElementKind.METHOD) {
+                    methodsByType
+                            .computeIfAbsent((TypeElement) element.getEnclosingElement(),
+                                    type -> new ArrayList<>())
+                            .add((ExecutableElement) element);
+                }
+            }
+        }
+        methodsByType.forEach(this::generate);
+        return false;
+    }
+
+    private void generate(TypeElement type, List<ExecutableElement> methods) {
+        if (!isAdvisable(type) || !methods.stream().allMatch(this::isAdvisable)) {
+            return;
+        }
+        String packageName = packageOf(type);
+        String simpleName = type.getSimpleName() + SUFFIX;
+        String qualifiedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("@javax.annotation.processing.Generated(\"")
+                .append(TxAdviceProcessor.class.getName()).append("\")\n");
+        source.append("public class ").append(simpleName).append(typeParameters(type))
+                .append(" extends ").append(type.asType())
+                .append(" implements io.easytx.weaving.TxAdvised {\n\n");
+        for (int i = 0; i < methods.size(); i++) {
+            appendDefinition(source, type, methods.get(i), i);
+        }
+        source.append("\n    private io.easytx.service.TransactionService transactionService;\n");
+        for (Element member : type.getEnclosedElements()) {
+            if (member.getKind() == ElementKind.CONSTRUCTOR
+                    && !member.getModifiers().contains(Modifier.PRIVATE)) {
+                appendConstructor(source, simpleName, (ExecutableElement) member);
+            }
+        }
+        source.append("\n    @org.springframework.beans.factory.annotation.Autowired\n")
+                .append("    public void setTransactionService(")
+                .append("io.easytx.service.TransactionService transactionService) {\n")
+                .append("        this.transactionService = transactionService;\n    }\n");
+        for (int i = 0; i < methods.size(); i++) {
+            appendMethod(source, methods.get(i), i);
+        }
+        source.append("}\n");
+        try (Writer writer =
+                processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter()) {
+            writer.write(source.toString());
+        } catch (IOException e) {
+            error(type, "Unable to generate " + qualifiedName + ": " + e.getMessage());
+        }
+    }
+
+    private void appendDefinition(StringBuilder source, TypeElement type, ExecutableElement method,
+            int index) {
+        AnnotationMirror annotation = txAnnotation(method);
+        boolean read = isAnnotatedWith(method, TX_READ);
+        source.append("    private static final io.easytx.annotation.TransactionConfiguration TX_")
+                .append(index).append(" = io.easytx.weaving.TxAdvice.configuration(")
+                .append("org.springframework.transaction.annotation.Propagation.")
+                .append(enumValue(annotation, "propagation")).append(", ")
+                .append("org.springframework.transaction.annotation.Isolation.")
+                .append(enumValue(annotation, "isolation")).append(", \"")
+                .append(type.getQualifiedName()).append('.').append(method.getSimpleName())
+                .append("\", ").append(value(annotation, "deadlineMillis")).append("L, ")
+                .append("io.easytx.annotation.Priority.").append(enumValue(annotation, "priority"))
+                .append(", io.easytx.annotation.StatementGuard.")
+                .append(read ? enumValue(annotation, "statementGuard") : "WARN").append(", ")
+                .append(read ? value(annotation, "hedgeDelayMillis") : -1).append("L);\n");
+        String logLevel = enumValue(annotation, "logLevel");
+        long slowThresholdMillis = (Long) value(annotation, "slowThresholdMillis");
+        source.append("    private static final io.easytx.annotation.LogPolicy LOG_").append(index)
+                .append(" = ");
+        if ("OFF".equals(logLevel) && slowThresholdMillis < 0) {
+            source.append("io.easytx.annotation.LogPolicy.OFF;\n");
+        } else {
+            source.append("new io.easytx.annotation.LogPolicy(io.easytx.annotation.LogLevel.")
+                    .append(logLevel).append(", ").append(value(annotation, "sampleRate"))
+                    .append(", ").append(slowThresholdMillis).append("L);\n");
+        }
+    }
+
+    private void appendConstructor(StringBuilder source, String simpleName,
+            ExecutableElement constructor) {
+        source.append('\n');
+        constructor.getAnnotationMirrors()
+                .forEach(mirror -> source.append("    ").append(mirror).append('\n'));
+        source.append("    public ").append(methodTypeParameters(constructor)).append(simpleName)
+                .append('(').append(parameters(constructor)).append(')')
+                .append(throwsClause(constructor)).append(" {\n")
+                .append("        super(").append(arguments(constructor)).append(");\n    }\n");
+    }
+
+    private void appendMethod(StringBuilder source, ExecutableElement method, int index) {
+        boolean isVoid = method.getReturnType().getKind() == TypeKind.VOID;
+        String call = "super." + method.getSimpleName() + "(" + arguments(method) + ")";
+        source.append("\n    @Override\n    ").append(visibility(method))
+                .append(methodTypeParameters(method)).append(method.getReturnType()).append(' ')
+                .append(method.getSimpleName()).append('(').append(parameters(method))
+                .append(')').append(throwsClause(method)).append(" {\n")
+                .append("        io.easytx.weaving.TxAdvice.requireTransactionService(")
+                .append("transactionService, getClass());\n")
+                .append("        ").append(isVoid ? "" : "return ")
+                .append(adviceCall(method, index)).append(", () -> ")
+                .append(isVoid ? "{\n            " + call + ";\n            return null;\n        }"
+                        : call)
+                .append(");\n    }\n");
+    }
+
+    // Mirrors the aspect: singleFlight wraps the read, autoCommit takes precedence over hedged
+    private String adviceCall(ExecutableElement method, int index) {
+        String definition = "TX_" + index + ", LOG_" + index;
+        if (!isAnnotatedWith(method, TX_READ)) {
+            return "io.easytx.weaving.TxAdvice.write(transactionService, " + definition;
+        }
+        AnnotationMirror annotation = txAnnotation(method);
+        String mode = (Boolean) value(annotation, "autoCommit") ? "AUTO_COMMIT"
+                : (Boolean) value(annotation, "hedged") ? "HEDGED" : "TRANSACTION";
+        definition += ", io.easytx.weaving.TxAdvice.ReadMode." + mode;
+        if ((Boolean) value(annotation, "singleFlight")) {
+            return "io.easytx.weaving.TxAdvice.readOnce(transactionService, this, new Object[] {"
+                    + arguments(method) + "}, " + value(annotation, "singleFlightTimeoutMillis")
+                    + "L, " + definition;
+        }
+        return "io.easytx.weaving.TxAdvice.read(transactionService, " + definition;
+    }
+
+    private boolean isAdvisable(TypeElement type) {
+        if (type.getNestingKind() != NestingKind.TOP_LEVEL || type.getKind() != ElementKind.CLASS
+                || type.getModifiers().contains(Modifier.FINAL)
+                || !type.getModifiers().contains(Modifier.PUBLIC)) {
+            error(type, "Generated transaction advice needs a public, non-final, top-level class");
+            return false;
+        }
+        return true;
+    }
+
+    private boolean isAdvisable(ExecutableElement method) {
+        Set<Modifier> modifiers = method.getModifiers();
+        if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.STATIC)
+                || modifiers.contains(Modifier.FINAL)) {
+            error(method, "Generated transaction advice can't override a private, static or final "
+                    + "method");
+            return false;
+        }
+        return true;
+    }
+
+    private AnnotationMirror txAnnotation(ExecutableElement method) {
+        return method.getAnnotationMirrors().stream()
+                .filter(mirror -> isTxAnnotation(mirror, TX_READ)
+                        || isTxAnnotation(mirror, TX_WRITE))
+                .findFirst().orElseThrow();
+    }
+
+    private boolean isAnnotatedWith(ExecutableElement method, String annotation) {
+        return method.getAnnotationMirrors().stream()
+                .anyMatch(mirror -> isTxAnnotation(mirror, annotation));
+    }
+
+    private boolean isTxAnnotation(AnnotationMirror mirror, String annotation) {
+        return ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName()
+                .contentEquals(annotation);
+    }
+
+    private String enumValue(AnnotationMirror annotation, String name) {
+        return ((VariableElement) value(annotation, name)).getSimpleName().toString();
+    }
+
+    private Object value(AnnotationMirror annotation, String name) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : processingEnv
+                .getElementUtils().getElementValuesWithDefaults(annotation).entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) {
+                return entry.getValue().getValue();
+            }
+        }
+        throw new IllegalStateException("Missing attribute " + name);
+    }
+
+    private String packageOf(TypeElement type) {
+        PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(type);
+        return packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString();
+    }
+
+    private String typeParameters(TypeElement type) {
+        return typeParameters(type.getTypeParameters());
+    }
+
+    private String methodTypeParameters(ExecutableElement method) {
+        String parameters = typeParameters(method.getTypeParameters());
+        return parameters.isEmpty() ? "" : parameters + " ";
+    }
+
+    private String typeParameters(List<? extends TypeParameterElement> parameters) {
+        if (parameters.isEmpty()) {
+            return "";
+        }
+        return parameters.stream().map(this::typeParameter)
+                .collect(Collectors.joining(", ", "<", ">"));
+    }
+
+    private String typeParameter(TypeParameterElement parameter) {
+        List<String> bounds = parameter.getBounds().stream().map(TypeMirror::toString)
+                .filter(bound -> !"java.lang.Object".equals(bound)).collect(Collectors.toList());
+        return bounds.isEmpty() ? parameter.getSimpleName().toString()
+                : parameter.getSimpleName() + " extends " + String.join(" & ", bounds);
+    }
+
+    private String parameters(ExecutableElement method) {
+        List<? extends VariableElement> parameters = method.getParameters();
+        List<String> declarations = new ArrayList<>();
+        for (int i = 0; i < parameters.size(); i++) {
+            VariableElement parameter = parameters.get(i);
+            String annotations = parameter.getAnnotationMirrors().stream()
+                    .map(mirror -> mirror + " ").collect(Collectors.joining());
+            String type = parameter.asType().toString();
+            if (method.isVarArgs() && i == parameters.size() - 1 && type.endsWith("[]")) {
+                type = type.substring(0, type.length() - 2) + "...";
+            }
+            declarations.add(annotations + "final " + type + " " + parameter.getSimpleName());
+        }
+        return String.join(", ", declarations);
+    }
+
+    private String arguments(ExecutableElement method) {
+        return method.getParameters().stream().map(parameter -> parameter.getSimpleName())
+                .map(Object::toString).collect(Collectors.joining(", "));
+    }
+
+    private String throwsClause(ExecutableElement method) {
+        if (method.getThrownTypes().isEmpty()) {
+            return "";
+        }
+        return method.getThrownTypes().stream().map(TypeMirror::toString)
+                .collect(Collectors.joining(", ", " throws ", ""));
+    }
+
+    private String visibility(ExecutableElement method) {
+        Set<Modifier> modifiers = method.getModifiers();
+        if (modifiers.contains(Modifier.PUBLIC)) {
+            return "public ";
+        }
+        return modifiers.contains(Modifier.PROTECTED) ? "protected " : "";
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
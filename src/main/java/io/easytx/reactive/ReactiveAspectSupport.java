@@ -0,0 +1,59 @@
+package io.easytx.reactive;
+
+import java.util.function.Supplier;
+import org.reactivestreams.Publisher;
+import io.easytx.annotation.TransactionConfiguration;
+import io.easytx.interceptor.ReactiveTxHandler;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link ReactiveTxHandler} for methods returning {@link Mono} or {@link Flux}: the method is
+ * invoked on subscription and its publisher runs through {@link ReactiveTransactionService}.
+ */
+public class ReactiveAspectSupport implements ReactiveTxHandler {
+
+    private final ReactiveTransactionService transactionService;
+
+    public ReactiveAspectSupport(ReactiveTransactionService transactionService) {
+        this.transactionService = transactionService;
+    }
+
+    @Override
+    public boolean supports(Class<?> returnType) {
+        return Mono.class.isAssignableFrom(returnType) || Flux.class.isAssignableFrom(returnType);
+    }
+
+    @Override
+    public Object transactional(Class<?> returnType, Supplier<Object> invocation,
+            TransactionConfiguration configuration, boolean readOnly) {
+        if (Mono.class.isAssignableFrom(returnType)) {
+            Mono<Object> mono = Mono.defer(() -> asMono(invocation.get()));
+            return readOnly ? transactionService.read(mono, configuration)
+                    : transactionService.write(mono, configuration);
+        }
+        Flux<Object> flux = Flux.defer(() -> asFlux(invocation.get()));
+        return readOnly ? transactionService.read(flux, configuration)
+                : transactionService.write(flux, configuration);
+    }
+
+    @Override
+    public Object routed(Class<?> returnType, Supplier<Object> invocation, String routeKey) {
+        if (Mono.class.isAssignableFrom(returnType)) {
+            return Mono.defer(() -> asMono(invocation.get()))
+                    .contextWrite(ReactiveRoutingConnectionFactory.route(routeKey));
+        }
+        return Flux.defer(() -> asFlux(invocation.get()))
+                .contextWrite(ReactiveRoutingConnectionFactory.route(routeKey));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Mono<Object> asMono(Object publisher) {
+        return (Mono<Object>) publisher;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Flux<Object> asFlux(Object publisher) {
+        return Flux.from((Publisher<Object>) publisher);
+    }
+}
@@ -0,0 +1,27 @@
+package io.easytx.reactive;
+
+import java.util.function.Function;
+import org.springframework.r2dbc.connection.lookup.AbstractRoutingConnectionFactory;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+/**
+ * R2DBC counterpart of {@link io.easytx.routing.RoutingDataSource}: routes by the key stored in
+ * the Reactor context under {@link #ROUTE_KEY}, which {@link ReactiveTransactionService} and
+ * reactive {@code @Read}/{@code @Write} methods set.
+ */
+public class ReactiveRoutingConnectionFactory extends AbstractRoutingConnectionFactory {
+
+    public static final String ROUTE_KEY = ReactiveRoutingConnectionFactory.class.getName()
+            + ".route";
+
+    /** Context modifier routing the upstream publisher to {@code key}. */
+    public static Function<Context, Context> route(String key) {
+        return context -> context.put(ROUTE_KEY, key);
+    }
+
+    @Override
+    protected Mono<Object> determineCurrentLookupKey() {
+        return Mono.deferContextual(context -> Mono.justOrEmpty(context.getOrEmpty(ROUTE_KEY)));
+    }
+}
@@ -0,0 +1,203 @@
+package io.easytx.reactive;
+
+import java.time.Duration;
+import java.util.function.Function;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import io.easytx.annotation.TransactionConfiguration;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+/**
+ * Reactive counterpart of {@link io.easytx.service.TransactionService}: runs a {@link Mono} or
+ * {@link Flux} in a transaction of the write or read route, with the same propagation and
+ * isolation model. The route is also stored in the Reactor context for
+ * {@link ReactiveRoutingConnectionFactory}. Nothing happens until the result is subscribed.
+ * <p>
+ * Both managers usually share the routing connection factory, so a write inside a read
+ * transaction would join its read-only connection. Such a write runs in a transaction of its
+ * own on the write route instead, as with the separate resources of {@code TransactionService}:
+ * {@code REQUIRED} and {@code NESTED} start a new transaction, {@code SUPPORTS} and
+ * {@code NEVER} run without one, and {@code MANDATORY} fails.
+ */
+public class ReactiveTransactionService {
+
+    private static final String WRITE = "write";
+    private static final String READ = "read";
+    private static final String TX_ROUTE_KEY = ReactiveTransactionService.class.getName()
+            + ".txRoute";
+
+    private final ReactiveTransactionManager writeTxManager;
+    private final ReactiveTransactionManager readTxManager;
+
+    public ReactiveTransactionService(ReactiveTransactionManager writeTxManager,
+            ReactiveTransactionManager readTxManager) {
+        this.writeTxManager = writeTxManager;
+        this.readTxManager = readTxManager;
+    }
+
+    public <T> Mono<T> write(Mono<T> mono) {
+        return write(mono, defaultConfig());
+    }
+
+    public <T> Mono<T> write(Mono<T> mono, TransactionConfiguration configuration) {
+        TransactionConfiguration config = orDefault(configuration);
+        if (isExpired(config)) {
+            return Mono.error(() -> timedOut(config));
+        }
+        return Mono.deferContextual(context -> {
+            Propagation propagation = writePropagation(config, context);
+            if (propagation == null) {
+                return Mono.error(() -> mandatoryInRead(config));
+            }
+            return operator(writeTxManager, config, propagation, false)
+                    .transactional(withDeadline(mono, config))
+                    .contextWrite(scope(WRITE));
+        });
+    }
+
+    public <T> Flux<T> write(Flux<T> flux) {
+        return write(flux, defaultConfig());
+    }
+
+    public <T> Flux<T> write(Flux<T> flux, TransactionConfiguration configuration) {
+        TransactionConfiguration config = orDefault(configuration);
+        if (isExpired(config)) {
+            return Flux.error(() -> timedOut(config));
+        }
+        return Flux.deferContextual(context -> {
+            Propagation propagation = writePropagation(config, context);
+            if (propagation == null) {
+                return Flux.error(() -> mandatoryInRead(config));
+            }
+            return operator(writeTxManager, config, propagation, false)
+                    .transactional(withDeadline(flux, config))
+                    .contextWrite(scope(WRITE));
+        });
+    }
+
+    public <T> Mono<T> read(Mono<T> mono) {
+        return read(mono, defaultConfig());
+    }
+
+    public <T> Mono<T> read(Mono<T> mono, TransactionConfiguration configuration) {
+        TransactionConfiguration config = orDefault(configuration);
+        if (isExpired(config)) {
+            return Mono.error(() -> timedOut(config));
+        }
+        return operator(readTxManager, config, config.getPropagation(), true)
+                .transactional(withDeadline(mono, config))
+                .contextWrite(scope(READ));
+    }
+
+    public <T> Flux<T> read(Flux<T> flux) {
+        return read(flux, defaultConfig());
+    }
+
+    public <T> Flux<T> read(Flux<T> flux, TransactionConfiguration configuration) {
+        TransactionConfiguration config = orDefault(configuration);
+        if (isExpired(config)) {
+            return Flux.error(() -> timedOut(config));
+        }
+        return operator(readTxManager, config, config.getPropagation(), true)
+                .transactional(withDeadline(flux, config))
+                .contextWrite(scope(READ));
+    }
+
+    private TransactionalOperator operator(ReactiveTransactionManager txManager,
+            TransactionConfiguration configuration, Propagation propagation, boolean readOnly) {
+        DefaultTransactionDefinition definition = new DefaultTransactionDefinition();
+        definition.setPropagationBehavior(propagation.value());
+        definition.setIsolationLevel(configuration.getIsolation().value());
+        definition.setReadOnly(readOnly);
+        definition.setName(configuration.getName());
+        return TransactionalOperator.create(txManager, definition);
+    }
+
+    // Routes the upstream publisher and records the route of the transaction it runs in
+    private static Function<Context, Context> scope(String route) {
+        return context -> ReactiveRoutingConnectionFactory.route(route).apply(context)
+                .put(TX_ROUTE_KEY, route);
+    }
+
+    // Propagation of a write given the enclosing scope, null when it cannot run
+    private static Propagation writePropagation(TransactionConfiguration configuration,
+            ContextView context) {
+        Propagation propagation = configuration.getPropagation();
+        if (!READ.equals(context.getOrDefault(TX_ROUTE_KEY, null))) {
+            return propagation;
+        }
+        switch (propagation) {
+            case REQUIRED:
+            case NESTED:
+                return Propagation.REQUIRES_NEW;
+            case SUPPORTS:
+            case NEVER:
+                return Propagation.NOT_SUPPORTED;
+            case MANDATORY:
+                return null;
+            default:
+                return propagation;
+        }
+    }
+
+    private static IllegalTransactionStateException mandatoryInRead(
+            TransactionConfiguration configuration) {
+        return new IllegalTransactionStateException("No write transaction for "
+                + (configuration.getName() != null ? configuration.getName() : "transaction")
+                + " marked with propagation 'mandatory' inside a read transaction");
+    }
+
+    // Like TransactionService, a deadline of 0 fails before any work and a negative one is unset
+    private static boolean isExpired(TransactionConfiguration configuration) {
+        return configuration.getDeadlineMillis() == 0;
+    }
+
+    // A deadline fails the publisher inside the transaction, so that it rolls back
+    private <T> Mono<T> withDeadline(Mono<T> mono, TransactionConfiguration configuration) {
+        long deadlineMillis = configuration.getDeadlineMillis();
+        if (deadlineMillis < 0) {
+            return mono;
+        }
+        return mono.timeout(Duration.ofMillis(deadlineMillis),
+                Mono.error(() -> timedOut(deadlineMillis)));
+    }
+
+    private <T> Flux<T> withDeadline(Flux<T> flux, TransactionConfiguration configuration) {
+        long deadlineMillis = configuration.getDeadlineMillis();
+        if (deadlineMillis < 0) {
+            return flux;
+        }
+        return Flux.defer(() -> {
+            // One timer per subscription, shared by all the per-item timeouts
+            Mono<Long> deadline = Mono.delay(Duration.ofMillis(deadlineMillis)).cache();
+            return flux.timeout(deadline, item -> deadline,
+                    Flux.error(() -> timedOut(deadlineMillis)));
+        });
+    }
+
+    private static TransactionTimedOutException timedOut(TransactionConfiguration configuration) {
+        return new TransactionTimedOutException("Deadline exceeded before "
+                + (configuration.getName() != null ? configuration.getName() : "transaction"));
+    }
+
+    private static TransactionTimedOutException timedOut(long deadlineMillis) {
+        return new TransactionTimedOutException(
+                "easyTx deadline of " + deadlineMillis + "ms exceeded");
+    }
+
+    private TransactionConfiguration orDefault(TransactionConfiguration configuration) {
+        return configuration != null ? configuration : defaultConfig();
+    }
+
+    private TransactionConfiguration defaultConfig() {
+        return new TransactionConfiguration(Propagation.REQUIRED, Isolation.DEFAULT);
+    }
+}
@@ -0,0 +1,58 @@
+package io.easytx.routing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+
+/**
+ * Read targets of a {@link RoutingDataSource}: the {@code read} key first, then every key
+ * starting with {@code read-} in alphabetical order.
+ */
+public class Replicas {
+
+    public static final String PREFIX = RoutingDataSource.READ + "-";
+
+    private final RoutingDataSource routing;
+    private volatile Map<Object, DataSource> resolvedFrom;
+    private volatile List<String> keys;
+
+    public Replicas(RoutingDataSource routing) {
+        this.routing = routing;
+    }
+
+    /** Current read targets, following targets added or removed at runtime. */
+    public List<String> keys() {
+        Map<Object, DataSource> targets = routing.getResolvedDataSources();
+        List<String> current = keys;
+        if (current == null || resolvedFrom != targets) {
+            current = resolveKeys(targets);
+            keys = current;
+            resolvedFrom = targets;
+        }
+        return current;
+    }
+
+    public DataSource get(String key) {
+        return routing.target(key);
+    }
+
+    public RoutingDataSource getRoutingDataSource() {
+        return routing;
+    }
+
+    private static List<String> resolveKeys(Map<Object, DataSource> targets) {
+        List<String> replicas = new ArrayList<>();
+        for (Object key : targets.keySet()) {
+            if (key instanceof String && ((String) key).startsWith(PREFIX)) {
+                replicas.add((String) key);
+            }
+        }
+        Collections.sort(replicas);
+        if (targets.containsKey(RoutingDataSource.READ)) {
+            replicas.add(0, RoutingDataSource.READ);
+        }
+        return List.copyOf(replicas);
+    }
+}
@@ -0,0 +1,70 @@
+package io.easytx.routing;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Target of a {@link RoutingDataSource} route, counting the connections it has handed out and
+ * not yet closed so that a removed target can be drained before its pool is closed.
+ */
+class RouteTarget extends DelegatingDataSource {
+
+    private final AtomicInteger active = new AtomicInteger();
+
+    RouteTarget(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return track(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return track(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    int activeConnections() {
+        return active.get();
+    }
+
+    private Connection track(Connection target) {
+        active.incrementAndGet();
+        AtomicBoolean closed = new AtomicBoolean();
+        InvocationHandler handler =
+                (proxy, method, args) -> invoke(target, closed, proxy, method, args);
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, handler);
+    }
+
+    private Object invoke(Connection target, AtomicBoolean closed, Object proxy, Method method,
+            Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "close":
+                if (closed.compareAndSet(false, true)) {
+                    active.decrementAndGet();
+                }
+                break;
+            default:
+                break;
+        }
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
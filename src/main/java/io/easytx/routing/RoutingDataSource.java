@@ -1,22 +1,610 @@
 package io.easytx.routing;
 
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.ConnectionHolder;
 import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import io.easytx.context.TxContext;
+import io.easytx.context.TxContextHolder;
+import io.easytx.context.TxExecutors;
 
-public class RoutingDataSource extends AbstractRoutingDataSource {
+/**
+ * Routes connections by the route key of the current {@link io.easytx.context.TxContext}.
+ * Targets can be added, replaced, removed and weighted at runtime: lookups read an immutable
+ * snapshot that is swapped atomically, removed targets are drained before their pool is closed.
+ * <p>
+ * A target {@code key-suffix} with a weight set through {@link #setWeight(String, int)} also
+ * serves lookups of {@code key}, in proportion to its weight.
+ */
+public class RoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
 
-    private static final ThreadLocal<String> context = new ThreadLocal<>();
+    public static final String WRITE = "write";
+    public static final String READ = "read";
 
+    private static final Logger LOG = LoggerFactory.getLogger(RoutingDataSource.class);
+
+    private static final int DEFAULT_WEIGHT = 1;
+    private static final long DRAIN_POLL_MILLIS = 50;
+
+    private boolean statementInspection;
+    private volatile Integer defaultTransactionIsolation;
+
+    private volatile Targets targets;
+    private final Map<String, Integer> weights = new HashMap<>();
+    private final Map<String, DataSource> views = new ConcurrentHashMap<>();
+    private volatile Duration drainTimeout = Duration.ofSeconds(30);
+    private volatile int warmupConnections = 1;
+    private volatile ScheduledExecutorService scheduler = TxExecutors.shared();
+    private volatile TenantPools tenantPools;
+    private final AtomicLong forcedCloses = new AtomicLong();
+
+    /**
+     * @deprecated overwrites the route of enclosing scopes, use {@link #callPinned} or
+     *             {@link TxContextHolder#callWith} which restore it
+     */
+    @Deprecated
     public static void setDataSourceKey(String key) {
-        context.set(key);
+        TxContextHolder.set(TxContextHolder.current().withRouteKey(key));
     }
 
+    /** @deprecated see {@link #setDataSourceKey(String)} */
+    @Deprecated
     public static void clear() {
-        context.remove();
+        TxContextHolder.set(TxContextHolder.current().withRouteKey(null));
+    }
+
+    /**
+     * When enabled, connections requested without a routing key choose their target lazily by
+     * inspecting the first SQL statement, see {@link StatementRoutingConnection}.
+     */
+    public void setStatementInspection(boolean statementInspection) {
+        this.statementInspection = statementInspection;
+    }
+
+    public boolean isStatementInspection() {
+        return statementInspection;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (statementInspection && determineCurrentLookupKey() == null) {
+            return StatementRoutingConnection.create(this, READ, WRITE);
+        }
+        return super.getConnection();
+    }
+
+    /**
+     * Maximum time a removed target is given to return its connections, 30s by default. Pools
+     * still lending connections then are closed anyway, see {@link #getForcedCloses()}.
+     */
+    public void setDrainTimeout(Duration drainTimeout) {
+        this.drainTimeout = drainTimeout;
+    }
+
+    /** Polls the drain of retired targets on {@code scheduler} instead of the shared pool. */
+    public void setScheduler(ScheduledExecutorService scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /** Connections opened and validated on a new target before it is published, 1 by default. */
+    public void setWarmupConnections(int warmupConnections) {
+        this.warmupConnections = warmupConnections;
+    }
+
+    /** Routes lookups of contexts with a tenant id to the pools of that tenant. */
+    public void setTenantPools(TenantPools tenantPools) {
+        this.tenantPools = tenantPools;
+    }
+
+    public TenantPools getTenantPools() {
+        return tenantPools;
+    }
+
+    @Override
+    public void destroy() {
+        TenantPools tenants = tenantPools;
+        if (tenants != null) {
+            tenants.close();
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        Map<String, RouteTarget> initial = new LinkedHashMap<>();
+        DataSource defaultDataSource = super.getResolvedDefaultDataSource();
+        String defaultKey = null;
+        for (Map.Entry<Object, DataSource> entry : super.getResolvedDataSources().entrySet()) {
+            String key = String.valueOf(entry.getKey());
+            initial.put(key, new RouteTarget(entry.getValue()));
+            if (defaultKey == null && entry.getValue() == defaultDataSource) {
+                defaultKey = key;
+            }
+        }
+        RouteTarget defaultTarget = defaultKey != null ? initial.get(defaultKey)
+                : defaultDataSource != null ? new RouteTarget(defaultDataSource) : null;
+        synchronized (this) {
+            targets = new Targets(initial, defaultKey, defaultTarget, weights);
+        }
+    }
+
+    /**
+     * Returns a DataSource that always uses the current target of {@code key}, so that
+     * transaction managers and templates built on it follow runtime changes. The same instance
+     * is returned for the same key.
+     */
+    public DataSource routeTo(String key) {
+        return views.computeIfAbsent(key, RouteView::new);
+    }
+
+    /**
+     * Runs {@code action} on route {@code key} outside of a transaction, with one connection of
+     * that route bound to the thread: statements through this DataSource or {@link #routeTo}
+     * views of {@code key} reuse it instead of taking one from the pool each time. A nested call
+     * for another key pins its own connection and restores the outer one when it returns, a
+     * nested call for a pinned key reuses its connection. Inside a transaction only the route key
+     * is set, the transaction owns the connection.
+     */
+    public <T> T callPinned(String key, Supplier<T> action) {
+        TxContext context = TxContextHolder.current().withRouteKey(key);
+        Object previous = TransactionSynchronizationManager.getResource(this);
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                || previous instanceof PinnedConnection
+                        && ((PinnedConnection) previous).key.equals(key)) {
+            return TxContextHolder.callWith(context, action);
+        }
+        DataSource view = routeTo(key);
+        Object viewResource = TransactionSynchronizationManager.getResource(view);
+        PinnedConnection pinned = viewResource instanceof PinnedConnection
+                ? (PinnedConnection) viewResource : pin(key);
+        boolean bindView = viewResource == null;
+        if (previous != null) {
+            TransactionSynchronizationManager.unbindResource(this);
+        }
+        TransactionSynchronizationManager.bindResource(this, pinned);
+        if (bindView) {
+            TransactionSynchronizationManager.bindResource(view, pinned);
+        }
+        try {
+            return TxContextHolder.callWith(context, action);
+        } finally {
+            TransactionSynchronizationManager.unbindResource(this);
+            if (bindView) {
+                TransactionSynchronizationManager.unbindResource(view);
+            }
+            if (pinned != viewResource) {
+                pinned.release();
+            }
+            if (previous != null) {
+                TransactionSynchronizationManager.bindResource(this, previous);
+            }
+        }
+    }
+
+    /** Same as {@link #putTarget(String, DataSource, int)}, keeping the weight of {@code key}. */
+    public CompletableFuture<Void> putTarget(String key, DataSource dataSource) {
+        return putTarget(key, dataSource, -1);
+    }
+
+    /**
+     * Adds {@code dataSource} as the target of {@code key}, or replaces the current one, after
+     * warming it up. Transactions in flight keep their connection; a replaced target is drained
+     * and closed, the returned future completes once it is.
+     *
+     * @param weight share of the lookups of the parent key, see {@link #setWeight}; negative
+     *        keeps the current weight
+     */
+    public CompletableFuture<Void> putTarget(String key, DataSource dataSource, int weight) {
+        warmUp(key, dataSource);
+        RouteTarget replaced;
+        synchronized (this) {
+            Targets current = initialized();
+            if (weight >= 0) {
+                weights.put(key, weight);
+            }
+            Map<String, RouteTarget> next = new LinkedHashMap<>(current.byKey);
+            RouteTarget target = new RouteTarget(dataSource);
+            replaced = next.put(key, target);
+            RouteTarget defaultTarget = key.equals(current.defaultKey) ? target
+                    : current.defaultTarget;
+            targets = new Targets(next, current.defaultKey, defaultTarget, weights);
+        }
+        return replaced != null ? drain(replaced) : CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Stops routing to {@code key}; its target is drained and closed, the returned future
+     * completes once it is. The {@code write} and {@code read} routes can only be replaced.
+     */
+    public CompletableFuture<Void> removeTarget(String key) {
+        if (WRITE.equals(key) || READ.equals(key)) {
+            throw new IllegalArgumentException("Route '" + key + "' can be replaced, not removed");
+        }
+        RouteTarget removed;
+        synchronized (this) {
+            Targets current = initialized();
+            Map<String, RouteTarget> next = new LinkedHashMap<>(current.byKey);
+            removed = next.remove(key);
+            weights.remove(key);
+            if (removed == null) {
+                return CompletableFuture.completedFuture(null);
+            }
+            targets = new Targets(next, current.defaultKey, current.defaultTarget, weights);
+        }
+        return drain(removed);
+    }
+
+    /**
+     * Sets the weight of {@code key}. A weighted {@code key-suffix} target takes a share of the
+     * lookups of {@code key}, the other targets of the group keep the default weight of 1 unless
+     * set; a weight of 0 takes a target out of its group.
+     */
+    public synchronized void setWeight(String key, int weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("Negative weight for '" + key + "': " + weight);
+        }
+        weights.put(key, weight);
+        Targets current = targets;
+        if (current != null) {
+            targets = new Targets(current.byKey, current.defaultKey, current.defaultTarget,
+                    weights);
+        }
+    }
+
+    /**
+     * Applies a refreshed target map: new and changed targets are warmed up first, then the whole
+     * map is published at once, so lookups see either the previous or the refreshed targets. If a
+     * warm-up fails nothing changes. Targets no longer listed are removed; the returned future
+     * completes once the replaced targets are closed.
+     */
+    public CompletableFuture<Void> retarget(Map<String, DataSource> dataSources) {
+        if (dataSources.get(WRITE) == null || dataSources.get(READ) == null) {
+            throw new IllegalArgumentException("Targets for 'write' and 'read' are required");
+        }
+        Targets snapshot = initialized();
+        for (Map.Entry<String, DataSource> entry : dataSources.entrySet()) {
+            RouteTarget existing = snapshot.byKey.get(entry.getKey());
+            if (existing == null || existing.getTargetDataSource() != entry.getValue()) {
+                warmUp(entry.getKey(), entry.getValue());
+            }
+        }
+        List<RouteTarget> retired = new ArrayList<>();
+        synchronized (this) {
+            Targets current = initialized();
+            Map<String, RouteTarget> next = new LinkedHashMap<>();
+            RouteTarget defaultTarget = current.defaultTarget;
+            for (Map.Entry<String, DataSource> entry : dataSources.entrySet()) {
+                RouteTarget existing = current.byKey.get(entry.getKey());
+                if (existing != null && existing.getTargetDataSource() == entry.getValue()) {
+                    next.put(entry.getKey(), existing);
+                    continue;
+                }
+                RouteTarget target = new RouteTarget(entry.getValue());
+                next.put(entry.getKey(), target);
+                if (existing != null) {
+                    retired.add(existing);
+                }
+                if (entry.getKey().equals(current.defaultKey)) {
+                    defaultTarget = target;
+                }
+            }
+            for (Map.Entry<String, RouteTarget> entry : current.byKey.entrySet()) {
+                if (!dataSources.containsKey(entry.getKey())) {
+                    retired.add(entry.getValue());
+                    weights.remove(entry.getKey());
+                }
+            }
+            targets = new Targets(next, current.defaultKey, defaultTarget, weights);
+        }
+        return CompletableFuture.allOf(retired.stream().map(this::drain)
+                .toArray(CompletableFuture<?>[]::new));
+    }
+
+    /**
+     * Number of drained targets that were closed at the drain timeout while connections were
+     * still borrowed from them.
+     */
+    public long getForcedCloses() {
+        return forcedCloses.get();
+    }
+
+    @Override
+    public Map<Object, DataSource> getResolvedDataSources() {
+        Targets current = targets;
+        return current != null ? current.resolved : super.getResolvedDataSources();
+    }
+
+    @Override
+    public DataSource getResolvedDefaultDataSource() {
+        Targets current = targets;
+        return current != null ? current.defaultTarget : super.getResolvedDefaultDataSource();
+    }
+
+    @Override
+    protected DataSource determineTargetDataSource() {
+        Object key = determineCurrentLookupKey();
+        return resolveRoute(key != null ? key.toString() : null);
     }
 
     @Override
     protected Object determineCurrentLookupKey() {
-        return context.get();
+        return TxContextHolder.current().getRouteKey();
+    }
+
+    // Target serving lookups of key, chosen by weight when the key has a weighted group
+    DataSource resolveRoute(String key) {
+        DataSource tenant = tenantTarget(key);
+        if (tenant != null) {
+            return tenant;
+        }
+        Targets current = initialized();
+        DataSource dataSource = null;
+        if (key != null) {
+            Group group = current.groups.get(key);
+            dataSource = group != null ? group.pick() : current.byKey.get(key);
+        }
+        if (dataSource == null) {
+            dataSource = current.defaultTarget;
+        }
+        if (dataSource == null) {
+            throw new IllegalStateException("No DataSource for route '" + key + "'");
+        }
+        return dataSource;
+    }
+
+    // Target registered under exactly this key
+    DataSource target(String key) {
+        DataSource tenant = tenantTarget(key);
+        if (tenant != null) {
+            return tenant;
+        }
+        DataSource dataSource = initialized().byKey.get(key);
+        return dataSource != null ? dataSource : resolveRoute(key);
+    }
+
+    int defaultTransactionIsolation(String key) throws SQLException {
+        Integer isolation = defaultTransactionIsolation;
+        if (isolation == null) {
+            try (Connection connection = resolveRoute(key).getConnection()) {
+                isolation = connection.getTransactionIsolation();
+            }
+            defaultTransactionIsolation = isolation;
+        }
+        return isolation;
+    }
+
+    private DataSource tenantTarget(String key) {
+        TenantPools tenants = tenantPools;
+        if (tenants == null) {
+            return null;
+        }
+        String tenantId = TxContextHolder.current().getTenantId();
+        return tenantId != null ? tenants.get(tenantId, key != null ? key : WRITE) : null;
+    }
+
+    private PinnedConnection pin(String key) {
+        try {
+            Connection connection = resolveRoute(key).getConnection();
+            boolean readOnly = READ.equals(key) && !connection.isReadOnly();
+            if (readOnly) {
+                connection.setReadOnly(true);
+            }
+            return new PinnedConnection(connection, key, readOnly);
+        } catch (SQLException e) {
+            throw new CannotGetJdbcConnectionException("Failed to pin a connection of route '"
+                    + key + "'", e);
+        }
+    }
+
+    private Targets initialized() {
+        Targets current = targets;
+        if (current == null) {
+            throw new IllegalStateException("RoutingDataSource is not initialized");
+        }
+        return current;
+    }
+
+    private void warmUp(String key, DataSource dataSource) {
+        List<Connection> connections = new ArrayList<>();
+        try {
+            for (int i = 0; i < warmupConnections; i++) {
+                Connection connection = dataSource.getConnection();
+                connections.add(connection);
+                if (!connection.isValid(5)) {
+                    throw new SQLException("Invalid connection");
+                }
+            }
+        } catch (SQLException e) {
+            throw new CannotGetJdbcConnectionException("Warm-up of route '" + key + "' failed", e);
+        } finally {
+            for (Connection connection : connections) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    // Warm-up connection only
+                }
+            }
+        }
+    }
+
+    private CompletableFuture<Void> drain(RouteTarget target) {
+        CompletableFuture<Void> drained = new CompletableFuture<>();
+        long deadline = System.nanoTime() + drainTimeout.toNanos();
+        // The first check is delayed for lookups that read the previous snapshot
+        scheduler.schedule(() -> pollDrain(target, deadline, drained), DRAIN_POLL_MILLIS,
+                TimeUnit.MILLISECONDS);
+        return drained;
+    }
+
+    private void pollDrain(RouteTarget target, long deadline, CompletableFuture<Void> drained) {
+        if (target.activeConnections() > 0 && System.nanoTime() - deadline < 0) {
+            scheduler.schedule(() -> pollDrain(target, deadline, drained), DRAIN_POLL_MILLIS,
+                    TimeUnit.MILLISECONDS);
+            return;
+        }
+        DataSource dataSource = target.getTargetDataSource();
+        try {
+            if (dataSource instanceof AutoCloseable && !isRouted(dataSource)) {
+                int active = target.activeConnections();
+                if (active > 0) {
+                    forcedCloses.incrementAndGet();
+                    LOG.warn("Closing {} after the drain timeout of {} with {} connections still"
+                            + " borrowed", dataSource, drainTimeout, active);
+                }
+                ((AutoCloseable) dataSource).close();
+            }
+            drained.complete(null);
+        } catch (Exception e) {
+            drained.completeExceptionally(e);
+        }
+    }
+
+    // A pool routed under another key or as the default is still in use
+    private boolean isRouted(DataSource dataSource) {
+        Targets current = targets;
+        if (current.defaultTarget != null
+                && current.defaultTarget.getTargetDataSource() == dataSource) {
+            return true;
+        }
+        for (RouteTarget target : current.byKey.values()) {
+            if (target.getTargetDataSource() == dataSource) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private final class RouteView extends AbstractDataSource {
+
+        private final String key;
+
+        private RouteView(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return resolveRoute(key).getConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return resolveRoute(key).getConnection(username, password);
+        }
+
+        @Override
+        public String toString() {
+            return "RouteView[" + key + "]";
+        }
     }
 
+    // Connection held for a callPinned scope, released by the scope that opened it
+    private static final class PinnedConnection extends ConnectionHolder {
+
+        private final String key;
+        private final boolean resetReadOnly;
+
+        private PinnedConnection(Connection connection, String key, boolean resetReadOnly) {
+            super(connection);
+            this.key = key;
+            this.resetReadOnly = resetReadOnly;
+        }
+
+        private void release() {
+            Connection connection = getConnection();
+            try {
+                if (resetReadOnly) {
+                    connection.setReadOnly(false);
+                }
+            } catch (SQLException e) {
+                // The pool validates returned connections
+            } finally {
+                JdbcUtils.closeConnection(connection);
+            }
+        }
+    }
+
+    private static final class Group {
+
+        private final RouteTarget[] members;
+        private final int[] cumulative;
+
+        private Group(List<RouteTarget> members, List<Integer> weights) {
+            this.members = members.toArray(new RouteTarget[0]);
+            this.cumulative = new int[weights.size()];
+            int total = 0;
+            for (int i = 0; i < cumulative.length; i++) {
+                total += weights.get(i);
+                cumulative[i] = total;
+            }
+        }
+
+        private RouteTarget pick() {
+            int value = ThreadLocalRandom.current().nextInt(cumulative[cumulative.length - 1]);
+            for (int i = 0; i < cumulative.length; i++) {
+                if (value < cumulative[i]) {
+                    return members[i];
+                }
+            }
+            return members[members.length - 1];
+        }
+    }
+
+    private static final class Targets {
+
+        private final Map<String, RouteTarget> byKey;
+        private final String defaultKey;
+        private final RouteTarget defaultTarget;
+        private final Map<String, Group> groups = new HashMap<>();
+        private final Map<Object, DataSource> resolved;
+
+        private Targets(Map<String, RouteTarget> byKey, String defaultKey,
+                RouteTarget defaultTarget, Map<String, Integer> weights) {
+            this.byKey = Collections.unmodifiableMap(new LinkedHashMap<>(byKey));
+            this.defaultKey = defaultKey;
+            this.defaultTarget = defaultTarget;
+            this.resolved = Collections.unmodifiableMap(new LinkedHashMap<>(byKey));
+            for (String key : byKey.keySet()) {
+                List<RouteTarget> members = new ArrayList<>();
+                List<Integer> memberWeights = new ArrayList<>();
+                int own = weights.getOrDefault(key, DEFAULT_WEIGHT);
+                if (own > 0) {
+                    members.add(byKey.get(key));
+                    memberWeights.add(own);
+                }
+                for (Map.Entry<String, RouteTarget> entry : byKey.entrySet()) {
+                    Integer weight = weights.get(entry.getKey());
+                    if (entry.getKey().startsWith(key + "-") && weight != null && weight > 0) {
+                        members.add(entry.getValue());
+                        memberWeights.add(weight);
+                    }
+                }
+                if (!members.isEmpty() && (members.size() > 1 || own <= 0)) {
+                    groups.put(key, new Group(members, memberWeights));
+                }
+            }
+        }
+    }
 }
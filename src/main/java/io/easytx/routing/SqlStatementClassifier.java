@@ -0,0 +1,63 @@
+package io.easytx.routing;
+
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Conservative SQL inspection used by statement-based routing. Only statements that are clearly
+ * plain reads qualify for a replica: anything it can't prove safe is treated as a write.
+ */
+public final class SqlStatementClassifier {
+
+    private static final Pattern LITERALS_AND_COMMENTS =
+            Pattern.compile("'(?:[^']|'')*'|\"(?:[^\"]|\"\")*\"|--[^\\n]*|/\\*.*?\\*/",
+                    Pattern.DOTALL);
+    private static final Pattern LOCKING_CLAUSE = Pattern.compile(
+            "\\bFOR\\s+(?:UPDATE|SHARE|NO\\s+KEY\\s+UPDATE|KEY\\s+SHARE)\\b",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern INTO_CLAUSE =
+            Pattern.compile("\\bINTO\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern CALL = Pattern.compile("([A-Za-z_][A-Za-z0-9_$.]*)\\s*\\(");
+
+    // Keywords that may be followed by a parenthesis plus side-effect free built-in functions
+    private static final Set<String> SAFE_CALLS = Set.of("select", "from", "join", "where", "and",
+            "or", "not", "in", "exists", "any", "all", "some", "as", "on", "using", "over",
+            "filter", "values", "when", "then", "else", "case", "having", "by", "union",
+            "intersect", "except", "lateral", "within", "count", "sum", "avg", "min", "max",
+            "coalesce", "nullif", "greatest", "least", "lower", "upper", "length", "char_length",
+            "substring", "substr", "trim", "ltrim", "rtrim", "concat", "replace", "position",
+            "abs", "round", "floor", "ceil", "ceiling", "mod", "cast", "extract", "date_trunc",
+            "date_part", "now", "to_char", "to_date", "to_timestamp", "to_number", "array_agg",
+            "string_agg", "json_agg", "jsonb_agg", "bool_and", "bool_or", "row_number", "rank",
+            "dense_rank", "lag", "lead", "first_value", "last_value", "row");
+
+    private SqlStatementClassifier() {}
+
+    public static boolean isPlainSelect(String sql) {
+        if (sql == null) {
+            return false;
+        }
+        String stripped = LITERALS_AND_COMMENTS.matcher(sql).replaceAll(" ").trim();
+        while (stripped.startsWith("(")) {
+            stripped = stripped.substring(1).trim();
+        }
+        if (stripped.endsWith(";")) {
+            stripped = stripped.substring(0, stripped.length() - 1);
+        }
+        if (!stripped.regionMatches(true, 0, "select", 0, 6) || stripped.indexOf(';') >= 0) {
+            return false;
+        }
+        if (LOCKING_CLAUSE.matcher(stripped).find() || INTO_CLAUSE.matcher(stripped).find()) {
+            return false;
+        }
+        Matcher call = CALL.matcher(stripped);
+        while (call.find()) {
+            if (!SAFE_CALLS.contains(call.group(1).toLowerCase(Locale.ROOT))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,274 @@
+package io.easytx.routing;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+
+/**
+ * Logical connection that defers the choice of physical connection until the first statement.
+ * In autocommit mode every plain SELECT runs on the read route until a statement writes, from
+ * then on the connection is pinned to the write route. Inside a transaction the whole
+ * transaction is pinned on its first statement: read-only transactions starting with a plain
+ * SELECT go to the read route, everything else goes to the write route.
+ */
+class StatementRoutingConnection implements InvocationHandler {
+
+    private final RoutingDataSource routing;
+    private final String readKey;
+    private final String writeKey;
+
+    private Connection pinned;
+    private Connection autoCommitRead;
+    private boolean autoCommit = true;
+    private boolean readOnly;
+    private Integer isolation;
+    private boolean closed;
+
+    private StatementRoutingConnection(RoutingDataSource routing, String readKey,
+            String writeKey) {
+        this.routing = routing;
+        this.readKey = readKey;
+        this.writeKey = writeKey;
+    }
+
+    static Connection create(RoutingDataSource routing, String readKey, String writeKey) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class},
+                new StatementRoutingConnection(routing, readKey, writeKey));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "StatementRoutingConnection[pinned=" + pinned + "]";
+            case "isClosed":
+                return closed;
+            case "close":
+                close();
+                return null;
+            case "getAutoCommit":
+                return pinned != null ? pinned.getAutoCommit() : autoCommit;
+            case "isReadOnly":
+                return pinned != null ? pinned.isReadOnly() : readOnly;
+            case "getTransactionIsolation":
+                if (pinned == null) {
+                    return isolation != null ? isolation
+                            : routing.defaultTransactionIsolation(writeKey);
+                }
+                break;
+            case "setAutoCommit":
+                setAutoCommit((Boolean) args[0]);
+                return null;
+            case "setReadOnly":
+                readOnly = (Boolean) args[0];
+                return pinned != null ? invoke(pinned, method, args) : null;
+            case "setTransactionIsolation":
+                isolation = (Integer) args[0];
+                return pinned != null ? invoke(pinned, method, args) : null;
+            case "commit":
+            case "rollback":
+                if (pinned == null && (args == null || args.length == 0)) {
+                    closeAutoCommitRead();
+                    return null;
+                }
+                break;
+            case "createStatement":
+                if (pinned == null) {
+                    return LazyStatement.create((Connection) proxy, this, args);
+                }
+                break;
+            case "prepareStatement":
+            case "prepareCall":
+                Connection target = "prepareCall".equals(method.getName()) ? pin(writeKey)
+                        : connectionFor((String) args[0]);
+                return invoke(target, method, args);
+            default:
+                break;
+        }
+        return invoke(pinned != null ? pinned : pin(writeKey), method, args);
+    }
+
+    Connection connectionFor(String sql) throws SQLException {
+        if (pinned != null) {
+            return pinned;
+        }
+        boolean plainSelect = SqlStatementClassifier.isPlainSelect(sql);
+        if (autoCommit) {
+            return plainSelect ? autoCommitRead() : pin(writeKey);
+        }
+        return pin(readOnly && plainSelect ? readKey : writeKey);
+    }
+
+    private Connection autoCommitRead() throws SQLException {
+        if (autoCommitRead == null) {
+            autoCommitRead = open(readKey);
+        }
+        return autoCommitRead;
+    }
+
+    private Connection pin(String key) throws SQLException {
+        if (pinned == null) {
+            closeAutoCommitRead();
+            pinned = open(key);
+        }
+        return pinned;
+    }
+
+    private Connection open(String key) throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection is closed");
+        }
+        DataSource dataSource = routing.resolveRoute(key);
+        Connection connection = dataSource.getConnection();
+        try {
+            if (connection.getAutoCommit() != autoCommit) {
+                connection.setAutoCommit(autoCommit);
+            }
+            if (readOnly) {
+                connection.setReadOnly(true);
+            }
+            if (isolation != null) {
+                connection.setTransactionIsolation(isolation);
+            }
+            return connection;
+        } catch (SQLException | RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    private void setAutoCommit(boolean value) throws SQLException {
+        if (pinned != null) {
+            pinned.setAutoCommit(value);
+        } else if (!value) {
+            // A new transaction decides its route again on its first statement
+            closeAutoCommitRead();
+        }
+        autoCommit = value;
+    }
+
+    private void closeAutoCommitRead() throws SQLException {
+        if (autoCommitRead != null) {
+            Connection connection = autoCommitRead;
+            autoCommitRead = null;
+            connection.close();
+        }
+    }
+
+    private void close() throws SQLException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            closeAutoCommitRead();
+        } finally {
+            if (pinned != null) {
+                pinned.close();
+            }
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    /**
+     * Statement created before the route is known: settings are recorded and replayed on the
+     * physical statement once the first SQL text is seen.
+     */
+    private static final class LazyStatement implements InvocationHandler {
+
+        private final Connection logicalConnection;
+        private final StatementRoutingConnection routingConnection;
+        private final Object[] createArgs;
+        private final List<Object[]> recorded = new ArrayList<>();
+        private final List<Method> recordedMethods = new ArrayList<>();
+        private Statement target;
+        private boolean closed;
+
+        private LazyStatement(Connection logicalConnection,
+                StatementRoutingConnection routingConnection, Object[] createArgs) {
+            this.logicalConnection = logicalConnection;
+            this.routingConnection = routingConnection;
+            this.createArgs = createArgs;
+        }
+
+        static Statement create(Connection logicalConnection,
+                StatementRoutingConnection routingConnection, Object[] createArgs) {
+            return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(),
+                    new Class<?>[] {Statement.class},
+                    new LazyStatement(logicalConnection, routingConnection, createArgs));
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "getConnection":
+                    return logicalConnection;
+                case "isClosed":
+                    return target != null ? target.isClosed() : closed;
+                case "close":
+                    closed = true;
+                    if (target != null) {
+                        target.close();
+                    }
+                    return null;
+                default:
+                    break;
+            }
+            if (target == null) {
+                if (name.startsWith("set")) {
+                    recordedMethods.add(method);
+                    recorded.add(args);
+                    return null;
+                }
+                String sql = args != null && args.length > 0 && args[0] instanceof String
+                        ? (String) args[0]
+                        : null;
+                resolve(sql);
+            }
+            return StatementRoutingConnection.invoke(target, method, args);
+        }
+
+        private void resolve(String sql) throws Throwable {
+            Connection connection = routingConnection.connectionFor(sql);
+            target = createArgs == null || createArgs.length == 0 ? connection.createStatement()
+                    : createStatement(connection);
+            for (int i = 0; i < recordedMethods.size(); i++) {
+                StatementRoutingConnection.invoke(target, recordedMethods.get(i),
+                        recorded.get(i));
+            }
+        }
+
+        private Statement createStatement(Connection connection) throws SQLException {
+            if (createArgs.length == 2) {
+                return connection.createStatement((Integer) createArgs[0],
+                        (Integer) createArgs[1]);
+            }
+            return connection.createStatement((Integer) createArgs[0], (Integer) createArgs[1],
+                    (Integer) createArgs[2]);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package io.easytx.routing;
+
+import javax.sql.DataSource;
+
+/**
+ * Creates the pool of one tenant for one route, on first use. Pools that implement
+ * {@link AutoCloseable} are closed when {@link TenantPools} evicts them.
+ */
+@FunctionalInterface
+public interface TenantDataSourceResolver {
+
+    /**
+     * @param routeKey {@code write}, {@code read} or another route of the tenant
+     * @param maxConnections pool size the created DataSource must not exceed
+     */
+    DataSource create(String tenantId, String routeKey, int maxConnections);
+}
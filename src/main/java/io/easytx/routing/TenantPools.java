@@ -0,0 +1,258 @@
+package io.easytx.routing;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import io.easytx.context.TxExecutors;
+
+/**
+ * Per-tenant pools created on first use through a {@link TenantDataSourceResolver}. Concurrent
+ * first requests for a tenant wait for a single creation. The pools together may hold at most
+ * {@code maxTotalConnections}: when a new pool does not fit, the least recently used idle pool
+ * is evicted. Pools idle for {@code idleTimeout} are evicted in the background.
+ */
+public class TenantPools implements AutoCloseable {
+
+    private static final long CLOSE_POLL_MILLIS = 50;
+
+    private final TenantDataSourceResolver resolver;
+    private final int poolSize;
+    private final int maxTotalConnections;
+    private final long idleTimeoutNanos;
+    private final ScheduledExecutorService scheduler;
+    private final Map<Key, CompletableFuture<TenantPool>> pools = new ConcurrentHashMap<>();
+    private final ScheduledFuture<?> sweeper;
+    private int reservedConnections;
+
+    public TenantPools(TenantDataSourceResolver resolver, int poolSize, int maxTotalConnections,
+            Duration idleTimeout) {
+        this(resolver, poolSize, maxTotalConnections, idleTimeout, TxExecutors.shared());
+    }
+
+    /** Same as the other constructor, evicting on {@code scheduler}. */
+    public TenantPools(TenantDataSourceResolver resolver, int poolSize, int maxTotalConnections,
+            Duration idleTimeout, ScheduledExecutorService scheduler) {
+        if (poolSize < 1 || poolSize > maxTotalConnections) {
+            throw new IllegalArgumentException("poolSize must be between 1 and "
+                    + maxTotalConnections + ": " + poolSize);
+        }
+        this.resolver = resolver;
+        this.poolSize = poolSize;
+        this.maxTotalConnections = maxTotalConnections;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.scheduler = scheduler;
+        long period = Math.max(idleTimeout.toMillis() / 2, 1000);
+        this.sweeper = scheduler.scheduleWithFixedDelay(this::evictIdle, period, period,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /** Returns the pool of {@code tenantId} for {@code routeKey}, creating it if needed. */
+    public DataSource get(String tenantId, String routeKey) {
+        Key key = new Key(tenantId, routeKey);
+        CompletableFuture<TenantPool> pool = pools.get(key);
+        if (pool == null) {
+            CompletableFuture<TenantPool> created = new CompletableFuture<>();
+            pool = pools.putIfAbsent(key, created);
+            if (pool == null) {
+                return create(key, created);
+            }
+        }
+        try {
+            return pool.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    public int openPools() {
+        return pools.size();
+    }
+
+    public synchronized int reservedConnections() {
+        return reservedConnections;
+    }
+
+    /** Evicts the pools that have been idle for longer than the idle timeout. */
+    public void evictIdle() {
+        long now = System.nanoTime();
+        for (Map.Entry<Key, CompletableFuture<TenantPool>> entry : pools.entrySet()) {
+            TenantPool pool = entry.getValue().getNow(null);
+            if (pool != null && pool.isIdle() && now - pool.lastUsed > idleTimeoutNanos) {
+                evict(entry.getKey(), entry.getValue(), pool);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        sweeper.cancel(false);
+        for (Map.Entry<Key, CompletableFuture<TenantPool>> entry : pools.entrySet()) {
+            TenantPool pool = entry.getValue().getNow(null);
+            if (pool != null) {
+                evict(entry.getKey(), entry.getValue(), pool);
+            }
+        }
+    }
+
+    private TenantPool create(Key key, CompletableFuture<TenantPool> created) {
+        try {
+            reserve();
+            TenantPool pool;
+            try {
+                pool = new TenantPool(key,
+                        resolver.create(key.tenantId, key.routeKey, poolSize));
+            } catch (RuntimeException | Error e) {
+                release();
+                throw e;
+            }
+            created.complete(pool);
+            return pool;
+        } catch (RuntimeException | Error e) {
+            pools.remove(key, created);
+            created.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    // Makes room for one more pool, evicting least recently used idle pools
+    private void reserve() {
+        while (true) {
+            synchronized (this) {
+                if (reservedConnections + poolSize <= maxTotalConnections) {
+                    reservedConnections += poolSize;
+                    return;
+                }
+            }
+            if (!evictLeastRecentlyUsed()) {
+                throw new CannotGetJdbcConnectionException("Tenant connection limit of "
+                        + maxTotalConnections + " reached and no tenant pool is idle");
+            }
+        }
+    }
+
+    private synchronized void release() {
+        reservedConnections -= poolSize;
+    }
+
+    private boolean evictLeastRecentlyUsed() {
+        Map.Entry<Key, CompletableFuture<TenantPool>> oldest = null;
+        TenantPool oldestPool = null;
+        for (Map.Entry<Key, CompletableFuture<TenantPool>> entry : pools.entrySet()) {
+            TenantPool pool = entry.getValue().getNow(null);
+            if (pool != null && pool.isIdle()
+                    && (oldestPool == null || pool.lastUsed - oldestPool.lastUsed < 0)) {
+                oldest = entry;
+                oldestPool = pool;
+            }
+        }
+        return oldest != null && evict(oldest.getKey(), oldest.getValue(), oldestPool);
+    }
+
+    private boolean evict(Key key, CompletableFuture<TenantPool> future, TenantPool pool) {
+        if (!pools.remove(key, future)) {
+            return false;
+        }
+        pool.evicted = true;
+        release();
+        scheduler.schedule(() -> closeWhenDrained(pool), CLOSE_POLL_MILLIS,
+                TimeUnit.MILLISECONDS);
+        return true;
+    }
+
+    private void closeWhenDrained(TenantPool pool) {
+        if (!pool.isIdle()) {
+            scheduler.schedule(() -> closeWhenDrained(pool), CLOSE_POLL_MILLIS,
+                    TimeUnit.MILLISECONDS);
+            return;
+        }
+        DataSource dataSource = pool.getTargetDataSource();
+        if (dataSource instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) dataSource).close();
+            } catch (Exception e) {
+                // The pool is no longer routed to
+            }
+        }
+    }
+
+    private final class TenantPool extends RouteTarget {
+
+        private final Key key;
+        // Callers between the eviction check and their connection being counted
+        private final AtomicInteger leases = new AtomicInteger();
+        private volatile boolean evicted;
+        private volatile long lastUsed = System.nanoTime();
+
+        private TenantPool(Key key, DataSource dataSource) {
+            super(dataSource);
+            this.key = key;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            leases.incrementAndGet();
+            try {
+                if (evicted) {
+                    return get(key.tenantId, key.routeKey).getConnection();
+                }
+                lastUsed = System.nanoTime();
+                return super.getConnection();
+            } finally {
+                leases.decrementAndGet();
+            }
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            leases.incrementAndGet();
+            try {
+                if (evicted) {
+                    return get(key.tenantId, key.routeKey).getConnection(username, password);
+                }
+                lastUsed = System.nanoTime();
+                return super.getConnection(username, password);
+            } finally {
+                leases.decrementAndGet();
+            }
+        }
+
+        private boolean isIdle() {
+            return leases.get() == 0 && activeConnections() == 0;
+        }
+    }
+
+    private static final class Key {
+
+        private final String tenantId;
+        private final String routeKey;
+
+        private Key(String tenantId, String routeKey) {
+            this.tenantId = tenantId;
+            this.routeKey = routeKey;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key && ((Key) other).tenantId.equals(tenantId)
+                    && ((Key) other).routeKey.equals(routeKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * tenantId.hashCode() + routeKey.hashCode();
+        }
+    }
+}
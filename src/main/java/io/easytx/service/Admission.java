@@ -0,0 +1,21 @@
+package io.easytx.service;
+
+import java.util.function.Supplier;
+import io.easytx.annotation.TransactionConfiguration;
+
+/**
+ * Admits a read that holds its own connection on a pool thread, such as a hedge attempt or a
+ * partition, against the {@link PriorityGate} of its route.
+ */
+interface Admission {
+
+    Admission NONE = new Admission() {
+        @Override
+        public <T> T admit(String routeKey, TransactionConfiguration configuration,
+                Supplier<T> action) {
+            return action.get();
+        }
+    };
+
+    <T> T admit(String routeKey, TransactionConfiguration configuration, Supplier<T> action);
+}
@@ -0,0 +1,162 @@
+package io.easytx.service;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.jdbc.datasource.ConnectionHolder;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import io.easytx.annotation.StatementGuard;
+
+/**
+ * Runs a read callback in autocommit on one connection bound to the read {@link DataSource}, so
+ * no BEGIN/COMMIT is sent. The connection counts the statements created through it and applies
+ * the {@link StatementGuard} from the second one on.
+ */
+class AutoCommitRead {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AutoCommitRead.class);
+
+    private final DataSource dataSource;
+    private final Set<String> upgraded = ConcurrentHashMap.newKeySet();
+    private final Set<String> warned = ConcurrentHashMap.newKeySet();
+
+    AutoCommitRead(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /** True once {@code name} was upgraded, its later calls should use a read transaction. */
+    boolean isUpgraded(String name) {
+        return upgraded.contains(name);
+    }
+
+    <T> T run(String name, StatementGuard guard, Supplier<T> callback) {
+        if (TransactionSynchronizationManager.hasResource(dataSource)) {
+            return callback.get();
+        }
+        GuardedConnection guarded =
+                new GuardedConnection(DataSourceUtils.getConnection(dataSource), name, guard);
+        TransactionSynchronizationManager.bindResource(dataSource,
+                new ConnectionHolder(guarded.proxy()));
+        try {
+            T result = callback.get();
+            guarded.complete(true);
+            return result;
+        } catch (RuntimeException | Error e) {
+            guarded.complete(false);
+            throw e;
+        } finally {
+            TransactionSynchronizationManager.unbindResource(dataSource);
+            guarded.release();
+        }
+    }
+
+    private final class GuardedConnection implements InvocationHandler {
+
+        private final Connection target;
+        private final String name;
+        private final StatementGuard guard;
+        private int statements;
+        private boolean inTransaction;
+
+        private GuardedConnection(Connection target, String name, StatementGuard guard) {
+            this.target = target;
+            this.name = name;
+            this.guard = guard;
+        }
+
+        private Connection proxy() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[] {Connection.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "close":
+                    // Released by AutoCommitRead once the callback completes
+                    return null;
+                case "createStatement":
+                case "prepareStatement":
+                case "prepareCall":
+                    onStatement();
+                    break;
+                default:
+                    break;
+            }
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+
+        private void onStatement() throws SQLException {
+            if (++statements < 2) {
+                return;
+            }
+            switch (guard) {
+                case FAIL:
+                    throw new InvalidDataAccessApiUsageException(
+                            "Autocommit read " + name + " issued more than one statement");
+                case UPGRADE:
+                    if (!inTransaction) {
+                        target.setAutoCommit(false);
+                        inTransaction = true;
+                        upgraded.add(name);
+                    }
+                    break;
+                default:
+                    if (statements == 2 && warned.add(name)) {
+                        LOGGER.warn("Autocommit read {} issued more than one statement, consider "
+                                + "a read transaction", name);
+                    }
+            }
+        }
+
+        private void complete(boolean success) {
+            if (!inTransaction) {
+                return;
+            }
+            try {
+                if (success) {
+                    target.commit();
+                } else {
+                    target.rollback();
+                }
+            } catch (SQLException e) {
+                if (success) {
+                    throw new TransactionSystemException("Could not commit upgraded read", e);
+                }
+                LOGGER.debug("Could not roll back upgraded read {}", name, e);
+            }
+        }
+
+        private void release() {
+            try {
+                if (inTransaction) {
+                    target.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                LOGGER.debug("Could not restore autocommit after {}", name, e);
+            } finally {
+                DataSourceUtils.releaseConnection(target, dataSource);
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package io.easytx.service;
+
+public class BatchFailure<T> {
+
+    private final T item;
+    private final RuntimeException exception;
+
+    public BatchFailure(T item, RuntimeException exception) {
+        this.item = item;
+        this.exception = exception;
+    }
+
+    public T getItem() {
+        return item;
+    }
+
+    public RuntimeException getException() {
+        return exception;
+    }
+}
@@ -0,0 +1,40 @@
+package io.easytx.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of {@link TransactionService#writeBatch}: the items that were committed and the ones
+ * that were rolled back to their savepoint, with the exception that made them fail.
+ */
+public class BatchResult<T> {
+
+    private final List<T> succeeded = new ArrayList<>();
+    private final List<BatchFailure<T>> failures = new ArrayList<>();
+
+    void addSucceeded(T item) {
+        succeeded.add(item);
+    }
+
+    void addSucceeded(Collection<T> items) {
+        succeeded.addAll(items);
+    }
+
+    void addFailure(T item, RuntimeException exception) {
+        failures.add(new BatchFailure<>(item, exception));
+    }
+
+    public List<T> getSucceeded() {
+        return Collections.unmodifiableList(succeeded);
+    }
+
+    public List<BatchFailure<T>> getFailures() {
+        return Collections.unmodifiableList(failures);
+    }
+
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+}
@@ -0,0 +1,173 @@
+package io.easytx.service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import org.springframework.dao.DataAccessResourceFailureException;
+import io.easytx.context.TxContext;
+import io.easytx.context.TxContextHolder;
+import io.easytx.context.TxContexts;
+import io.easytx.context.TxExecutors;
+
+/**
+ * Pooled-lo identifier allocator. Blocks of {@code blockSize} ids are reserved with one
+ * {@code nextval} on a sequence whose increment is {@code blockSize}, in a separate write
+ * transaction, and handed out from memory with a CAS counter. Once half of a block is used, the
+ * next one is reserved in the background. Callers with a tenant id in their {@link TxContext} get
+ * blocks of their own, reserved with their context.
+ */
+public class BlockIdGenerator {
+
+    private final Supplier<Long> reserve;
+    private final int blockSize;
+    private final Executor executor;
+    private final Blocks shared = new Blocks();
+    private final Map<String, Blocks> byTenant = new ConcurrentHashMap<>();
+
+    /**
+     * @param reserve returns the first id of a fresh block, typically {@code nextval} of a
+     *        sequence incremented by {@code blockSize}. It runs with the caller's
+     *        {@link TxContext}, also when prefetching.
+     */
+    public BlockIdGenerator(Supplier<Long> reserve, int blockSize) {
+        this(reserve, blockSize, TxExecutors.shared());
+    }
+
+    /** Same as {@link #BlockIdGenerator(Supplier, int)}, prefetching on {@code executor}. */
+    public BlockIdGenerator(Supplier<Long> reserve, int blockSize, Executor executor) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("blockSize must be positive: " + blockSize);
+        }
+        this.reserve = reserve;
+        this.blockSize = blockSize;
+        this.executor = executor;
+    }
+
+    public long next() {
+        return blocks().next();
+    }
+
+    /** Returns {@code count} ids, in one range when they fit in the current block. */
+    public long[] next(int count) {
+        return blocks().next(count);
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    // Every tenant reserves from its own database, so it gets its own blocks
+    private Blocks blocks() {
+        String tenantId = TxContextHolder.current().getTenantId();
+        return tenantId == null ? shared : byTenant.computeIfAbsent(tenantId, t -> new Blocks());
+    }
+
+    private Block reserveBlock() {
+        long start = reserve.get();
+        return new Block(start, start + blockSize);
+    }
+
+    private final class Blocks {
+
+        private final AtomicReference<Block> current = new AtomicReference<>(new Block(0, 0));
+        private final AtomicReference<Prefetch> prefetched = new AtomicReference<>();
+
+        private long next() {
+            for (;;) {
+                Block block = current.get();
+                long id = block.next.getAndIncrement();
+                if (id < block.end) {
+                    if (id == block.prefetchAt) {
+                        prefetch();
+                    }
+                    return id;
+                }
+                advance(block);
+            }
+        }
+
+        private long[] next(int count) {
+            long[] ids = new long[count];
+            int filled = 0;
+            while (filled < count) {
+                Block block = current.get();
+                long first = block.next.getAndAdd(count - filled);
+                if (first >= block.end) {
+                    advance(block);
+                    continue;
+                }
+                long last = Math.min(first + count - filled, block.end);
+                if (first <= block.prefetchAt && block.prefetchAt < last) {
+                    prefetch();
+                }
+                for (long id = first; id < last; id++) {
+                    ids[filled++] = id;
+                }
+            }
+            return ids;
+        }
+
+        private void prefetch() {
+            Prefetch prefetch = new Prefetch();
+            if (prefetched.compareAndSet(null, prefetch)) {
+                TxContexts.runAsync(() -> {
+                    if (!prefetch.started.compareAndSet(false, true)) {
+                        return;
+                    }
+                    try {
+                        prefetch.future.complete(reserveBlock());
+                    } catch (RuntimeException | Error e) {
+                        prefetch.future.completeExceptionally(e);
+                    }
+                }, executor);
+            }
+        }
+
+        // Only threads that find the block exhausted get here, once per block. A prefetch still
+        // queued on the executor is taken over, so the caller never waits behind other tasks.
+        private synchronized void advance(Block exhausted) {
+            if (current.get() != exhausted) {
+                return;
+            }
+            Prefetch prefetch = prefetched.getAndSet(null);
+            Block block = null;
+            if (prefetch != null && !prefetch.started.compareAndSet(false, true)) {
+                try {
+                    block = prefetch.future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new DataAccessResourceFailureException("Interrupted reserving ids", e);
+                } catch (ExecutionException | CompletionException e) {
+                    // The prefetch failed, retry in the caller's thread
+                }
+            }
+            current.set(block != null ? block : reserveBlock());
+        }
+    }
+
+    private static final class Prefetch {
+
+        final AtomicBoolean started = new AtomicBoolean();
+        final CompletableFuture<Block> future = new CompletableFuture<>();
+    }
+
+    private static final class Block {
+
+        final AtomicLong next;
+        final long end;
+        final long prefetchAt;
+
+        Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+            this.prefetchAt = start + (end - start) / 2;
+        }
+    }
+}
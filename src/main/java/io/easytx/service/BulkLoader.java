@@ -0,0 +1,334 @@
+package io.easytx.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.regex.Pattern;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+/**
+ * Loads rows through PostgreSQL {@code COPY FROM STDIN} (text format), or through JDBC batches
+ * on other databases. Rows are encoded straight into one reusable buffer.
+ */
+class BulkLoader {
+
+    private static final int FLUSH_SIZE = 64 * 1024;
+    private static final int BATCH_SIZE = 1000;
+    private static final Pattern TABLE_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_.]*");
+    private static final Pattern COLUMN_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
+    private final String table;
+    private final List<String> columns;
+
+    BulkLoader(String table, List<String> columns) {
+        if (columns.isEmpty()) {
+            throw new IllegalArgumentException("At least one column is required");
+        }
+        if (!TABLE_NAME.matcher(table).matches()) {
+            throw new IllegalArgumentException("Invalid table name: " + table);
+        }
+        for (String column : columns) {
+            if (!COLUMN_NAME.matcher(column).matches()) {
+                throw new IllegalArgumentException("Invalid column name: " + column);
+            }
+        }
+        this.table = table;
+        this.columns = List.copyOf(columns);
+    }
+
+    long load(Connection connection, Iterator<? extends Object[]> rows) throws SQLException {
+        if (connection.isWrapperFor(PGConnection.class)) {
+            return copy(connection.unwrap(PGConnection.class), rows);
+        }
+        return batch(connection, rows);
+    }
+
+    long load(Connection connection, InputStream input) throws SQLException {
+        try {
+            if (connection.isWrapperFor(PGConnection.class)) {
+                return connection.unwrap(PGConnection.class).getCopyAPI().copyIn(copySql(), input,
+                        FLUSH_SIZE);
+            }
+            return batch(connection, new TextRows(input, columns.size()));
+        } catch (IOException e) {
+            throw new DataAccessResourceFailureException("Could not read COPY input", e);
+        }
+    }
+
+    private long copy(PGConnection connection, Iterator<? extends Object[]> rows)
+            throws SQLException {
+        CopyIn copyIn = connection.getCopyAPI().copyIn(copySql());
+        try {
+            RowBuffer buffer = new RowBuffer(FLUSH_SIZE * 2);
+            while (rows.hasNext()) {
+                buffer.encode(rows.next(), columns.size());
+                if (buffer.size() >= FLUSH_SIZE) {
+                    copyIn.writeToCopy(buffer.bytes(), 0, buffer.size());
+                    buffer.reset();
+                }
+            }
+            if (buffer.size() > 0) {
+                copyIn.writeToCopy(buffer.bytes(), 0, buffer.size());
+            }
+            return copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    private long batch(Connection connection, Iterator<? extends Object[]> rows)
+            throws SQLException {
+        long count = 0;
+        try (PreparedStatement statement = connection.prepareStatement(insertSql())) {
+            int pending = 0;
+            while (rows.hasNext()) {
+                Object[] row = rows.next();
+                checkWidth(row, columns.size());
+                for (int i = 0; i < row.length; i++) {
+                    statement.setObject(i + 1, row[i]);
+                }
+                statement.addBatch();
+                if (++pending == BATCH_SIZE) {
+                    statement.executeBatch();
+                    count += pending;
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                statement.executeBatch();
+                count += pending;
+            }
+        }
+        return count;
+    }
+
+    private String copySql() {
+        return "COPY " + table + " (" + String.join(", ", columns) + ") FROM STDIN";
+    }
+
+    private String insertSql() {
+        return "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ("
+                + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+    }
+
+    private static void checkWidth(Object[] row, int width) {
+        if (row.length != width) {
+            throw new IllegalArgumentException(
+                    "Expected " + width + " values per row but got " + row.length);
+        }
+    }
+
+    /** Growable byte buffer that encodes rows in COPY text format. */
+    static final class RowBuffer {
+
+        private static final byte[] NULL = {'\\', 'N'};
+        private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+        private byte[] bytes;
+        private int size;
+
+        RowBuffer(int capacity) {
+            this.bytes = new byte[capacity];
+        }
+
+        void encode(Object[] row, int width) {
+            checkWidth(row, width);
+            for (int i = 0; i < row.length; i++) {
+                if (i > 0) {
+                    put((byte) '\t');
+                }
+                Object value = row[i];
+                if (value == null) {
+                    put(NULL);
+                } else if (value instanceof byte[]) {
+                    putHex((byte[]) value);
+                } else {
+                    putText(value.toString());
+                }
+            }
+            put((byte) '\n');
+        }
+
+        byte[] bytes() {
+            return bytes;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void reset() {
+            size = 0;
+        }
+
+        private void putText(String text) {
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                switch (c) {
+                    case '\\':
+                        put((byte) '\\');
+                        put((byte) '\\');
+                        break;
+                    case '\t':
+                        put((byte) '\\');
+                        put((byte) 't');
+                        break;
+                    case '\n':
+                        put((byte) '\\');
+                        put((byte) 'n');
+                        break;
+                    case '\r':
+                        put((byte) '\\');
+                        put((byte) 'r');
+                        break;
+                    default:
+                        if (c < 0x80) {
+                            put((byte) c);
+                        } else {
+                            i = putUtf8(text, i);
+                        }
+                }
+            }
+        }
+
+        // Encodes the non-ASCII run starting at index and returns the index of its last char
+        private int putUtf8(String text, int index) {
+            int end = index;
+            while (end < text.length() && text.charAt(end) >= 0x80) {
+                end++;
+            }
+            put(text.substring(index, end).getBytes(StandardCharsets.UTF_8));
+            return end - 1;
+        }
+
+        private void putHex(byte[] value) {
+            ensure(3 + value.length * 2);
+            bytes[size++] = '\\';
+            bytes[size++] = '\\';
+            bytes[size++] = 'x';
+            for (byte b : value) {
+                bytes[size++] = (byte) HEX[(b >> 4) & 0xF];
+                bytes[size++] = (byte) HEX[b & 0xF];
+            }
+        }
+
+        private void put(byte b) {
+            ensure(1);
+            bytes[size++] = b;
+        }
+
+        private void put(byte[] value) {
+            ensure(value.length);
+            System.arraycopy(value, 0, bytes, size, value.length);
+            size += value.length;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+    }
+
+    /** Decodes COPY text format lines into rows of strings, for the JDBC fallback. */
+    static final class TextRows implements Iterator<Object[]> {
+
+        private final BufferedReader reader;
+        private final int width;
+        private String next;
+
+        TextRows(InputStream input, int width) throws IOException {
+            this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+            this.width = width;
+            this.next = readLine();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Object[] next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Object[] row = decode(next);
+            try {
+                next = readLine();
+            } catch (IOException e) {
+                throw new DataAccessResourceFailureException("Could not read COPY input", e);
+            }
+            return row;
+        }
+
+        private String readLine() throws IOException {
+            String line = reader.readLine();
+            return line == null || line.equals("\\.") ? null : line;
+        }
+
+        private Object[] decode(String line) {
+            List<Object> values = new ArrayList<>(width);
+            StringBuilder value = new StringBuilder();
+            boolean escaped = false;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (escaped) {
+                    value.append(unescape(c));
+                    escaped = false;
+                } else if (c == '\\') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == 'N' && value.length() == 0
+                            && (i + 2 == line.length() || line.charAt(i + 2) == '\t')) {
+                        values.add(null);
+                        i += 2;
+                        continue;
+                    }
+                    escaped = true;
+                } else if (c == '\t') {
+                    values.add(value.toString());
+                    value.setLength(0);
+                } else {
+                    value.append(c);
+                }
+            }
+            if (values.size() < width) {
+                values.add(value.toString());
+            }
+            return values.toArray();
+        }
+
+        private static char unescape(char c) {
+            switch (c) {
+                case 't':
+                    return '\t';
+                case 'n':
+                    return '\n';
+                case 'r':
+                    return '\r';
+                case 'b':
+                    return '\b';
+                case 'f':
+                    return '\f';
+                case 'v':
+                    return '\u000B';
+                default:
+                    return c;
+            }
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package io.easytx.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import javax.sql.DataSource;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import io.easytx.annotation.TransactionConfiguration;
+import io.easytx.context.TxContextHolder;
+import io.easytx.context.TxContexts;
+import io.easytx.metrics.Metrics;
+import io.easytx.routing.Replicas;
+import io.easytx.routing.RoutingDataSource;
+
+/**
+ * Runs a read on a replica and, if it has not answered within the hedge delay, the same read on
+ * another replica. The first successful attempt wins and the other one is cancelled. First
+ * attempts rotate over the replicas, so they all share the load.
+ * <p>
+ * Hedges are limited by a token bucket: every call earns {@code budget} of a hedge and a hedge
+ * spends a whole one. At most {@value #MAX_BANKED_HEDGES} hedges can be saved up, so a quiet
+ * period does not allow a burst of hedges when a replica fails.
+ * <p>
+ * Without a configured delay, each method hedges at the p95 of its recent first attempts: their
+ * latencies go to an interval histogram, and the cached delay is recomputed at most once per
+ * refresh interval from the samples since the previous update, so it follows load changes.
+ */
+class HedgedRead {
+
+    private static final int MIN_SAMPLES = 20;
+    private static final int MAX_BANKED_HEDGES = 10;
+    private static final long HEDGE_TOKEN = 1_000_000;
+    private static final long REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.HOURS.toMicros(1);
+
+    private final Replicas replicas;
+    private final List<Object> aliases;
+    private final Metrics metrics;
+    private final Admission admission;
+    private final Executor executor;
+    private final long tokensPerCall;
+    private final long defaultDelayNanos;
+    private final long refreshNanos;
+    private final Map<String, Delay> delays = new ConcurrentHashMap<>();
+
+    private final AtomicLong tokens = new AtomicLong();
+    private final AtomicInteger nextPrimary = new AtomicInteger();
+    private final AtomicInteger nextHedge = new AtomicInteger();
+
+    /**
+     * @param aliases DataSources application code reads from, bound to the attempt's connection
+     * @param admission admits each attempt, since every attempt holds a connection
+     * @param executor runs the attempts
+     * @param budget maximum ratio of hedges to hedged calls
+     */
+    HedgedRead(Replicas replicas, List<Object> aliases, Metrics metrics, Admission admission,
+            Executor executor, double budget, long defaultDelayNanos) {
+        this(replicas, aliases, metrics, admission, executor, budget, defaultDelayNanos,
+                REFRESH_NANOS);
+    }
+
+    HedgedRead(Replicas replicas, List<Object> aliases, Metrics metrics, Admission admission,
+            Executor executor, double budget, long defaultDelayNanos, long refreshNanos) {
+        this.replicas = replicas;
+        this.aliases = aliases;
+        this.metrics = metrics;
+        this.admission = admission;
+        this.executor = executor;
+        this.tokensPerCall = Math.round(budget * HEDGE_TOKEN);
+        this.defaultDelayNanos = defaultDelayNanos;
+        this.refreshNanos = refreshNanos;
+    }
+
+    boolean isAvailable() {
+        return replicas.keys().size() > 1;
+    }
+
+    <T> T read(String name, TransactionConfiguration config, Supplier<T> callback) {
+        List<String> keys = replicas.keys();
+        tokens.accumulateAndGet(tokensPerCall,
+                (current, earned) -> Math.min(current + earned, MAX_BANKED_HEDGES * HEDGE_TOKEN));
+        int primaryIndex = Math.floorMod(nextPrimary.getAndIncrement(), keys.size());
+        Delay delay = delays.get(name);
+        if (delay == null) {
+            delay = delays.computeIfAbsent(name, key -> new Delay(defaultDelayNanos));
+        }
+        Attempt<T> primary = start(keys.get(primaryIndex), config, callback);
+        primary.future.whenComplete(delay.recorder(System.nanoTime()));
+        try {
+            return primary.future.get(delayNanos(delay, config), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // Slow replica, hedge below
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            primary.tracker.cancel();
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        if (!tryHedge()) {
+            return await(primary.future, primary, null);
+        }
+        metrics.incrementHedges(name);
+        String hedgeKey = keys.get((primaryIndex + 1
+                + Math.floorMod(nextHedge.getAndIncrement(), keys.size() - 1)) % keys.size());
+        Attempt<T> hedge = start(hedgeKey, config, callback);
+        Attempt<T> winner = await(firstSuccess(primary, hedge), primary, hedge);
+        if (winner == hedge) {
+            metrics.incrementHedgeWins(name);
+            primary.tracker.cancel();
+        } else {
+            hedge.tracker.cancel();
+        }
+        return winner.future.join();
+    }
+
+    private long delayNanos(Delay delay, TransactionConfiguration config) {
+        if (config.getHedgeDelayMillis() >= 0) {
+            return TimeUnit.MILLISECONDS.toNanos(config.getHedgeDelayMillis());
+        }
+        return delay.get(refreshNanos);
+    }
+
+    /** Current adaptive delay of {@code name}, the default until it has enough samples. */
+    long delayNanos(String name) {
+        Delay delay = delays.get(name);
+        return delay != null ? delay.get(refreshNanos) : defaultDelayNanos;
+    }
+
+    private boolean tryHedge() {
+        for (;;) {
+            long current = tokens.get();
+            if (current < HEDGE_TOKEN) {
+                return false;
+            }
+            if (tokens.compareAndSet(current, current - HEDGE_TOKEN)) {
+                return true;
+            }
+        }
+    }
+
+    private <T> Attempt<T> start(String key, TransactionConfiguration config,
+            Supplier<T> callback) {
+        StatementTracker tracker = new StatementTracker(replicas.get(key));
+        TransactionTemplate template =
+                new TransactionTemplate(new DataSourceTransactionManager(tracker));
+        template.setIsolationLevel(config.getIsolation().value());
+        template.setReadOnly(true);
+        CompletableFuture<T> future = TxContexts.supplyAsync(() -> admission.admit(
+                RoutingDataSource.READ, config, () -> TxContextHolder.callWith(
+                        TxContextHolder.current().withRouteKey(key),
+                        () -> TransactionService.withTimeout(template)
+                                .execute(status -> withAliases(aliases, tracker, callback)))),
+                executor);
+        return new Attempt<>(tracker, future);
+    }
+
+    // Application code uses the read DataSource or the routing DataSource, both must resolve to
+    // the transactional connection of dataSource
+    static <T> T withAliases(List<Object> aliases, DataSource dataSource, Supplier<T> callback) {
+        Object holder = TransactionSynchronizationManager.getResource(dataSource);
+        for (Object alias : aliases) {
+            TransactionSynchronizationManager.bindResource(alias, holder);
+        }
+        try {
+            return callback.get();
+        } finally {
+            for (Object alias : aliases) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(alias);
+            }
+        }
+    }
+
+    private static <T> CompletableFuture<Attempt<T>> firstSuccess(Attempt<T> first,
+            Attempt<T> second) {
+        CompletableFuture<Attempt<T>> winner = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        for (Attempt<T> attempt : List.of(first, second)) {
+            attempt.future.whenComplete((result, error) -> {
+                if (error == null) {
+                    winner.complete(attempt);
+                } else if (failures.incrementAndGet() == 2) {
+                    winner.completeExceptionally(error);
+                }
+            });
+        }
+        return winner;
+    }
+
+    private static <R> R await(CompletableFuture<R> future, Attempt<?> primary, Attempt<?> hedge) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            primary.tracker.cancel();
+            if (hedge != null) {
+                hedge.tracker.cancel();
+            }
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static RuntimeException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new RuntimeException(cause);
+    }
+
+    // p95 of the latest first attempts, cached between refreshes
+    private static final class Delay {
+
+        private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MICROS, 2);
+        private final AtomicLong nextRefresh = new AtomicLong(System.nanoTime());
+        private final Histogram window = new Histogram(HIGHEST_TRACKABLE_MICROS, 2);
+        private Histogram interval;
+        private volatile long delayNanos;
+
+        private Delay(long defaultDelayNanos) {
+            this.delayNanos = defaultDelayNanos;
+        }
+
+        private <T> BiConsumer<T, Throwable> recorder(long start) {
+            return (result, error) -> {
+                if (error == null) {
+                    long micros = (System.nanoTime() - start) / 1_000;
+                    recorder.recordValue(Math.max(1, Math.min(HIGHEST_TRACKABLE_MICROS, micros)));
+                }
+            };
+        }
+
+        private long get(long refreshNanos) {
+            long now = System.nanoTime();
+            long at = nextRefresh.get();
+            if (now - at >= 0 && nextRefresh.compareAndSet(at, now + refreshNanos)) {
+                refresh();
+            }
+            return delayNanos;
+        }
+
+        // Only the thread that won the refresh gets here; a quiet method keeps collecting
+        // samples over several intervals before its delay moves
+        private void refresh() {
+            interval = recorder.getIntervalHistogram(interval);
+            window.add(interval);
+            if (window.getTotalCount() >= MIN_SAMPLES) {
+                delayNanos = TimeUnit.MICROSECONDS.toNanos(window.getValueAtPercentile(95));
+                window.reset();
+            }
+        }
+    }
+
+    private static final class Attempt<T> {
+
+        private final StatementTracker tracker;
+        private final CompletableFuture<T> future;
+
+        private Attempt(StatementTracker tracker, CompletableFuture<T> future) {
+            this.tracker = tracker;
+            this.future = future;
+        }
+    }
+}
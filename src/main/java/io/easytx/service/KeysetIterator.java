@@ -0,0 +1,98 @@
+package io.easytx.service;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import io.easytx.context.TxContexts;
+
+/**
+ * Lazy iterator over a keyset-paginated query, see {@link TransactionService#readPages}.
+ * Pages are read on demand, each in its own transaction; with prefetching the next page is read
+ * in the background, with the context of the caller that advanced, while the current one is
+ * consumed. {@link #close()} drops a pending prefetch.
+ */
+public class KeysetIterator<T> implements Iterator<T>, AutoCloseable {
+
+    private final PageReader<T> reader;
+    private final boolean prefetch;
+    private final Executor executor;
+    private Page<T> page;
+    private int position;
+    private CompletableFuture<Page<T>> next;
+    private boolean closed;
+
+    KeysetIterator(PageReader<T> reader, boolean prefetch, Executor executor) {
+        this.reader = reader;
+        this.prefetch = prefetch;
+        this.executor = executor;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!closed && (page == null || position == page.rows.size())) {
+            if (page != null && page.last) {
+                return false;
+            }
+            advance();
+        }
+        return !closed;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.rows.get(position++);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (next != null) {
+            next.cancel(false);
+            next = null;
+        }
+    }
+
+    private void advance() {
+        if (next != null) {
+            try {
+                page = next.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause()
+                        : e;
+            } finally {
+                next = null;
+            }
+        } else {
+            page = page == null ? reader.read(null, true) : reader.read(page.lastKey, false);
+        }
+        position = 0;
+        if (prefetch && !page.last) {
+            Page<T> current = page;
+            next = TxContexts.supplyAsync(() -> reader.read(current.lastKey, false), executor);
+        }
+    }
+
+    @FunctionalInterface
+    interface PageReader<T> {
+        Page<T> read(Object afterKey, boolean first);
+    }
+
+    static final class Page<T> {
+
+        private final List<T> rows;
+        private final Object lastKey;
+        private final boolean last;
+
+        Page(List<T> rows, Object lastKey, boolean last) {
+            this.rows = rows;
+            this.lastKey = lastKey;
+            this.last = last;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package io.easytx.service;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import io.easytx.annotation.TransactionConfiguration;
+import io.easytx.context.TxContextHolder;
+import io.easytx.context.TxContexts;
+import io.easytx.routing.Replicas;
+import io.easytx.routing.RoutingDataSource;
+
+/**
+ * Runs the partitions of a read in parallel, each in its own read-only transaction. Every read
+ * target gets up to {@code maxPerReplica} workers that take the next pending partition until
+ * none is left, so faster replicas serve more partitions. The limit is shared by all partitioned
+ * reads on a replica. A failing partition cancels the running ones.
+ */
+class PartitionedRead {
+
+    private static final int MERGE_CAPACITY = 1024;
+    private static final long POLL_MILLIS = 50;
+    private static final Object NULL_ROW = new Object();
+
+    private final Replicas replicas;
+    private final DataSource readDataSource;
+    private final List<Object> aliases;
+    private final int maxPerReplica;
+    private final Admission admission;
+    private final Executor executor;
+    private final Map<String, Semaphore> permits = new ConcurrentHashMap<>();
+
+    /**
+     * @param replicas read targets, or null to run every partition on {@code readDataSource}
+     * @param aliases DataSources application code reads from, bound to the partition's connection
+     * @param admission admits each partition, since every partition holds a connection
+     * @param executor runs the workers, which block while the consumer is behind, so it must not
+     *        be bounded or shared with short tasks
+     */
+    PartitionedRead(Replicas replicas, DataSource readDataSource, List<Object> aliases,
+            int maxPerReplica, Admission admission, Executor executor) {
+        if (maxPerReplica < 1) {
+            throw new IllegalArgumentException("maxPerReplica must be positive: " + maxPerReplica);
+        }
+        this.replicas = replicas;
+        this.readDataSource = readDataSource;
+        this.aliases = aliases;
+        this.maxPerReplica = maxPerReplica;
+        this.admission = admission;
+        this.executor = executor;
+    }
+
+    /** Reads every partition, returning the number of rows once all partitions ended. */
+    <T> long forEach(int count, TransactionConfiguration config, PartitionReader<T> reader,
+            ObjIntConsumer<T> consumer) {
+        Run run = new Run(count);
+        launch(run, config, partition -> reader.read(partition,
+                row -> consumer.accept(row, partition)));
+        try {
+            run.done.await();
+        } catch (InterruptedException e) {
+            run.cancel();
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        run.rethrow();
+        return run.rows.sum();
+    }
+
+    /**
+     * Reads every partition into one stream, closing it cancels the running partitions and passes
+     * the error of a failed partition, or null, to {@code end}.
+     */
+    <T> Stream<T> stream(int count, TransactionConfiguration config, PartitionReader<T> reader,
+            Consumer<Throwable> end) {
+        Run run = new Run(count);
+        Merge<T> merge = new Merge<>(run);
+        launch(run, config, partition -> reader.read(partition, merge::put));
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merge, 0), false)
+                .onClose(() -> {
+                    Throwable error = run.failure.get();
+                    run.cancel();
+                    end.accept(error);
+                });
+    }
+
+    // Spreads the workers over the targets first, then adds more per target up to the limit
+    private void launch(Run run, TransactionConfiguration config, PartitionWork work) {
+        List<String> keys = replicas != null ? replicas.keys() : List.of(RoutingDataSource.READ);
+        int workers = Math.min(run.count, keys.size() * maxPerReplica);
+        run.done = new CountDownLatch(workers);
+        for (int i = 0; i < workers; i++) {
+            String key = keys.get(i % keys.size());
+            TxContexts.runAsync(() -> work(run, key, config, work), executor);
+        }
+    }
+
+    private void work(Run run, String key, TransactionConfiguration config, PartitionWork work) {
+        Semaphore limit = permits.computeIfAbsent(key, k -> new Semaphore(maxPerReplica));
+        StatementTracker tracker =
+                new StatementTracker(replicas != null ? replicas.get(key) : readDataSource);
+        run.trackers.add(tracker);
+        TransactionTemplate template =
+                new TransactionTemplate(new DataSourceTransactionManager(tracker));
+        template.setIsolationLevel(config.getIsolation().value());
+        template.setReadOnly(true);
+        try {
+            int partition;
+            while ((partition = run.next.getAndIncrement()) < run.count && !run.isFailed()) {
+                limit.acquire();
+                try {
+                    int current = partition;
+                    run.rows.add(admission.admit(RoutingDataSource.READ, config,
+                            () -> TxContextHolder.callWith(
+                                    TxContextHolder.current().withRouteKey(key),
+                                    () -> TransactionService.withTimeout(template).execute(
+                                            status -> HedgedRead.withAliases(aliases, tracker,
+                                                    () -> work.read(current))))));
+                } finally {
+                    limit.release();
+                }
+            }
+        } catch (InterruptedException e) {
+            run.fail(new CancellationException("Partitioned read interrupted"));
+        } catch (RuntimeException | Error e) {
+            run.fail(e);
+        } finally {
+            run.done.countDown();
+        }
+    }
+
+    /** Reads one partition, passing its rows to {@code sink}, and returns their number. */
+    @FunctionalInterface
+    interface PartitionReader<T> {
+        long read(int partition, Consumer<T> sink);
+    }
+
+    @FunctionalInterface
+    private interface PartitionWork {
+        long read(int partition);
+    }
+
+    private static final class Run {
+
+        private final int count;
+        private final AtomicInteger next = new AtomicInteger();
+        private final LongAdder rows = new LongAdder();
+        private final Queue<StatementTracker> trackers = new ConcurrentLinkedQueue<>();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private volatile CountDownLatch done;
+
+        private Run(int count) {
+            this.count = count;
+        }
+
+        private boolean isFailed() {
+            return failure.get() != null;
+        }
+
+        private boolean isFinished() {
+            return done.getCount() == 0;
+        }
+
+        private void fail(Throwable error) {
+            if (failure.compareAndSet(null, error)) {
+                trackers.forEach(StatementTracker::cancel);
+            }
+        }
+
+        private void cancel() {
+            fail(new CancellationException("Partitioned read closed"));
+        }
+
+        private void rethrow() {
+            Throwable error = failure.get();
+            if (error instanceof RuntimeException) {
+                throw (RuntimeException) error;
+            }
+            if (error instanceof Error) {
+                throw (Error) error;
+            }
+        }
+    }
+
+    // Bounded hand-off from the partition workers to the stream consumer
+    private static final class Merge<T> implements Iterator<T> {
+
+        private final Run run;
+        private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(MERGE_CAPACITY);
+        private Object next;
+
+        private Merge(Run run) {
+            this.run = run;
+        }
+
+        private void put(T row) {
+            try {
+                while (!queue.offer(row != null ? row : NULL_ROW, POLL_MILLIS,
+                        TimeUnit.MILLISECONDS)) {
+                    if (run.isFailed()) {
+                        throw new CancellationException("Partitioned read closed");
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Partitioned read interrupted");
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (next == null) {
+                    run.rethrow();
+                    next = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (next == null && run.isFinished()) {
+                        next = queue.poll();
+                        if (next == null) {
+                            run.rethrow();
+                            return false;
+                        }
+                    }
+                }
+                return true;
+            } catch (InterruptedException e) {
+                run.cancel();
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Object row = next;
+            next = null;
+            return row == NULL_ROW ? null : (T) row;
+        }
+    }
+}
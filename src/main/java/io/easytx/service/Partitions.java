@@ -0,0 +1,80 @@
+package io.easytx.service;
+
+import java.util.regex.Pattern;
+
+/**
+ * Split of a query into partitions on a numeric key column, either contiguous key ranges or hash
+ * buckets, for {@link TransactionService#readPartitioned}.
+ */
+public final class Partitions {
+
+    private static final Pattern COLUMN_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
+    private final String keyColumn;
+    private final long from;
+    private final long to;
+    private final int count;
+    private final boolean hash;
+
+    private Partitions(String keyColumn, long from, long to, int count, boolean hash) {
+        if (!COLUMN_NAME.matcher(keyColumn).matches()) {
+            throw new IllegalArgumentException("Invalid key column: " + keyColumn);
+        }
+        if (count < 1) {
+            throw new IllegalArgumentException("Partition count must be positive: " + count);
+        }
+        this.keyColumn = keyColumn;
+        this.from = from;
+        this.to = to;
+        this.count = count;
+        this.hash = hash;
+    }
+
+    /**
+     * Splits keys from {@code from} (inclusive) to {@code to} (exclusive) into {@code count}
+     * ranges of equal width. Rows outside the range are not read.
+     */
+    public static Partitions range(String keyColumn, long from, long to, int count) {
+        if (to <= from) {
+            throw new IllegalArgumentException("Empty key range: " + from + ".." + to);
+        }
+        return new Partitions(keyColumn, from, to, (int) Math.min(count, to - from), false);
+    }
+
+    /**
+     * Splits rows into {@code buckets} by the key modulo {@code buckets}, negative keys included.
+     * The bucket predicate cannot use an index, so every bucket scans the whole query: prefer
+     * {@link #range} unless the query is cheap to scan or the keys are too sparse for ranges.
+     */
+    public static Partitions hash(String keyColumn, int buckets) {
+        return new Partitions(keyColumn, 0, 0, buckets, true);
+    }
+
+    public int count() {
+        return count;
+    }
+
+    String predicate() {
+        // No ABS, which overflows on the smallest key
+        return hash ? "MOD(MOD(" + keyColumn + ", ?) + ?, ?) = ?"
+                : keyColumn + " >= ? AND " + keyColumn + " < ?";
+    }
+
+    Object[] bounds(int partition) {
+        if (hash) {
+            return new Object[] {count, count, count, partition};
+        }
+        return new Object[] {lower(partition), partition == count - 1 ? to : lower(partition + 1)};
+    }
+
+    private long lower(int partition) {
+        long span = to - from;
+        return from + span / count * partition + Math.min(partition, span % count);
+    }
+
+    @Override
+    public String toString() {
+        return hash ? "hash(" + keyColumn + ", " + count + ")"
+                : "range(" + keyColumn + ", " + from + ", " + to + ", " + count + ")";
+    }
+}
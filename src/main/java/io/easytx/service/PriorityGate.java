@@ -0,0 +1,149 @@
+package io.easytx.service;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import io.easytx.annotation.Priority;
+
+/**
+ * Admission control for the transactions of one route. Each {@link Priority} has a reserved and
+ * a maximum share of the route's capacity: capacity reserved by a class is never used by the
+ * others, and waiting callers are admitted in priority order, FIFO within a class.
+ */
+public class PriorityGate {
+
+    private static final Priority[] PRIORITIES = Priority.values();
+
+    private final int capacity;
+    private final int[] reserved = new int[PRIORITIES.length];
+    private final int[] max = new int[PRIORITIES.length];
+    private final int[] inUse = new int[PRIORITIES.length];
+    private final int[] waiting = new int[PRIORITIES.length];
+    private int total;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition[] turns = new Condition[PRIORITIES.length];
+
+    public PriorityGate(int capacity, double[] reservedShares, double[] maxShares) {
+        this.capacity = capacity;
+        for (int i = 0; i < PRIORITIES.length; i++) {
+            reserved[i] = (int) Math.floor(reservedShares[i] * capacity);
+            max[i] = Math.max(1, (int) Math.floor(maxShares[i] * capacity));
+            turns[i] = lock.newCondition();
+        }
+        int reservedTotal = 0;
+        for (int share : reserved) {
+            reservedTotal += share;
+        }
+        if (reservedTotal > capacity) {
+            throw new IllegalArgumentException("Reserved shares exceed the route capacity");
+        }
+    }
+
+    /**
+     * Parses shares written as {@code class:reserved:max} separated by commas, for example
+     * {@code critical:0.2:1.0,normal:0:1.0,background:0:0.5}. Missing classes get no
+     * reservation and the whole capacity as maximum.
+     */
+    public static PriorityGate parse(int capacity, String shares) {
+        double[] reservedShares = new double[PRIORITIES.length];
+        double[] maxShares = new double[PRIORITIES.length];
+        Arrays.fill(maxShares, 1.0);
+        for (String share : shares.split(",")) {
+            String[] parts = share.trim().split(":");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Invalid priority share: " + share);
+            }
+            int index = Priority.valueOf(parts[0].trim().toUpperCase(Locale.ROOT)).ordinal();
+            reservedShares[index] = Double.parseDouble(parts[1].trim());
+            maxShares[index] = Double.parseDouble(parts[2].trim());
+        }
+        return new PriorityGate(capacity, reservedShares, maxShares);
+    }
+
+    /** Waits for capacity and returns the time waited, in nanoseconds. */
+    long acquire(Priority priority, long maxWaitNanos) {
+        int index = priority.ordinal();
+        long start = System.nanoTime();
+        lock.lock();
+        try {
+            waiting[index]++;
+            boolean admitted = false;
+            try {
+                long remaining = maxWaitNanos;
+                while (!admissible(index)) {
+                    if (remaining <= 0) {
+                        throw new CannotGetJdbcConnectionException("No " + priority
+                                + " capacity available within "
+                                + TimeUnit.NANOSECONDS.toMillis(maxWaitNanos) + "ms");
+                    }
+                    remaining = turns[index].awaitNanos(remaining);
+                }
+                admitted = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CannotGetJdbcConnectionException(
+                        "Interrupted while waiting for " + priority + " capacity");
+            } finally {
+                waiting[index]--;
+                if (!admitted) {
+                    signalNext();
+                }
+            }
+            inUse[index]++;
+            total++;
+            return System.nanoTime() - start;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void release(Priority priority) {
+        lock.lock();
+        try {
+            inUse[priority.ordinal()]--;
+            total--;
+            signalNext();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean admissible(int index) {
+        if (!fits(index)) {
+            return false;
+        }
+        for (int higher = 0; higher < index; higher++) {
+            if (waiting[higher] > 0 && fits(higher)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Within the class maximum, leaving the unused reservations of the other classes free
+    private boolean fits(int index) {
+        if (inUse[index] >= max[index]) {
+            return false;
+        }
+        int heldForOthers = 0;
+        for (int other = 0; other < PRIORITIES.length; other++) {
+            if (other != index) {
+                heldForOthers += Math.max(0, reserved[other] - inUse[other]);
+            }
+        }
+        return total + heldForOthers < capacity;
+    }
+
+    private void signalNext() {
+        for (int index = 0; index < PRIORITIES.length; index++) {
+            if (waiting[index] > 0 && fits(index)) {
+                turns[index].signal();
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package io.easytx.service;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import io.easytx.context.TxContext;
+import io.easytx.context.TxContextHolder;
+import io.easytx.metrics.Metrics;
+
+/**
+ * Coalesces concurrent calls with equal keys into one execution. Only in-flight executions are
+ * tracked: the entry is removed as soon as the leader finishes. The caller's tenant and route key
+ * are part of the key, so calls that would read different data never share a result.
+ */
+class SingleFlight {
+
+    private final ConcurrentMap<Key, CompletableFuture<Object>> inFlight =
+            new ConcurrentHashMap<>();
+    private final Metrics metrics;
+
+    SingleFlight(Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    Object call(Object target, String method, Object[] args, long timeoutMillis,
+            Supplier<Object> call) {
+        Key key = new Key(target, method, args, TxContextHolder.current());
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(key, flight);
+        if (leader == null) {
+            return lead(key, flight, call);
+        }
+        metrics.incrementCoalesced(method);
+        try {
+            return leader.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            metrics.incrementCoalesceTimeouts(method);
+            return call.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    private Object lead(Key key, CompletableFuture<Object> flight, Supplier<Object> call) {
+        try {
+            Object result = call.get();
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private static final class Key {
+
+        private final Object target;
+        private final String method;
+        private final Object[] args;
+        private final String tenantId;
+        private final String routeKey;
+        private final int hash;
+
+        private Key(Object target, String method, Object[] args, TxContext context) {
+            this.target = target;
+            this.method = method;
+            this.args = args;
+            this.tenantId = context.getTenantId();
+            this.routeKey = context.getRouteKey();
+            this.hash = 31 * (31 * (31 * System.identityHashCode(target) + method.hashCode())
+                    + Arrays.deepHashCode(args)) + Objects.hash(tenantId, routeKey);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return target == key.target && method.equals(key.method)
+                    && Arrays.deepEquals(args, key.args) && Objects.equals(tenantId, key.tenantId)
+                    && Objects.equals(routeKey, key.routeKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package io.easytx.service;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * DataSource that remembers the statements created on its connections so that another thread
+ * can {@link #cancel()} them. Once cancelled, new statements are rejected.
+ */
+class StatementTracker extends DelegatingDataSource {
+
+    private final Queue<Statement> statements = new ConcurrentLinkedQueue<>();
+    private volatile boolean cancelled;
+
+    StatementTracker(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return track(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return track(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    void cancel() {
+        cancelled = true;
+        for (Statement statement : statements) {
+            try {
+                statement.cancel();
+            } catch (SQLException e) {
+                // Already completed or closed
+            }
+        }
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    private Connection track(Connection target) {
+        InvocationHandler handler = (proxy, method, args) -> invoke(target, proxy, method, args);
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, handler);
+    }
+
+    private Object invoke(Connection target, Object proxy, Method method, Object[] args)
+            throws Throwable {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                break;
+        }
+        Object result;
+        try {
+            result = method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+        if (result instanceof Statement) {
+            if (cancelled) {
+                ((Statement) result).close();
+                throw new SQLException("Hedged read cancelled");
+            }
+            statements.add((Statement) result);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,60 @@
+package io.easytx.service;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * Micrometer {@link Observation} of one easyTx transaction. It is opened in scope, so that
+ * observations started inside the transaction (nested transactions included) are its children.
+ * Reads that outlive the call, such as streams, are not opened in scope: they end on whichever
+ * thread closes them.
+ */
+final class TransactionObservation {
+
+    static final String NAME = "easytx.transaction";
+
+    private final Observation observation;
+    private final Observation.Scope scope;
+
+    private TransactionObservation(Observation observation, boolean scoped) {
+        this.observation = observation;
+        this.scope = scoped ? observation.openScope() : null;
+    }
+
+    static TransactionObservation start(ObservationRegistry registry, String route, String name,
+            boolean readOnly) {
+        return new TransactionObservation(started(registry, route, name, readOnly), true);
+    }
+
+    static TransactionObservation startUnscoped(ObservationRegistry registry, String route,
+            String name, boolean readOnly) {
+        return new TransactionObservation(started(registry, route, name, readOnly), false);
+    }
+
+    private static Observation started(ObservationRegistry registry, String route, String name,
+            boolean readOnly) {
+        return Observation.createNotStarted(NAME, registry)
+                .contextualName((readOnly ? "read " : "write ") + route)
+                .lowCardinalityKeyValue("route", route)
+                .lowCardinalityKeyValue("type", readOnly ? "read" : "write")
+                .highCardinalityKeyValue("method", name)
+                .start();
+    }
+
+    void succeeded() {
+        stop("success");
+    }
+
+    void failed(Throwable error) {
+        observation.error(error);
+        stop("error");
+    }
+
+    private void stop(String outcome) {
+        observation.lowCardinalityKeyValue("outcome", outcome);
+        if (scope != null) {
+            scope.close();
+        }
+        observation.stop();
+    }
+}
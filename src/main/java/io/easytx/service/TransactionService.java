@@ -1,71 +1,769 @@
 package io.easytx.service;
 
+import java.io.InputStream;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
 import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import javax.sql.DataSource;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.TransactionTimedOutException;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.support.ResourceHolderSupport;
+import org.springframework.transaction.support.ResourceTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
 import org.springframework.transaction.support.TransactionTemplate;
+import io.easytx.annotation.Priority;
 import io.easytx.annotation.TransactionConfiguration;
+import io.easytx.context.Deadline;
+import io.easytx.context.TxContext;
+import io.easytx.context.TxContextHolder;
+import io.easytx.context.TxExecutors;
+import io.easytx.jdbc.ColumnType;
+import io.easytx.jdbc.ColumnarExtractor;
+import io.easytx.jdbc.Columns;
+import io.easytx.jfr.TransactionEvent;
+import io.easytx.metrics.Metrics;
+import io.easytx.metrics.TxStatistics;
+import io.easytx.routing.Replicas;
+import io.micrometer.observation.ObservationRegistry;
 
 @Service
 public class TransactionService {
 
-    private final TransactionTemplate writeTransactionTemplate;
-    private final TransactionTemplate readTransactionTemplate;
+    private static final String WRITE = "write";
+    private static final String READ = "read";
+    private static final int COLUMNAR_FETCH_SIZE = 10_000;
+    private static final int PARTITION_FETCH_SIZE = 1_000;
+    private static final int DEFAULT_PARTITIONS_PER_REPLICA = 4;
+    private static final StackWalker STACK = StackWalker.getInstance();
+    private static final Pattern SEQUENCE_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_.]*");
+    private static final Pattern COLUMN_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
+    private final PlatformTransactionManager writeTxManager;
+    private final PlatformTransactionManager readTxManager;
 
     private final JdbcTemplate writeTemplate;
     private final JdbcTemplate readTemplate;
 
+    private final TxStatistics statistics;
+    private final Metrics metrics;
+    private final AutoCommitRead autoCommitRead;
+    private final SingleFlight singleFlight;
+    private final Map<Class<?>, String> callerNames = new ConcurrentHashMap<>();
+    private volatile Executor executor = TxExecutors.shared();
+    private final Executor background = task -> executor.execute(task);
+    private volatile Executor scanExecutor = TxExecutors.sharedScans();
+    private final Executor scans = task -> scanExecutor.execute(task);
+    private volatile HedgedRead hedgedRead;
+    private volatile PartitionedRead partitionedRead;
+    private volatile Map<String, PriorityGate> priorityGates = Map.of();
+    private volatile long priorityMaxWaitNanos;
+    private volatile ObservationRegistry observationRegistry;
+
     public TransactionService(PlatformTransactionManager writeTxManager,
             PlatformTransactionManager readTxManager, JdbcTemplate writeTemplate,
             JdbcTemplate readTemplate) {
+        this(writeTxManager, readTxManager, writeTemplate, readTemplate, new TxStatistics());
+    }
+
+    public TransactionService(PlatformTransactionManager writeTxManager,
+            PlatformTransactionManager readTxManager, JdbcTemplate writeTemplate,
+            JdbcTemplate readTemplate, TxStatistics statistics) {
+        this(writeTxManager, readTxManager, writeTemplate, readTemplate, statistics,
+                new Metrics(null));
+    }
+
+    public TransactionService(PlatformTransactionManager writeTxManager,
+            PlatformTransactionManager readTxManager, JdbcTemplate writeTemplate,
+            JdbcTemplate readTemplate, TxStatistics statistics, Metrics metrics) {
 
-        this.writeTransactionTemplate = new TransactionTemplate(writeTxManager);
-        this.readTransactionTemplate = new TransactionTemplate(readTxManager);
+        this.writeTxManager = writeTxManager;
+        this.readTxManager = readTxManager;
 
         this.writeTemplate = writeTemplate;
         this.readTemplate = readTemplate;
+
+        this.statistics = statistics;
+        this.metrics = metrics;
+        this.autoCommitRead = autoCommitRead(readTxManager);
+        this.singleFlight = new SingleFlight(metrics);
+        this.partitionedRead = new PartitionedRead(null, readTemplate.getDataSource(),
+                readAliases(null), DEFAULT_PARTITIONS_PER_REPLICA, this::admitted, scans);
+    }
+
+    public TxStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Runs hedge attempts, keyset page and id block prefetches on {@code executor} instead of
+     * {@link TxExecutors#shared()}.
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Runs the partitions of {@link #readPartitioned} and {@link #streamPartitioned} on
+     * {@code scanExecutor} instead of {@link TxExecutors#sharedScans()}. Its threads block while
+     * consumers are behind, so it should not be bounded below the partitions run at once.
+     */
+    public void setScanExecutor(Executor scanExecutor) {
+        this.scanExecutor = scanExecutor;
+    }
+
+    /**
+     * Reports every transaction, programmatic or annotated, as an {@code easytx.transaction}
+     * observation with {@code route}, {@code type} and {@code outcome} low-cardinality keys and
+     * a {@code method} high-cardinality key. A no-op registry adds no overhead.
+     */
+    public void enableObservations(ObservationRegistry observationRegistry) {
+        this.observationRegistry = observationRegistry;
+    }
+
+    /**
+     * Admits new transactions on each route through its {@link PriorityGate}, according to
+     * {@link TransactionConfiguration#getPriority()}. Callers wait at most {@code maxWait}, or
+     * until their deadline.
+     */
+    public void enablePriorities(PriorityGate write, PriorityGate read, Duration maxWait) {
+        this.priorityMaxWaitNanos = maxWait.toNanos();
+        this.priorityGates = Map.of(WRITE, write, READ, read);
+    }
+
+    /**
+     * Enables {@link #readHedged(Supplier, TransactionConfiguration)} across {@code replicas}.
+     * Every hedged read earns {@code budget} (a ratio) of a second attempt, and only a few unused
+     * attempts are kept; methods without enough recent samples hedge after
+     * {@code defaultDelay}.
+     */
+    public void enableHedging(Replicas replicas, double budget, Duration defaultDelay) {
+        this.hedgedRead = new HedgedRead(replicas, readAliases(replicas), metrics,
+                this::admitted, background, budget, defaultDelay.toNanos());
+    }
+
+    /**
+     * Spreads the partitions of {@link #readPartitioned} over {@code replicas}, with at most
+     * {@code maxPerReplica} partitions running on each replica at a time. Without this, or with
+     * null {@code replicas}, partitions run on the read route,
+     * {@value #DEFAULT_PARTITIONS_PER_REPLICA} at a time.
+     */
+    public void enablePartitionedReads(Replicas replicas, int maxPerReplica) {
+        this.partitionedRead = new PartitionedRead(replicas, readTemplate.getDataSource(),
+                readAliases(replicas), maxPerReplica, this::admitted, scans);
+    }
+
+    // DataSources that must resolve to the connection of a read run on a pool thread
+    private List<Object> readAliases(Replicas replicas) {
+        List<Object> aliases = new ArrayList<>();
+        if (replicas != null) {
+            aliases.add(replicas.getRoutingDataSource());
+        }
+        if (readTxManager instanceof ResourceTransactionManager) {
+            aliases.add(((ResourceTransactionManager) readTxManager).getResourceFactory());
+        }
+        DataSource readDataSource = readTemplate.getDataSource();
+        if (readDataSource != null && !aliases.contains(readDataSource)) {
+            aliases.add(readDataSource);
+        }
+        return aliases;
     }
 
     // Transacción de escritura, con commit/rollback
     public <T> T write(Supplier<T> callback) {
-        configureWriteTransaction(defaultConfig());
-        return writeTransactionTemplate.execute(status -> callback.get());
+        return write(callback, defaultConfig());
     }
 
     public <T> T write(Supplier<T> callback, TransactionConfiguration configuration) {
-        configureWriteTransaction(configuration);
-        return writeTransactionTemplate.execute(status -> callback.get());
+        TransactionConfiguration config = orDefault(configuration);
+        if (joins(WRITE, writeTxManager, config)) {
+            return join(WRITE, writeTxManager, config, nameOf(config, callback), false, callback);
+        }
+        return execute(WRITE, writeTransaction(config), config, nameOf(config, callback), false,
+                status -> callback.get());
+    }
+
+    /**
+     * Runs {@code action} for every item inside a single write transaction, each item under its
+     * own savepoint. Failing items are rolled back to their savepoint and reported, the rest
+     * commit together.
+     */
+    public <T> BatchResult<T> writeBatch(Collection<T> items, Consumer<T> action) {
+        return writeBatch(items, action, 1, defaultConfig());
+    }
+
+    /**
+     * Same as {@link #writeBatch(Collection, Consumer)}, with one savepoint per group of
+     * {@code groupSize} items. A failing group is rolled back and replayed item by item to isolate
+     * the failing items.
+     */
+    public <T> BatchResult<T> writeBatch(Collection<T> items, Consumer<T> action, int groupSize) {
+        return writeBatch(items, action, groupSize, defaultConfig());
+    }
+
+    public <T> BatchResult<T> writeBatch(Collection<T> items, Consumer<T> action, int groupSize,
+            TransactionConfiguration configuration) {
+        TransactionConfiguration config = orDefault(configuration);
+        return execute(WRITE, writeTransaction(config), config, nameOf(config, action), false,
+                status -> runBatch(status, items, action, Math.max(1, groupSize)));
+    }
+
+    /**
+     * Streams {@code rows} into {@code table} inside a write transaction, through
+     * {@code COPY FROM STDIN} on PostgreSQL and JDBC batches elsewhere. Each row holds one value
+     * per column. Returns the number of loaded rows. {@code table}, optionally schema-qualified,
+     * and {@code columns} must be plain identifiers, they are not quoted.
+     */
+    public long bulkLoad(String table, List<String> columns, Iterator<? extends Object[]> rows) {
+        BulkLoader loader = new BulkLoader(table, columns);
+        return bulkLoad(table, con -> loader.load(con, rows));
+    }
+
+    /**
+     * Same as {@link #bulkLoad(String, List, Iterator)}, reading rows in {@code COPY} text format
+     * (tab separated, {@code \N} for null) from {@code input}.
+     */
+    public long bulkLoad(String table, List<String> columns, InputStream input) {
+        BulkLoader loader = new BulkLoader(table, columns);
+        return bulkLoad(table, con -> loader.load(con, input));
+    }
+
+    private long bulkLoad(String table, ConnectionCallback<Long> load) {
+        TransactionConfiguration config = defaultConfig();
+        long start = System.nanoTime();
+        long rows = execute(WRITE, writeTransaction(config), config, "bulkLoad:" + table, false,
+                status -> writeTemplate.execute(load));
+        metrics.recordBulkLoad(table, rows, System.nanoTime() - start);
+        return rows;
+    }
+
+    /**
+     * Creates a {@link BlockIdGenerator} reserving blocks of {@code blockSize} ids from
+     * {@code sequence} on the write route, in their own transaction. The sequence must be
+     * incremented by {@code blockSize}.
+     */
+    public BlockIdGenerator idGenerator(String sequence, int blockSize) {
+        if (!SEQUENCE_NAME.matcher(sequence).matches()) {
+            throw new IllegalArgumentException("Invalid sequence name: " + sequence);
+        }
+        String sql = "SELECT nextval('" + sequence + "')";
+        TransactionConfiguration config =
+                new TransactionConfiguration(Propagation.REQUIRES_NEW, Isolation.DEFAULT);
+        config.setName("idBlock:" + sequence);
+        return new BlockIdGenerator(
+                () -> write(() -> writeTemplate.queryForObject(sql, Long.class), config),
+                blockSize, background);
     }
 
     // Transacción de solo lectura, readOnly=true
     public <T> T read(Supplier<T> callback) {
-        configureReadTransaction(defaultConfig());
-        return readTransactionTemplate.execute(status -> callback.get());
+        return read(callback, defaultConfig());
     }
 
     public <T> T read(Supplier<T> callback, TransactionConfiguration configuration) {
-        configureReadTransaction(configuration);
-        return writeTransactionTemplate.execute(status -> callback.get());
+        TransactionConfiguration config = orDefault(configuration);
+        if (joins(READ, readTxManager, config)) {
+            return join(READ, readTxManager, config, nameOf(config, callback), true, callback);
+        }
+        return execute(READ, readTransaction(config), config, nameOf(config, callback), true,
+                status -> callback.get());
+    }
+
+    /**
+     * Reads the result of {@code sql} in a read transaction into primitive column arrays, see
+     * {@link ColumnarExtractor}. Rows are fetched from the database {@value #COLUMNAR_FETCH_SIZE}
+     * at a time.
+     */
+    public Columns readColumns(String sql, ColumnType[] types, Object... args) {
+        ColumnarExtractor extractor = new ColumnarExtractor(types);
+        return read(() -> readTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(COLUMNAR_FETCH_SIZE);
+            return ps;
+        }, new ArgumentPreparedStatementSetter(args), extractor));
+    }
+
+    /**
+     * Iterates over the rows of {@code sql} in pages of {@code pageSize} rows, ordered by
+     * {@code keyColumn}, which must be unique and selected by {@code sql}. Each page is read in
+     * its own short read-only transaction on the read route, seeking past the last key of the
+     * previous page, so no transaction stays open while rows are processed. With
+     * {@code prefetch}, the next page is read on another thread meanwhile.
+     * <p>
+     * Pages are queried as
+     * {@code SELECT * FROM (sql) WHERE keyColumn > ? ORDER BY keyColumn LIMIT pageSize}.
+     */
+    public <T> KeysetIterator<T> readPages(String sql, String keyColumn, int pageSize,
+            boolean prefetch, RowMapper<T> rowMapper, Object... args) {
+        if (!COLUMN_NAME.matcher(keyColumn).matches()) {
+            throw new IllegalArgumentException("Invalid key column: " + keyColumn);
+        }
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("pageSize must be positive: " + pageSize);
+        }
+        String page = "SELECT * FROM (" + sql + ") keyset_page";
+        String order = " ORDER BY " + keyColumn + " LIMIT " + pageSize;
+        String firstSql = page + order;
+        String nextSql = page + " WHERE " + keyColumn + " > ?" + order;
+        TransactionConfiguration config =
+                new TransactionConfiguration(Propagation.REQUIRES_NEW, Isolation.DEFAULT);
+        config.setName("keysetPage:" + keyColumn);
+        return new KeysetIterator<>((afterKey, first) -> {
+            Object[] pageArgs = first ? args : appended(args, afterKey);
+            return read(() -> readTemplate.query(first ? firstSql : nextSql, rs -> {
+                List<T> rows = new ArrayList<>(pageSize);
+                Object lastKey = null;
+                while (rs.next()) {
+                    rows.add(rowMapper.mapRow(rs, rows.size()));
+                    lastKey = rs.getObject(keyColumn);
+                }
+                return new KeysetIterator.Page<>(rows, lastKey, rows.size() < pageSize);
+            }, pageArgs), config);
+        }, prefetch, background);
+    }
+
+    /**
+     * Reads the rows of {@code sql} split into {@code partitions}, each partition in its own
+     * read-only transaction, in parallel across the read targets, see
+     * {@link #enablePartitionedReads(Replicas, int)}. {@code consumer} receives every row with its
+     * partition index, concurrently from the partition threads. Returns the number of rows once
+     * all partitions are read; a failing partition cancels the others and its error is thrown.
+     * With priorities enabled, each partition is admitted on its own.
+     * Statistics and events name the read after its calling method, not its key range.
+     * <p>
+     * Partitions are queried as {@code SELECT * FROM (sql) WHERE <partition predicate>}.
+     */
+    public <T> long readPartitioned(Partitions partitions, String sql, RowMapper<T> rowMapper,
+            ObjIntConsumer<T> consumer, Object... args) {
+        TransactionConfiguration config = defaultConfig();
+        config.setName("readPartitioned:" + callerName());
+        TransactionEvent event = new TransactionEvent();
+        event.begin();
+        return observe(READ, config, config.getName(), true, event, false,
+                () -> partitionedRead.forEach(partitions.count(), config,
+                        partitionReader(partitions, sql, rowMapper, args), consumer));
+    }
+
+    /**
+     * Same as {@link #readPartitioned(Partitions, String, RowMapper, ObjIntConsumer, Object...)},
+     * merging the rows of all partitions into one stream, in no particular order. Partitions
+     * wait while the consumer is behind. The stream must be closed, closing it early cancels the
+     * running partitions. The read is reported when the stream is closed.
+     */
+    public <T> Stream<T> streamPartitioned(Partitions partitions, String sql,
+            RowMapper<T> rowMapper, Object... args) {
+        TransactionConfiguration config = defaultConfig();
+        config.setName("streamPartitioned:" + callerName());
+        return observeStream(READ, config, config.getName(),
+                end -> partitionedRead.stream(partitions.count(), config,
+                        partitionReader(partitions, sql, rowMapper, args), end));
+    }
+
+    private <T> PartitionedRead.PartitionReader<T> partitionReader(Partitions partitions,
+            String sql, RowMapper<T> rowMapper, Object[] args) {
+        String partitionSql =
+                "SELECT * FROM (" + sql + ") partition_rows WHERE " + partitions.predicate();
+        return (partition, sink) -> readTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(partitionSql, ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(PARTITION_FETCH_SIZE);
+            return ps;
+        }, new ArgumentPreparedStatementSetter(appended(args, partitions.bounds(partition))),
+                rs -> {
+                    long rows = 0;
+                    while (rs.next()) {
+                        sink.accept(rowMapper.mapRow(rs, (int) rows++));
+                    }
+                    return rows;
+                });
+    }
+
+    /**
+     * Runs {@code callback} on the read route in autocommit, without opening a transaction. Meant
+     * for callbacks that issue a single statement: further statements are handled according to
+     * the configured {@link io.easytx.annotation.StatementGuard}. Inside an active transaction
+     * this is the same as {@link #read(Supplier, TransactionConfiguration)}.
+     */
+    public <T> T readAutoCommit(Supplier<T> callback) {
+        return readAutoCommit(callback, defaultConfig());
+    }
+
+    public <T> T readAutoCommit(Supplier<T> callback, TransactionConfiguration configuration) {
+        TransactionConfiguration config = orDefault(configuration);
+        String name = nameOf(config, callback);
+        if (autoCommitRead == null || autoCommitRead.isUpgraded(name)
+                || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return read(callback, config);
+        }
+        TransactionEvent event = new TransactionEvent();
+        event.begin();
+        event.nonTransactional();
+        return observe(READ, config, name, true, event, () -> onRoute(READ,
+                () -> autoCommitRead.run(name, config.getStatementGuard(), callback)));
     }
 
-    private void configureWriteTransaction(TransactionConfiguration configuration) {
-        if (configuration == null) {
-            configuration = defaultConfig();
+    /**
+     * Read transaction that is hedged on a second replica when the first one is slow, see
+     * {@link #enableHedging(Replicas, double, Duration)}. {@code callback} must be idempotent and
+     * may run twice, on pool threads. With priorities enabled, each attempt is admitted on its
+     * own. Without hedging or inside an active transaction this is the same as
+     * {@link #read(Supplier, TransactionConfiguration)}.
+     */
+    public <T> T readHedged(Supplier<T> callback, TransactionConfiguration configuration) {
+        TransactionConfiguration config = orDefault(configuration);
+        HedgedRead hedging = hedgedRead;
+        if (hedging == null || !hedging.isAvailable()
+                || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return read(callback, config);
         }
-        writeTransactionTemplate.setPropagationBehavior(configuration.getPropagation().value());
-        writeTransactionTemplate.setIsolationLevel(configuration.getIsolation().value());
+        String name = nameOf(config, callback);
+        TransactionEvent event = new TransactionEvent();
+        event.begin();
+        return observe(READ, config, name, true, event, false,
+                () -> hedging.read(name, config, callback));
     }
 
-    private void configureReadTransaction(TransactionConfiguration configuration) {
-        if (configuration == null) {
-            configuration = defaultConfig();
+    /**
+     * Runs {@code read} once for concurrent calls on {@code target} with equal {@code args}, tenant
+     * and route key; the other callers wait up to {@code timeoutMillis} for its result and then
+     * run on their own. Inside an active transaction {@code read} always runs on its own.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T readOnce(Object target, Object[] args, long timeoutMillis, Supplier<T> read,
+            TransactionConfiguration configuration) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return read.get();
         }
-        readTransactionTemplate.setPropagationBehavior(configuration.getPropagation().value());
-        readTransactionTemplate.setIsolationLevel(configuration.getIsolation().value());
-        readTransactionTemplate.setReadOnly(true);
+        return (T) singleFlight.call(target, nameOf(orDefault(configuration), read), args,
+                timeoutMillis, read::get);
+    }
+
+    /**
+     * Returns true when a write with {@code configuration} would only join the transaction
+     * already active on the write route.
+     */
+    public boolean joinsWrite(TransactionConfiguration configuration) {
+        return joins(WRITE, writeTxManager, orDefault(configuration));
+    }
+
+    /**
+     * Returns true when a read with {@code configuration} would only join the transaction
+     * already active on the read route.
+     */
+    public boolean joinsRead(TransactionConfiguration configuration) {
+        return joins(READ, readTxManager, orDefault(configuration));
+    }
+
+    private <T> T execute(String routeKey, TransactionTemplate template,
+            TransactionConfiguration configuration, String name, boolean readOnly,
+            TransactionCallback<T> callback) {
+        if (configuration.getPropagation() == Propagation.NESTED
+                && TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Queued write-behind updates belong before the savepoint
+            TransactionSynchronizationUtils.triggerFlush();
+        }
+        TransactionEvent event = new TransactionEvent();
+        event.begin();
+        return observe(routeKey, configuration, name, readOnly, event,
+                () -> onRoute(routeKey, () -> withTimeout(template).execute(status -> {
+                    if (status.hasTransaction()) {
+                        event.participating(!status.isNewTransaction());
+                    } else {
+                        event.nonTransactional();
+                    }
+                    return callback.doInTransaction(status);
+                })));
+    }
+
+    // Joins the active transaction without a template round trip, a failure marks it
+    // rollback-only just like a participating TransactionTemplate would
+    private <T> T join(String routeKey, PlatformTransactionManager txManager,
+            TransactionConfiguration configuration, String name, boolean readOnly,
+            Supplier<T> callback) {
+        TransactionEvent event = new TransactionEvent();
+        event.begin();
+        event.participating(true);
+        return observe(routeKey, configuration, name, readOnly, event, () -> {
+            try {
+                return callback.get();
+            } catch (RuntimeException | Error e) {
+                setRollbackOnly(txManager);
+                throw e;
+            }
+        });
+    }
+
+    private <T> T observe(String routeKey, TransactionConfiguration configuration, String name,
+            boolean readOnly, TransactionEvent event, Supplier<T> action) {
+        return observe(routeKey, configuration, name, readOnly, event, true, action);
+    }
+
+    // Reads that hold several connections are admitted per connection instead, see Admission
+    private <T> T observe(String routeKey, TransactionConfiguration configuration, String name,
+            boolean readOnly, TransactionEvent event, boolean admit, Supplier<T> action) {
+        ObservationRegistry registry = observationRegistry;
+        TransactionObservation observation = registry != null && !registry.isNoop()
+                ? TransactionObservation.start(registry, routeKey, name, readOnly)
+                : null;
+        long start = System.nanoTime();
+        try {
+            T result = withDeadline(configuration, name,
+                    admit ? () -> admitted(routeKey, configuration, action) : action);
+            statistics.record(name, routeKey, System.nanoTime() - start, false);
+            event.succeeded(name, routeKey, configuration, readOnly);
+            if (observation != null) {
+                observation.succeeded();
+            }
+            return result;
+        } catch (RuntimeException | Error e) {
+            statistics.record(name, routeKey, System.nanoTime() - start, true);
+            event.failed(name, routeKey, configuration, readOnly);
+            if (observation != null) {
+                observation.failed(e);
+            }
+            throw e;
+        }
+    }
+
+    // Same as observe for a read stream, reported once open passes an error, or null, to its end
+    private <T> Stream<T> observeStream(String routeKey, TransactionConfiguration configuration,
+            String name, Function<Consumer<Throwable>, Stream<T>> open) {
+        ObservationRegistry registry = observationRegistry;
+        TransactionObservation observation = registry != null && !registry.isNoop()
+                ? TransactionObservation.startUnscoped(registry, routeKey, name, true)
+                : null;
+        TransactionEvent event = new TransactionEvent();
+        event.begin();
+        long start = System.nanoTime();
+        Consumer<Throwable> end = error -> {
+            statistics.record(name, routeKey, System.nanoTime() - start, error != null);
+            if (error == null) {
+                event.succeeded(name, routeKey, configuration, true);
+            } else {
+                event.failed(name, routeKey, configuration, true);
+            }
+            if (observation != null) {
+                if (error == null) {
+                    observation.succeeded();
+                } else {
+                    observation.failed(error);
+                }
+            }
+        };
+        try {
+            return withDeadline(configuration, name, () -> open.apply(end));
+        } catch (RuntimeException | Error e) {
+            end.accept(e);
+            throw e;
+        }
+    }
+
+    // Binds the earliest of the caller's and the configured deadline, failing before any
+    // connection is taken when it already passed
+    private <T> T withDeadline(TransactionConfiguration configuration, String name,
+            Supplier<T> action) {
+        TxContext context = TxContextHolder.current();
+        Deadline deadline = context.getDeadline();
+        if (configuration.getDeadlineMillis() >= 0) {
+            deadline = Deadline.afterMillis(configuration.getDeadlineMillis()).earliest(deadline);
+        }
+        if (deadline == null) {
+            return action.get();
+        }
+        if (deadline.isExpired()) {
+            throw new TransactionTimedOutException("Deadline exceeded before " + name);
+        }
+        if (deadline == context.getDeadline()) {
+            return action.get();
+        }
+        return TxContextHolder.callWith(context.withDeadline(deadline), action);
+    }
+
+    // Nested calls run on the capacity of the outermost transaction
+    private <T> T admitted(String routeKey, TransactionConfiguration configuration,
+            Supplier<T> action) {
+        PriorityGate gate = priorityGates.get(routeKey);
+        if (gate == null || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return action.get();
+        }
+        Priority priority = configuration.getPriority();
+        long maxWait = priorityMaxWaitNanos;
+        Deadline deadline = TxContextHolder.current().getDeadline();
+        if (deadline != null) {
+            maxWait = Math.min(maxWait, deadline.remainingNanos());
+        }
+        metrics.recordPriorityWait(routeKey, priority.name(), gate.acquire(priority, maxWait));
+        try {
+            return action.get();
+        } finally {
+            gate.release(priority);
+        }
+    }
+
+    private static Object[] appended(Object[] args, Object... more) {
+        Object[] result = Arrays.copyOf(args, args.length + more.length);
+        System.arraycopy(more, 0, result, args.length, more.length);
+        return result;
+    }
+
+    static TransactionTemplate withTimeout(TransactionTemplate template) {
+        Deadline deadline = TxContextHolder.current().getDeadline();
+        if (deadline != null) {
+            template.setTimeout(deadline.remainingSeconds());
+        }
+        return template;
+    }
+
+    private boolean joins(String routeKey, PlatformTransactionManager txManager,
+            TransactionConfiguration configuration) {
+        Propagation propagation = configuration.getPropagation();
+        if (propagation != Propagation.REQUIRED && propagation != Propagation.SUPPORTS
+                && propagation != Propagation.MANDATORY) {
+            return false;
+        }
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && routeKey.equals(TxContextHolder.current().getRouteKey())
+                && txManager instanceof ResourceTransactionManager
+                && TransactionSynchronizationManager.hasResource(
+                        ((ResourceTransactionManager) txManager).getResourceFactory());
+    }
+
+    private void setRollbackOnly(PlatformTransactionManager txManager) {
+        Object resource = TransactionSynchronizationManager
+                .getResource(((ResourceTransactionManager) txManager).getResourceFactory());
+        if (resource instanceof ResourceHolderSupport) {
+            ((ResourceHolderSupport) resource).setRollbackOnly();
+        }
+    }
+
+    // Keeps the route in the easyTx context so it survives executor hand-offs
+    private <T> T onRoute(String routeKey, Supplier<T> action) {
+        TxContext context = TxContextHolder.current();
+        if (routeKey.equals(context.getRouteKey())) {
+            return action.get();
+        }
+        return TxContextHolder.callWith(context.withRouteKey(routeKey), action);
+    }
+
+    private <T> BatchResult<T> runBatch(TransactionStatus status, Collection<T> items,
+            Consumer<T> action, int groupSize) {
+        BatchResult<T> result = new BatchResult<>();
+        List<T> group = new ArrayList<>(groupSize);
+        for (T item : items) {
+            group.add(item);
+            if (group.size() == groupSize) {
+                runGroup(status, group, action, result);
+                group.clear();
+            }
+        }
+        if (!group.isEmpty()) {
+            runGroup(status, group, action, result);
+        }
+        return result;
+    }
+
+    private <T> void runGroup(TransactionStatus status, List<T> group, Consumer<T> action,
+            BatchResult<T> result) {
+        if (group.size() > 1) {
+            status.flush();
+            Object savepoint = status.createSavepoint();
+            try {
+                group.forEach(action);
+                status.flush();
+                status.releaseSavepoint(savepoint);
+                result.addSucceeded(group);
+                return;
+            } catch (RuntimeException e) {
+                status.rollbackToSavepoint(savepoint);
+            }
+        }
+        for (T item : group) {
+            status.flush();
+            Object savepoint = status.createSavepoint();
+            try {
+                action.accept(item);
+                status.flush();
+                status.releaseSavepoint(savepoint);
+                result.addSucceeded(item);
+            } catch (RuntimeException e) {
+                status.rollbackToSavepoint(savepoint);
+                result.addFailure(item, e);
+            }
+        }
+    }
+
+    // Unnamed calls are named after the calling method, resolved once per callback class
+    private String nameOf(TransactionConfiguration configuration, Object callback) {
+        String name = configuration.getName();
+        if (name != null) {
+            return name;
+        }
+        Class<?> callSite = callback.getClass();
+        name = callerNames.get(callSite);
+        if (name == null) {
+            name = callerName();
+            callerNames.put(callSite, name);
+        }
+        return name;
+    }
+
+    private static String callerName() {
+        String service = TransactionService.class.getName();
+        return STACK.walk(frames -> frames
+                .filter(frame -> !frame.getClassName().startsWith(service))
+                .findFirst()
+                .map(frame -> frame.getClassName() + "." + frame.getMethodName())
+                .orElse(service));
+    }
+
+    private static AutoCommitRead autoCommitRead(PlatformTransactionManager txManager) {
+        Object resource = txManager instanceof ResourceTransactionManager
+                ? ((ResourceTransactionManager) txManager).getResourceFactory()
+                : null;
+        return resource instanceof DataSource ? new AutoCommitRead((DataSource) resource) : null;
+    }
+
+    private TransactionTemplate writeTransaction(TransactionConfiguration configuration) {
+        TransactionTemplate template = new TransactionTemplate(writeTxManager);
+        template.setPropagationBehavior(configuration.getPropagation().value());
+        template.setIsolationLevel(configuration.getIsolation().value());
+        return template;
+    }
+
+    private TransactionTemplate readTransaction(TransactionConfiguration configuration) {
+        TransactionTemplate template = new TransactionTemplate(readTxManager);
+        template.setPropagationBehavior(configuration.getPropagation().value());
+        template.setIsolationLevel(configuration.getIsolation().value());
+        template.setReadOnly(true);
+        return template;
+    }
+
+    private TransactionConfiguration orDefault(TransactionConfiguration configuration) {
+        return configuration != null ? configuration : defaultConfig();
     }
 
     private TransactionConfiguration defaultConfig() {
@@ -1,9 +1,14 @@
 package io.easytx.user.config;
 
+import java.time.Duration;
 import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import io.easytx.metrics.Metrics;
+import io.easytx.metrics.TxStatistics;
+import io.easytx.metrics.TxStatisticsReporter;
 import io.micrometer.core.instrument.MeterRegistry;
 
 @Configuration
@@ -13,4 +18,18 @@ public class TxLensConfig {
     public Metrics metrics(ObjectProvider<MeterRegistry> registry) {
         return new Metrics(registry.getIfAvailable());
     }
+
+    @Bean
+    public TxStatistics txStatistics() {
+        return new TxStatistics();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "easytx.statistics.log-enabled", havingValue = "true",
+            matchIfMissing = true)
+    public TxStatisticsReporter txStatisticsReporter(TxStatistics txStatistics,
+            @Value("${easytx.statistics.log-interval:PT5M}") Duration interval,
+            @Value("${easytx.statistics.top:10}") int top) {
+        return new TxStatisticsReporter(txStatistics, interval, top);
+    }
 }
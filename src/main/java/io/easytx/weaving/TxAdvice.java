@@ -0,0 +1,189 @@
+package io.easytx.weaving;
+
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.function.Supplier;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import io.easytx.annotation.LogPolicy;
+import io.easytx.annotation.Priority;
+import io.easytx.annotation.StatementGuard;
+import io.easytx.annotation.TransactionConfiguration;
+import io.easytx.interceptor.Environment;
+import io.easytx.interceptor.executor.BaseExecutor;
+import io.easytx.service.TransactionService;
+
+/**
+ * Runtime support for the wrappers generated by {@code TxAdviceProcessor}. Calls take the same
+ * {@link TransactionService} paths and logging as the aspect would for the annotation. Checked
+ * exceptions thrown by the target method reach the caller unchanged.
+ */
+public final class TxAdvice {
+
+    public static final String SUFFIX = "_EasyTx";
+
+    @FunctionalInterface
+    public interface Call<T> {
+        T call() throws Throwable;
+    }
+
+    /** How a {@code @TxRead} method reads, from its {@code autoCommit} and {@code hedged}. */
+    public enum ReadMode {
+        TRANSACTION, AUTO_COMMIT, HEDGED
+    }
+
+    private TxAdvice() {}
+
+    public static TransactionConfiguration configuration(Propagation propagation,
+            Isolation isolation, String name) {
+        return configuration(propagation, isolation, name, -1);
+    }
+
+    public static TransactionConfiguration configuration(Propagation propagation,
+            Isolation isolation, String name, long deadlineMillis) {
+        TransactionConfiguration configuration =
+                new TransactionConfiguration(propagation, isolation);
+        configuration.setName(name);
+        configuration.setDeadlineMillis(deadlineMillis);
+        return configuration;
+    }
+
+    public static TransactionConfiguration configuration(Propagation propagation,
+            Isolation isolation, String name, long deadlineMillis, Priority priority,
+            StatementGuard statementGuard, long hedgeDelayMillis) {
+        TransactionConfiguration configuration =
+                configuration(propagation, isolation, name, deadlineMillis);
+        configuration.setPriority(priority);
+        configuration.setStatementGuard(statementGuard);
+        configuration.setHedgeDelayMillis(hedgeDelayMillis);
+        return configuration;
+    }
+
+    public static <T> T read(TransactionService transactionService,
+            TransactionConfiguration configuration, Call<T> call) {
+        return read(transactionService, configuration, LogPolicy.OFF, ReadMode.TRANSACTION, call);
+    }
+
+    public static <T> T read(TransactionService transactionService,
+            TransactionConfiguration configuration, LogPolicy logPolicy, ReadMode mode,
+            Call<T> call) {
+        Throwable[] checked = new Throwable[1];
+        try {
+            return read(transactionService, configuration, mode,
+                    logged(configuration, logPolicy, call, checked));
+        } catch (UndeclaredThrowableException e) {
+            throw rethrow(e, checked[0]);
+        }
+    }
+
+    /**
+     * Like {@code read}, but concurrent calls on {@code target} with equal {@code args} share one
+     * execution, see {@link TransactionService#readOnce}.
+     */
+    public static <T> T readOnce(TransactionService transactionService, Object target,
+            Object[] args, long timeoutMillis, TransactionConfiguration configuration,
+            LogPolicy logPolicy, ReadMode mode, Call<T> call) {
+        Throwable[] checked = new Throwable[1];
+        Supplier<T> logged = logged(configuration, logPolicy, call, checked);
+        try {
+            return transactionService.readOnce(target, args, timeoutMillis,
+                    () -> read(transactionService, configuration, mode, logged), configuration);
+        } catch (UndeclaredThrowableException e) {
+            throw rethrow(e, checked[0]);
+        }
+    }
+
+    public static <T> T write(TransactionService transactionService,
+            TransactionConfiguration configuration, Call<T> call) {
+        return write(transactionService, configuration, LogPolicy.OFF, call);
+    }
+
+    public static <T> T write(TransactionService transactionService,
+            TransactionConfiguration configuration, LogPolicy logPolicy, Call<T> call) {
+        Throwable[] checked = new Throwable[1];
+        try {
+            return transactionService.write(logged(configuration, logPolicy, call, checked),
+                    configuration);
+        } catch (UndeclaredThrowableException e) {
+            throw rethrow(e, checked[0]);
+        }
+    }
+
+    public static void requireTransactionService(TransactionService transactionService,
+            Class<?> advisedClass) {
+        if (transactionService == null) {
+            throw new IllegalStateException(
+                    advisedClass.getName() + " was created without a TransactionService");
+        }
+    }
+
+    private static <T> T read(TransactionService transactionService,
+            TransactionConfiguration configuration, ReadMode mode, Supplier<T> call) {
+        switch (mode) {
+            case AUTO_COMMIT:
+                return transactionService.readAutoCommit(call, configuration);
+            case HEDGED:
+                return transactionService.readHedged(call, configuration);
+            default:
+                return transactionService.read(call, configuration);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Supplier<T> logged(TransactionConfiguration configuration,
+            LogPolicy logPolicy, Call<T> call, Throwable[] checked) {
+        if (logPolicy.isOff()) {
+            return () -> invoke(call, checked);
+        }
+        CallExecutor executor = new CallExecutor(configuration.getName(), call, checked);
+        return () -> (T) executor.execute(logPolicy);
+    }
+
+    private static <T> T invoke(Call<T> call, Throwable[] checked) {
+        try {
+            return call.call();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            checked[0] = e;
+            throw TxAdvice.<RuntimeException>sneakyThrow(e);
+        }
+    }
+
+    private static RuntimeException rethrow(UndeclaredThrowableException e, Throwable checked) {
+        if (checked != null && e.getUndeclaredThrowable() == checked) {
+            throw TxAdvice.<RuntimeException>sneakyThrow(checked);
+        }
+        throw e;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E extends Throwable> RuntimeException sneakyThrow(Throwable e) throws E {
+        throw (E) e;
+    }
+
+    // Logs like the aspect's executor, with the target method resolved from the advice name
+    private static final class CallExecutor extends BaseExecutor {
+
+        private final String name;
+        private final Call<?> call;
+        private final Throwable[] checked;
+
+        private CallExecutor(String name, Call<?> call, Throwable[] checked) {
+            super(null);
+            this.name = name;
+            this.call = call;
+            this.checked = checked;
+        }
+
+        @Override
+        protected Environment environment() {
+            int dot = name.lastIndexOf('.');
+            return new Environment(name.substring(0, Math.max(dot, 0)), name.substring(dot + 1));
+        }
+
+        @Override
+        public Object execute() {
+            return invoke(call, checked);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package io.easytx.weaving;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanClassLoaderAware;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Replaces the class of every bean that has a generated {@code _EasyTx} subclass, so the
+ * build-time advice is used instead of a runtime proxy. Beans created by {@code @Bean} factory
+ * methods are left alone: instantiate the generated class there explicitly.
+ */
+public class TxAdviceBeanDefinitionPostProcessor
+        implements BeanDefinitionRegistryPostProcessor, BeanClassLoaderAware {
+
+    private static final Logger LOG =
+            LoggerFactory.getLogger(TxAdviceBeanDefinitionPostProcessor.class);
+
+    private ClassLoader classLoader = ClassUtils.getDefaultClassLoader();
+
+    @Override
+    public void setBeanClassLoader(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    @Override
+    public void postProcessBeanDefinitionRegistry(BeanDefinitionRegistry registry)
+            throws BeansException {
+        for (String name : registry.getBeanDefinitionNames()) {
+            BeanDefinition definition = registry.getBeanDefinition(name);
+            String className = definition.getBeanClassName();
+            if (className == null || definition.getFactoryMethodName() != null) {
+                continue;
+            }
+            String advisedName = className + TxAdvice.SUFFIX;
+            if (ClassUtils.isPresent(advisedName, classLoader)) {
+                definition.setBeanClassName(advisedName);
+                LOG.debug("Bean '{}' uses generated transaction advice {}", name, advisedName);
+            }
+        }
+    }
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory)
+            throws BeansException {}
+}
@@ -0,0 +1,9 @@
+package io.easytx.weaving;
+
+/**
+ * Marker for classes generated by {@code TxAdviceProcessor}: their annotated methods already run
+ * inside a transaction, so {@code EasyTxAspect} lets them through untouched.
+ */
+public interface TxAdvised {
+
+}
@@ -0,0 +1,39 @@
+package io.easytx.annotation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class LogPolicyTest {
+
+    @Test
+    void sampleRateLogsOneCallOutOfN() {
+        LogPolicy every = new LogPolicy(LogLevel.ALL, 1, -1);
+        LogPolicy tenth = new LogPolicy(LogLevel.ALL, 10, -1);
+        int sampled = 0;
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(every.sample());
+            if (tenth.sample()) {
+                sampled++;
+            }
+        }
+        assertTrue(sampled > 9_000 && sampled < 11_000, "sampled " + sampled);
+        assertEquals(1, new LogPolicy(LogLevel.ALL, 0, -1).getSampleRate());
+        assertFalse(new LogPolicy(LogLevel.OFF, 1, -1).sample());
+    }
+
+    @Test
+    void slowThresholdKeepsPolicyOnWithoutLogLevel() {
+        LogPolicy slowOnly = new LogPolicy(LogLevel.OFF, 1, 250);
+        assertFalse(slowOnly.isOff());
+        assertTrue(slowOnly.hasSlowThreshold());
+        assertEquals(250_000_000L, slowOnly.getSlowThresholdNanos());
+        assertFalse(slowOnly.sample());
+
+        LogPolicy disabled = new LogPolicy(LogLevel.OFF, 1, -1);
+        assertTrue(disabled.isOff());
+        assertFalse(disabled.hasSlowThreshold());
+        assertTrue(LogPolicy.OFF.isOff());
+    }
+}
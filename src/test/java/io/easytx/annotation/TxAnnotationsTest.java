@@ -1,11 +1,19 @@
 package io.easytx.annotation;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.verify;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.Test;
@@ -13,7 +21,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
 import org.springframework.transaction.support.TransactionSynchronization;
+import io.easytx.context.TxContextHolder;
 import io.easytx.service.AnnotatedService;
+import io.easytx.service.ReadRoutedService;
 import io.easytx.service.TransactionService;
 
 @SpringBootTest
@@ -22,6 +32,9 @@ class TxAnnotationsTest {
     @Autowired
     private AnnotatedService annotatedService;
 
+    @Autowired
+    private ReadRoutedService readRoutedService;
+
     @MockitoSpyBean
     private TransactionService transactionService;
 
@@ -81,4 +94,42 @@ class TxAnnotationsTest {
         assertEquals(TransactionSynchronization.STATUS_ROLLED_BACK, status.get(),
                 "La transacción debería terminar con ROLLBACK");
     }
+
+    @Test
+    void testTxReadSingleFlightCoalescesConcurrentCalls() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            results.add(pool.submit(() -> annotatedService.singleFlightRead(release, calls)));
+            while (calls.get() == 0) {
+                Thread.onSpinWait();
+            }
+            for (int i = 0; i < 3; i++) {
+                results.add(pool.submit(() -> annotatedService.singleFlightRead(release, calls)));
+            }
+            Thread.sleep(300);
+            release.countDown();
+            for (Future<Integer> result : results) {
+                assertEquals(1, result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, calls.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void testReadAnnotationRoutesWithoutTransaction() {
+        assertEquals("read", annotatedService.readRoute());
+        assertNull(TxContextHolder.current().getRouteKey());
+    }
+
+    @Test
+    void testReadAnnotationOnClassRoutesItsMethods() {
+        assertEquals("read", readRoutedService.route());
+        assertEquals("write", readRoutedService.writeRoute());
+        assertNull(TxContextHolder.current().getRouteKey());
+    }
 }
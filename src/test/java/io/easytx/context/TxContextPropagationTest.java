@@ -0,0 +1,152 @@
+package io.easytx.context;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import io.easytx.routing.RoutingDataSource;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class TxContextPropagationTest {
+
+    private RoutingDataSource routing;
+    private ExecutorService pool;
+
+    @BeforeAll
+    void setup() {
+        DataSource write = new DriverManagerDataSource("jdbc:h2:mem:ctxWrite;DB_CLOSE_DELAY=-1");
+        DataSource read = new DriverManagerDataSource("jdbc:h2:mem:ctxRead;DB_CLOSE_DELAY=-1");
+        routing = new RoutingDataSource();
+        routing.setTargetDataSources(Map.of("write", write, "read", read));
+        routing.setDefaultTargetDataSource(write);
+        routing.afterPropertiesSet();
+        pool = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterAll
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void wrappedExecutorKeepsRoute() {
+        ExecutorService contextPool = TxContexts.wrapExecutorService(pool);
+        String url = TxContextHolder.callWith(readContext(),
+                () -> join(CompletableFuture.supplyAsync(this::currentUrl, contextPool)));
+        assertTrue(url.contains("ctxRead"), url);
+    }
+
+    @Test
+    void plainExecutorFallsBackToDefaultRoute() {
+        String url = TxContextHolder.callWith(readContext(),
+                () -> join(CompletableFuture.supplyAsync(this::currentUrl, pool)));
+        assertTrue(url.contains("ctxWrite"), url);
+    }
+
+    @Test
+    void completableFutureChainKeepsRoute() {
+        String url = TxContextHolder.callWith(readContext(),
+                () -> join(TxContexts.supplyAsync(() -> "start", pool)
+                        .thenApplyAsync(ignored -> currentUrl())
+                        .thenApplyAsync(previous -> previous + "|" + currentUrl())));
+        assertEquals(2, url.split("ctxRead", -1).length - 1, url);
+    }
+
+    @Test
+    void nestedScopeRestoresOuterRoute() {
+        String outer = TxContextHolder.callWith(readContext(), () -> {
+            String inner = TxContextHolder.callWith(
+                    TxContextHolder.current().withRouteKey("write"), this::currentUrl);
+            assertTrue(inner.contains("ctxWrite"), inner);
+            return currentUrl();
+        });
+        assertTrue(outer.contains("ctxRead"), outer);
+        assertTrue(TxContextHolder.current().isEmpty());
+    }
+
+    @Test
+    void workerThreadIsCleanAfterHandOff() {
+        ExecutorService contextPool = TxContexts.wrapExecutorService(pool);
+        TxContextHolder.runWith(readContext(),
+                () -> join(CompletableFuture.runAsync(() -> {
+                }, contextPool)));
+        TxContext leftover = join(CompletableFuture.supplyAsync(TxContextHolder::current, pool));
+        assertTrue(leftover.isEmpty(), leftover.toString());
+    }
+
+    @Test
+    void scopedValueStorageHonoursSetUntilScopeEnds() {
+        ScopedValueTxContextStorage storage;
+        try {
+            storage = new ScopedValueTxContextStorage();
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            assumeTrue(false, "ScopedValue not available: " + e);
+            return;
+        }
+        storage.callWith(readContext(), () -> {
+            storage.set(storage.get().withRouteKey("write"));
+            assertEquals("write", storage.get().getRouteKey());
+            storage.callWith(TxContext.EMPTY.withRouteKey("read"), () -> {
+                assertEquals("read", storage.get().getRouteKey());
+                return null;
+            });
+            assertEquals("write", storage.get().getRouteKey());
+            storage.set(TxContext.EMPTY);
+            assertTrue(storage.get().isEmpty());
+            return null;
+        });
+        assertTrue(storage.get().isEmpty());
+        storage.set(readContext());
+        assertEquals("read", storage.get().getRouteKey());
+        storage.set(null);
+        assertTrue(storage.get().isEmpty());
+        assertEquals(0, storage.overrides());
+    }
+
+    @Test
+    void scopedValueStorageSkipsTheThreadLocalWithoutOverrides() {
+        ScopedValueTxContextStorage storage;
+        try {
+            storage = new ScopedValueTxContextStorage();
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            assumeTrue(false, "ScopedValue not available: " + e);
+            return;
+        }
+        storage.callWith(readContext(), () -> {
+            assertEquals("read", storage.get().getRouteKey());
+            assertEquals(0, storage.overrides());
+            storage.set(storage.get().withRouteKey("write"));
+            assertEquals(1, storage.overrides());
+            return null;
+        });
+        assertEquals(0, storage.overrides());
+        assertTrue(storage.get().isEmpty());
+    }
+
+    private TxContext readContext() {
+        return TxContext.EMPTY.withRouteKey("read").withConsistencyToken("lsn-1");
+    }
+
+    private String currentUrl() {
+        try (Connection connection = routing.getConnection()) {
+            return connection.getMetaData().getURL();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        return future.join();
+    }
+}
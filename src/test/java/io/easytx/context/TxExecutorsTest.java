@@ -0,0 +1,70 @@
+package io.easytx.context;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+
+class TxExecutorsTest {
+
+    @Test
+    void runsOnBoundedDaemonThreads() throws Exception {
+        ScheduledExecutorService executor = TxExecutors.create(2);
+        try {
+            Set<String> names = ConcurrentHashMap.newKeySet();
+            CountDownLatch done = new CountDownLatch(20);
+            for (int i = 0; i < 20; i++) {
+                executor.execute(() -> {
+                    assertTrue(Thread.currentThread().isDaemon());
+                    names.add(Thread.currentThread().getName());
+                    done.countDown();
+                });
+            }
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertTrue(names.size() <= 2);
+            assertTrue(names.stream().allMatch(name -> name.startsWith("easytx-")));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void scansDoNotQueueBehindEachOther() throws Exception {
+        ExecutorService scans = TxExecutors.createScans();
+        try {
+            int count = TxExecutors.DEFAULT_THREADS * 2;
+            CountDownLatch started = new CountDownLatch(count);
+            CountDownLatch release = new CountDownLatch(1);
+            for (int i = 0; i < count; i++) {
+                scans.execute(() -> {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            release.countDown();
+        } finally {
+            scans.shutdown();
+        }
+    }
+
+    @Test
+    void shutdownDropsDelayedTasks() throws Exception {
+        ScheduledExecutorService executor = TxExecutors.create(1);
+        AtomicBoolean ran = new AtomicBoolean();
+        executor.schedule(() -> ran.set(true), 100, TimeUnit.MILLISECONDS);
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertFalse(ran.get());
+    }
+}
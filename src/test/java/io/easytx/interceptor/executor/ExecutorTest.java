@@ -0,0 +1,81 @@
+package io.easytx.interceptor.executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import io.easytx.annotation.LogLevel;
+import io.easytx.annotation.LogPolicy;
+
+class ExecutorTest {
+
+    @Test
+    void sampledCallsLogAtTheirLevel() {
+        RecordingExecutor executor = new RecordingExecutor();
+        executor.execute(new LogPolicy(LogLevel.TIME, 1, -1));
+        executor.execute(LogLevel.ALL);
+        assertEquals(List.of("time:" + Long.MAX_VALUE, "all:" + Long.MAX_VALUE), executor.calls);
+    }
+
+    @Test
+    void sampledCallsKeepTheirSlowThreshold() {
+        RecordingExecutor executor = new RecordingExecutor();
+        executor.execute(new LogPolicy(LogLevel.WRAP, 1, 100));
+        executor.execute(new LogPolicy(LogLevel.TIME, 1, 100));
+        assertEquals(List.of("wrap:100000000", "time:100000000"), executor.calls);
+    }
+
+    @Test
+    void slowThresholdAppliesToCallsThatAreNotSampled() {
+        RecordingExecutor executor = new RecordingExecutor();
+        executor.execute(new LogPolicy(LogLevel.OFF, 1, 100));
+        assertEquals(List.of("slow:100000000"), executor.calls);
+    }
+
+    @Test
+    void unsampledCallsWithoutThresholdOnlyKeepTiming() {
+        RecordingExecutor executor = new RecordingExecutor();
+        executor.execute(new LogPolicy(LogLevel.ALL, Integer.MAX_VALUE, -1));
+        executor.execute(LogPolicy.OFF);
+        assertEquals(List.of("slow:" + Long.MAX_VALUE, "plain"), executor.calls);
+    }
+
+    private static final class RecordingExecutor extends Executor {
+
+        private final List<String> calls = new ArrayList<>();
+
+        private RecordingExecutor() {
+            super(null);
+        }
+
+        @Override
+        public Object execute() {
+            calls.add("plain");
+            return null;
+        }
+
+        @Override
+        public Object executeWithAllLogs(long slowThresholdNanos) {
+            calls.add("all:" + slowThresholdNanos);
+            return null;
+        }
+
+        @Override
+        public Object executeWithWrapLogs(long slowThresholdNanos) {
+            calls.add("wrap:" + slowThresholdNanos);
+            return null;
+        }
+
+        @Override
+        public Object executeWithTimeLogs(long slowThresholdNanos) {
+            calls.add("time:" + slowThresholdNanos);
+            return null;
+        }
+
+        @Override
+        public Object executeWithSlowLogs(long thresholdNanos) {
+            calls.add("slow:" + thresholdNanos);
+            return null;
+        }
+    }
+}
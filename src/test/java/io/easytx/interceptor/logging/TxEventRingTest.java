@@ -0,0 +1,68 @@
+package io.easytx.interceptor.logging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+
+class TxEventRingTest {
+
+    private final Logger logger = mock(Logger.class);
+
+    @Test
+    void fullRingRejectsUntilPolled() {
+        TxEventRing ring = new TxEventRing(3);
+        TxEvent[] events = new TxEvent[4];
+        for (int i = 0; i < events.length; i++) {
+            events[i] = event(TxEvent.Kind.STARTED);
+            assertTrue(ring.offer(events[i]));
+        }
+        assertFalse(ring.offer(event(TxEvent.Kind.STARTED)));
+
+        assertSame(events[0], ring.poll());
+        TxEvent wrapped = event(TxEvent.Kind.FINISHED);
+        assertTrue(ring.offer(wrapped));
+        for (int i = 1; i < events.length; i++) {
+            assertSame(events[i], ring.poll());
+        }
+        assertSame(wrapped, ring.poll());
+        assertNull(ring.poll());
+    }
+
+    @Test
+    void writerCountsDropsAndDrainsOnShutdown() {
+        AsyncTxEventWriter writer = new AsyncTxEventWriter(4, false);
+        for (int i = 0; i < 6; i++) {
+            writer.publish(event(TxEvent.Kind.STARTED));
+        }
+        writer.publish(new TxEvent(logger, TxEvent.Kind.SLOW, "Orders", "place", 2_000_000_000L,
+                1_000_000_000L));
+        assertEquals(3, writer.getDroppedCount());
+
+        writer.shutdown();
+        verify(logger, times(4)).info(anyString(), eq("Orders"), eq("place"));
+        assertEquals(0, writer.getDroppedCount());
+    }
+
+    @Test
+    void backgroundWriterStopsAfterDrainingOnShutdown() {
+        AsyncTxEventWriter writer = new AsyncTxEventWriter(16, true);
+        writer.publish(event(TxEvent.Kind.FINISHED));
+        writer.publish(new TxEvent(logger, TxEvent.Kind.TOOK, "Orders", "place", 3_000_000L, -1));
+        writer.shutdown();
+        verify(logger).info(anyString(), eq("Orders"), eq("place"));
+        verify(logger).info(anyString(), eq("Orders"), eq("place"), eq(3L));
+    }
+
+    private TxEvent event(TxEvent.Kind kind) {
+        return new TxEvent(logger, kind, "Orders", "place", 0, -1);
+    }
+}
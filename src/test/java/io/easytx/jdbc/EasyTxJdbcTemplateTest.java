@@ -0,0 +1,135 @@
+package io.easytx.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.sql.Statement;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.StatementCallback;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import io.easytx.context.Deadline;
+import io.easytx.context.TxContext;
+import io.easytx.context.TxContextHolder;
+
+class EasyTxJdbcTemplateTest {
+
+    private static final String COUNT = "SELECT COUNT(*) FROM memo WHERE kind = ?";
+    private static final String INSERT = "INSERT INTO memo VALUES (?)";
+
+    private EasyTxJdbcTemplate template;
+    private JdbcTemplate outside;
+    private TransactionTemplate readOnlyTransaction;
+    private TransactionTemplate writeTransaction;
+
+    @BeforeEach
+    void setup() {
+        DriverManagerDataSource dataSource =
+                new DriverManagerDataSource("jdbc:h2:mem:queryMemo;DB_CLOSE_DELAY=-1");
+        outside = new JdbcTemplate(dataSource);
+        outside.execute("CREATE TABLE IF NOT EXISTS memo (kind VARCHAR(10))");
+        outside.execute("DELETE FROM memo");
+        outside.update("INSERT INTO memo VALUES (?)", "a");
+
+        template = new EasyTxJdbcTemplate(dataSource);
+        template.setQueryMemoization(true);
+        template.setWriteBehind(true);
+        DataSourceTransactionManager txManager = new DataSourceTransactionManager(dataSource);
+        readOnlyTransaction = new TransactionTemplate(txManager);
+        readOnlyTransaction.setReadOnly(true);
+        writeTransaction = new TransactionTemplate(txManager);
+    }
+
+    @Test
+    void repeatedQueryIsAnsweredFromMemo() {
+        readOnlyTransaction.executeWithoutResult(status -> {
+            assertEquals(1, template.queryForObject(COUNT, Integer.class, "a"));
+            outside.update("INSERT INTO memo VALUES (?)", "a");
+            assertEquals(1, template.queryForObject(COUNT, Integer.class, "a"));
+            assertEquals(0, template.queryForObject(COUNT, Integer.class, "b"));
+        });
+        readOnlyTransaction.executeWithoutResult(status -> assertEquals(2,
+                template.queryForObject(COUNT, Integer.class, "a")));
+    }
+
+    @Test
+    void writeThroughTemplateClearsMemo() {
+        readOnlyTransaction.executeWithoutResult(status -> {
+            assertEquals(1, template.queryForObject(COUNT, Integer.class, "a"));
+            outside.update("INSERT INTO memo VALUES (?)", "a");
+            template.execute((ConnectionCallback<Void>) connection -> null);
+            assertEquals(2, template.queryForObject(COUNT, Integer.class, "a"));
+        });
+    }
+
+    @Test
+    void queriesOutsideReadOnlyTransactionAreNotMemoized() {
+        assertEquals(1, template.queryForObject(COUNT, Integer.class, "a"));
+        outside.update("INSERT INTO memo VALUES (?)", "a");
+        assertEquals(2, template.queryForObject(COUNT, Integer.class, "a"));
+    }
+
+    @Test
+    void deadlineBoundsQueryTimeout() {
+        template.setQueryTimeout(30);
+        TxContext context = TxContext.EMPTY.withDeadline(Deadline.afterMillis(2500));
+        int timeout = TxContextHolder.callWith(context,
+                () -> template.execute((StatementCallback<Integer>) Statement::getQueryTimeout));
+        assertEquals(3, timeout);
+    }
+
+    @Test
+    void queuedUpdatesAreSentBeforeQueryAndCommit() {
+        writeTransaction.executeWithoutResult(status -> {
+            PendingUpdate first = template.queueUpdate(INSERT, "x");
+            template.queueUpdate(INSERT, "x");
+            assertFalse(first.isDone());
+            assertEquals(2, template.queryForObject(COUNT, Integer.class, "x"));
+            assertTrue(first.isDone());
+            template.queueUpdate(INSERT, "y");
+        });
+        assertEquals(1, outside.queryForObject(COUNT, Integer.class, "y"));
+    }
+
+    @Test
+    void updateRunsImmediatelyAfterQueuedUpdates() {
+        writeTransaction.executeWithoutResult(status -> {
+            PendingUpdate queued = template.queueUpdate(INSERT, "x");
+            assertEquals(1, template.update("UPDATE memo SET kind = ? WHERE kind = ?", "z", "x"));
+            assertTrue(queued.isDone());
+            assertEquals(1, template.update(INSERT, "y"));
+        });
+        assertEquals(1, outside.queryForObject(COUNT, Integer.class, "z"));
+        assertEquals(1, outside.queryForObject(COUNT, Integer.class, "y"));
+    }
+
+    @Test
+    void queueUpdateReportsCountOnceSent() {
+        writeTransaction.executeWithoutResult(status -> {
+            PendingUpdate first = template.queueUpdate(INSERT, "x");
+            PendingUpdate second = template.queueUpdate("UPDATE memo SET kind = ? WHERE kind = ?",
+                    "b", "a");
+            assertEquals(1, first.getUpdateCount());
+            assertFalse(second.isDone());
+            assertEquals(1, second.getUpdateCount());
+        });
+    }
+
+    @Test
+    void failedBatchSurfacesAtCommitAndRollsBack() {
+        outside.execute("CREATE TABLE IF NOT EXISTS unique_kind (kind VARCHAR(10) PRIMARY KEY)");
+        outside.execute("DELETE FROM unique_kind");
+        assertThrows(DuplicateKeyException.class, () -> writeTransaction
+                .executeWithoutResult(status -> {
+                    template.queueUpdate("INSERT INTO unique_kind VALUES (?)", "x");
+                    template.queueUpdate("INSERT INTO unique_kind VALUES (?)", "x");
+                }));
+        assertEquals(0, outside.queryForObject("SELECT COUNT(*) FROM unique_kind", Integer.class));
+    }
+}
@@ -0,0 +1,70 @@
+package io.easytx.jfr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import io.easytx.annotation.TransactionConfiguration;
+import io.easytx.service.TransactionService;
+
+class TransactionEventTest {
+
+    @Test
+    void recordsOutcomeOfEachTransaction() throws Exception {
+        DriverManagerDataSource dataSource =
+                new DriverManagerDataSource("jdbc:h2:mem:jfrEvents;DB_CLOSE_DELAY=-1");
+        DataSourceTransactionManager txManager = new DataSourceTransactionManager(dataSource);
+        TransactionService transactionService = new TransactionService(txManager, txManager,
+                new JdbcTemplate(dataSource), new JdbcTemplate(dataSource));
+
+        Path file = Files.createTempFile("easytx", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(TransactionEvent.NAME).withoutThreshold();
+            recording.start();
+            transactionService.write(() -> transactionService.read(() -> 1, config("joined",
+                    Propagation.REQUIRED)), config("committed", Propagation.REQUIRED));
+            assertThrows(IllegalStateException.class, () -> transactionService.write(() -> {
+                throw new IllegalStateException("rollback");
+            }, config("rolledBack", Propagation.REQUIRED)));
+            transactionService.read(() -> 1, config("supports", Propagation.SUPPORTS));
+            recording.stop();
+            recording.dump(file);
+        }
+
+        Map<String, RecordedEvent> byMethod = new HashMap<>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+            if (event.getEventType().getName().equals(TransactionEvent.NAME)) {
+                byMethod.put(event.getString("method"), event);
+            }
+        }
+        Files.deleteIfExists(file);
+        assertEquals(TransactionEvent.COMMITTED, byMethod.get("committed").getString("outcome"));
+        assertEquals(TransactionEvent.JOINED, byMethod.get("joined").getString("outcome"));
+        assertTrue(byMethod.get("joined").getBoolean("readOnly"));
+        assertEquals(TransactionEvent.ROLLED_BACK,
+                byMethod.get("rolledBack").getString("outcome"));
+        assertEquals(TransactionEvent.NON_TRANSACTIONAL,
+                byMethod.get("supports").getString("outcome"));
+        assertEquals("SUPPORTS", byMethod.get("supports").getString("propagation"));
+        assertEquals("write", byMethod.get("committed").getString("route"));
+    }
+
+    private static TransactionConfiguration config(String name, Propagation propagation) {
+        TransactionConfiguration config = new TransactionConfiguration(propagation,
+                Isolation.DEFAULT);
+        config.setName(name);
+        return config;
+    }
+}
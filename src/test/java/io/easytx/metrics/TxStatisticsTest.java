@@ -0,0 +1,74 @@
+package io.easytx.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import io.easytx.service.TransactionService;
+
+class TxStatisticsTest {
+
+    @Test
+    void recordsPerMethodAndRoute() {
+        TxStatistics statistics = new TxStatistics();
+        for (int i = 0; i < 10; i++) {
+            statistics.record("Orders.list", "read", 1_000_000, false);
+        }
+        statistics.record("Orders.place", "write", 50_000_000, false);
+        statistics.record("Orders.place", "write", 70_000_000, true);
+
+        TxStatsSnapshot place = statistics.get("Orders.place", "write");
+        assertEquals(2, place.getCount());
+        assertEquals(1, place.getErrors());
+        assertTrue(place.getP99Micros() >= 50_000);
+        assertNull(statistics.get("Orders.place", "read"));
+
+        List<TxStatsSnapshot> slowest = statistics.topSlowest(1);
+        assertEquals("Orders.place", slowest.get(0).getMethod());
+        List<TxStatsSnapshot> frequent = statistics.topMostFrequent(1);
+        assertEquals("Orders.list", frequent.get(0).getMethod());
+
+        statistics.reset();
+        assertTrue(statistics.snapshot().isEmpty());
+    }
+
+    @Test
+    void nonPositiveIntervalDisablesReporting() {
+        TxStatistics statistics = new TxStatistics();
+        TxStatisticsReporter disabled = new TxStatisticsReporter(statistics, Duration.ZERO, 5);
+        TxStatisticsReporter subMillis =
+                new TxStatisticsReporter(statistics, Duration.ofNanos(10), 5);
+        TxStatisticsReporter enabled =
+                new TxStatisticsReporter(statistics, Duration.ofMinutes(1), 5);
+        assertFalse(disabled.isScheduled());
+        assertFalse(subMillis.isScheduled());
+        assertTrue(enabled.isScheduled());
+        statistics.record("Orders.place", "write", 1_000, false);
+        disabled.report();
+        disabled.destroy();
+        enabled.destroy();
+    }
+
+    @Test
+    void unnamedCallsAreKeyedByCallingMethod() {
+        DriverManagerDataSource dataSource =
+                new DriverManagerDataSource("jdbc:h2:mem:statsNames;DB_CLOSE_DELAY=-1");
+        DataSourceTransactionManager txManager = new DataSourceTransactionManager(dataSource);
+        TransactionService transactionService = new TransactionService(txManager, txManager,
+                new JdbcTemplate(dataSource), new JdbcTemplate(dataSource));
+        for (int i = 0; i < 3; i++) {
+            transactionService.read(() -> 1);
+        }
+        TxStatsSnapshot stats = transactionService.getStatistics()
+                .get(getClass().getName() + ".unnamedCallsAreKeyedByCallingMethod", "read");
+        assertNotNull(stats);
+        assertEquals(3, stats.getCount());
+    }
+}
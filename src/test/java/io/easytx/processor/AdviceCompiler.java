@@ -0,0 +1,81 @@
+package io.easytx.processor;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/**
+ * Compiles test sources with {@link TxAdviceProcessor} enabled, against the test classpath.
+ */
+public final class AdviceCompiler {
+
+    private final Path classes;
+    private final Path generated;
+    private final boolean success;
+    private final String output;
+
+    private AdviceCompiler(Path classes, Path generated, boolean success, String output) {
+        this.classes = classes;
+        this.generated = generated;
+        this.success = success;
+        this.output = output;
+    }
+
+    /** Compiles {@code sources}, keyed by qualified class name, below {@code directory}. */
+    public static AdviceCompiler compile(Path directory, Map<String, String> sources)
+            throws IOException {
+        Path src = Files.createDirectories(directory.resolve("src"));
+        Path classes = Files.createDirectories(directory.resolve("classes"));
+        Path generated = Files.createDirectories(directory.resolve("generated"));
+        List<Path> files = new ArrayList<>();
+        for (Map.Entry<String, String> source : sources.entrySet()) {
+            Path file = src.resolve(source.getKey().replace('.', '/') + ".java");
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, source.getValue());
+            files.add(file);
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        StringWriter output = new StringWriter();
+        try (StandardJavaFileManager fileManager =
+                compiler.getStandardFileManager(null, null, null)) {
+            Iterable<? extends JavaFileObject> units =
+                    fileManager.getJavaFileObjectsFromPaths(files);
+            JavaCompiler.CompilationTask task = compiler.getTask(output, fileManager, null,
+                    List.of("-classpath", System.getProperty("java.class.path"), "-d",
+                            classes.toString(), "-s", generated.toString(),
+                            "-A" + TxAdviceProcessor.OPTION + "=true"),
+                    null, units);
+            task.setProcessors(List.of(new TxAdviceProcessor()));
+            boolean success = task.call();
+            return new AdviceCompiler(classes, generated, success, output.toString());
+        }
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    /** Compiler diagnostics, errors and warnings. */
+    public String getOutput() {
+        return output;
+    }
+
+    public String generatedSource(String qualifiedName) throws IOException {
+        return Files.readString(generated.resolve(qualifiedName.replace('.', '/') + ".java"));
+    }
+
+    public ClassLoader classLoader(ClassLoader parent) throws MalformedURLException {
+        return new URLClassLoader(new URL[] {classes.toUri().toURL()}, parent);
+    }
+}
@@ -0,0 +1,120 @@
+package io.easytx.processor;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.nio.file.Path;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TxAdviceProcessorTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void generatesSubclassCallingTransactionService() throws Exception {
+        AdviceCompiler result = AdviceCompiler.compile(directory, Map.of("demo.Orders", """
+                package demo;
+
+                import io.easytx.annotation.TxRead;
+                import io.easytx.annotation.TxWrite;
+                import org.springframework.transaction.annotation.Isolation;
+                import org.springframework.transaction.annotation.Propagation;
+
+                public class Orders {
+                    @TxWrite(propagation = Propagation.REQUIRES_NEW,
+                            isolation = Isolation.SERIALIZABLE, deadlineMillis = 500)
+                    public long place(String item, int... quantities) throws java.io.IOException {
+                        return quantities.length;
+                    }
+
+                    @TxRead
+                    protected void audit() {
+                    }
+                }
+                """));
+        assertTrue(result.isSuccess(), result.getOutput());
+        String source = result.generatedSource("demo.Orders_EasyTx");
+        assertTrue(source.contains("public class Orders_EasyTx extends demo.Orders "
+                + "implements io.easytx.weaving.TxAdvised"), source);
+        assertTrue(source.contains("Propagation.REQUIRES_NEW"), source);
+        assertTrue(source.contains("Isolation.SERIALIZABLE"), source);
+        assertTrue(source.contains("\"demo.Orders.place\", 500L, "
+                + "io.easytx.annotation.Priority.NORMAL, io.easytx.annotation.StatementGuard.WARN, "
+                + "-1L);"), source);
+        assertTrue(source.contains("public long place(final java.lang.String item, "
+                + "final int... quantities) throws java.io.IOException"), source);
+        assertTrue(source.contains("io.easytx.weaving.TxAdvice.write(transactionService, TX_0, "
+                + "LOG_0, () -> super.place(item, quantities));"), source);
+        assertTrue(source.contains("protected void audit()"), source);
+        assertTrue(source.contains("io.easytx.weaving.TxAdvice.read(transactionService, TX_1, "
+                + "LOG_1, io.easytx.weaving.TxAdvice.ReadMode.TRANSACTION"), source);
+        assertTrue(source.contains("LOG_1 = io.easytx.annotation.LogPolicy.OFF;"), source);
+    }
+
+    @Test
+    void carriesEveryAttributeIntoTheAdvice() throws Exception {
+        AdviceCompiler result = AdviceCompiler.compile(directory, Map.of("demo.Catalog", """
+                package demo;
+
+                import io.easytx.annotation.LogLevel;
+                import io.easytx.annotation.Priority;
+                import io.easytx.annotation.StatementGuard;
+                import io.easytx.annotation.TxRead;
+                import io.easytx.annotation.TxWrite;
+
+                public class Catalog {
+                    @TxRead(hedged = true, hedgeDelayMillis = 20, singleFlight = true,
+                            singleFlightTimeoutMillis = 300, priority = Priority.CRITICAL,
+                            logLevel = LogLevel.TIME, sampleRate = 10)
+                    public String find(long id) {
+                        return "item";
+                    }
+
+                    @TxRead(autoCommit = true, hedged = true,
+                            statementGuard = StatementGuard.UPGRADE)
+                    public int count() {
+                        return 0;
+                    }
+
+                    @TxWrite(priority = Priority.BACKGROUND, slowThresholdMillis = 250)
+                    public void rename(long id, String name) {
+                    }
+                }
+                """));
+        assertTrue(result.isSuccess(), result.getOutput());
+        assertFalse(result.getOutput().contains("warning"), result.getOutput());
+        String source = result.generatedSource("demo.Catalog_EasyTx");
+        assertTrue(source.contains("\"demo.Catalog.find\", -1L, "
+                + "io.easytx.annotation.Priority.CRITICAL, "
+                + "io.easytx.annotation.StatementGuard.WARN, 20L);"), source);
+        assertTrue(source.contains("LOG_0 = new io.easytx.annotation.LogPolicy("
+                + "io.easytx.annotation.LogLevel.TIME, 10, -1L);"), source);
+        assertTrue(source.contains("io.easytx.weaving.TxAdvice.readOnce(transactionService, this, "
+                + "new Object[] {id}, 300L, TX_0, LOG_0, "
+                + "io.easytx.weaving.TxAdvice.ReadMode.HEDGED"), source);
+        assertTrue(source.contains("io.easytx.annotation.StatementGuard.UPGRADE, -1L);"), source);
+        assertTrue(source.contains("TX_1, LOG_1, io.easytx.weaving.TxAdvice.ReadMode.AUTO_COMMIT"),
+                source);
+        assertTrue(source.contains("\"demo.Catalog.rename\", -1L, "
+                + "io.easytx.annotation.Priority.BACKGROUND"), source);
+        assertTrue(source.contains("LOG_2 = new io.easytx.annotation.LogPolicy("
+                + "io.easytx.annotation.LogLevel.OFF, 1, 250L);"), source);
+    }
+
+    @Test
+    void rejectsFinalMethods() throws Exception {
+        AdviceCompiler result = AdviceCompiler.compile(directory, Map.of("demo.Locked", """
+                package demo;
+
+                public class Locked {
+                    @io.easytx.annotation.TxWrite
+                    public final void save() {
+                    }
+                }
+                """));
+        assertFalse(result.isSuccess());
+        assertTrue(result.getOutput().contains("private, static or final"), result.getOutput());
+    }
+}
@@ -0,0 +1,145 @@
+package io.easytx.reactive;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import io.easytx.annotation.TransactionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class ReactiveTransactionServiceTest {
+
+    private DatabaseClient write;
+    private DatabaseClient routed;
+    private ReactiveTransactionService transactionService;
+
+    @BeforeEach
+    void setup() {
+        ConnectionFactory writeFactory = H2ConnectionFactory.inMemory("reactiveWrite");
+        ConnectionFactory readFactory = H2ConnectionFactory.inMemory("reactiveRead");
+        write = DatabaseClient.create(writeFactory);
+        prepare(write, "write");
+        prepare(DatabaseClient.create(readFactory), "read");
+
+        ReactiveRoutingConnectionFactory routing = new ReactiveRoutingConnectionFactory();
+        routing.setTargetConnectionFactories(Map.of("write", writeFactory, "read", readFactory));
+        routing.setDefaultTargetConnectionFactory(writeFactory);
+        routing.afterPropertiesSet();
+        routed = DatabaseClient.create(routing);
+
+        transactionService = new ReactiveTransactionService(
+                new R2dbcTransactionManager(routing), new R2dbcTransactionManager(routing));
+    }
+
+    @Test
+    void writeCommits() {
+        transactionService.write(insert("a").then(insert("b"))).block();
+        assertEquals(2L, count());
+    }
+
+    @Test
+    void failingWriteRollsBack() {
+        Mono<Long> failing = insert("a").then(Mono.error(new IllegalStateException("boom")));
+        assertThrows(IllegalStateException.class,
+                () -> transactionService.write(failing).block());
+        assertEquals(0L, count());
+    }
+
+    @Test
+    void routeIsCarriedInReactorContext() {
+        assertEquals("read", transactionService.read(origin()).block());
+        assertEquals("write", transactionService.write(origin()).block());
+        assertEquals(List.of("read"),
+                transactionService.read(Flux.from(origin())).collectList().block());
+    }
+
+    @Test
+    void deadlineRollsBackSlowWrite() {
+        TransactionConfiguration config =
+                new TransactionConfiguration(Propagation.REQUIRED, Isolation.DEFAULT);
+        config.setDeadlineMillis(100);
+        Mono<Long> slow = insert("a").delayElement(Duration.ofSeconds(2));
+        assertThrows(TransactionTimedOutException.class,
+                () -> transactionService.write(slow, config).block());
+        assertEquals(0L, count());
+    }
+
+    @Test
+    void rolledBackWriteThroughRoutedFactoryIsNotVisible() {
+        Mono<Long> failing = insert("a").then(insert("b"))
+                .then(Mono.error(new IllegalStateException("boom")));
+        assertThrows(IllegalStateException.class,
+                () -> transactionService.write(failing).block());
+        assertEquals(0L, count());
+        assertEquals(0L, transactionService.write(routed.sql("SELECT COUNT(*) FROM reactive_entity")
+                .map(row -> row.get(0, Long.class)).one()).block());
+    }
+
+    @Test
+    void zeroDeadlineFailsBeforeAnyWork() {
+        TransactionConfiguration config =
+                new TransactionConfiguration(Propagation.REQUIRED, Isolation.DEFAULT);
+        config.setDeadlineMillis(0);
+        AtomicBoolean subscribed = new AtomicBoolean();
+        Mono<Long> insert = insert("a").doOnSubscribe(subscription -> subscribed.set(true));
+        assertThrows(TransactionTimedOutException.class,
+                () -> transactionService.write(insert, config).block());
+        assertThrows(TransactionTimedOutException.class,
+                () -> transactionService.read(Flux.from(insert), config).blockLast());
+        assertFalse(subscribed.get());
+        assertEquals(0L, count());
+    }
+
+    @Test
+    void writeInsideReadRunsInItsOwnWriteTransaction() {
+        Mono<String> nested = origin().flatMap(outer -> transactionService
+                .write(insert("nested").then(origin())).map(inner -> outer + "/" + inner));
+        assertEquals("read/write", transactionService.read(nested).block());
+        assertEquals(1L, count());
+
+        TransactionConfiguration mandatory =
+                new TransactionConfiguration(Propagation.MANDATORY, Isolation.DEFAULT);
+        assertThrows(IllegalTransactionStateException.class, () -> transactionService
+                .read(transactionService.write(insert("mandatory"), mandatory)).block());
+        assertEquals(1L, count());
+    }
+
+    // Through the routing factory, like the DatabaseClients of ReactiveConfiguration
+    private Mono<Long> insert(String name) {
+        return routed.sql("INSERT INTO reactive_entity (name) VALUES (:name)").bind("name", name)
+                .fetch().rowsUpdated();
+    }
+
+    private Long count() {
+        return write.sql("SELECT COUNT(*) FROM reactive_entity")
+                .map(row -> row.get(0, Long.class)).one().block();
+    }
+
+    private Mono<String> origin() {
+        return routed.sql("SELECT origin FROM origin").map(row -> row.get(0, String.class)).one();
+    }
+
+    private static void prepare(DatabaseClient client, String origin) {
+        client.sql("CREATE TABLE IF NOT EXISTS reactive_entity (name VARCHAR(10))").then()
+                .then(client.sql("DELETE FROM reactive_entity").then())
+                .then(client.sql("CREATE TABLE IF NOT EXISTS origin (origin VARCHAR(10))").then())
+                .then(client.sql("DELETE FROM origin").then())
+                .then(client.sql("INSERT INTO origin VALUES (:origin)").bind("origin", origin)
+                        .then())
+                .block();
+    }
+}
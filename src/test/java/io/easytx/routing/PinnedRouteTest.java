@@ -0,0 +1,80 @@
+package io.easytx.routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import io.easytx.context.TxContextHolder;
+
+class PinnedRouteTest {
+
+    private RoutingDataSource routing;
+    private JdbcTemplate template;
+
+    @BeforeEach
+    void setup() {
+        routing = new RoutingDataSource();
+        DriverManagerDataSource write = database("write");
+        routing.setTargetDataSources(Map.of("write", write, "read", database("read")));
+        routing.setDefaultTargetDataSource(write);
+        routing.afterPropertiesSet();
+        template = new JdbcTemplate(routing);
+    }
+
+    @Test
+    void statementsOfAScopeShareOneConnection() {
+        routing.callPinned("read", () -> {
+            int session = session(template);
+            assertEquals(session, session(template));
+            assertEquals(session, session(new JdbcTemplate(routing.routeTo("read"))));
+            assertEquals("read", origin());
+            return null;
+        });
+        assertFalse(TransactionSynchronizationManager.hasResource(routing));
+        assertFalse(TransactionSynchronizationManager.hasResource(routing.routeTo("read")));
+    }
+
+    @Test
+    void nestedScopesRestoreTheOuterRoute() {
+        routing.callPinned("read", () -> {
+            int outer = session(template);
+            assertEquals("write", routing.callPinned("write", () -> {
+                int inner = session(template);
+                routing.callPinned("read", () -> {
+                    assertEquals(outer, session(template));
+                    return null;
+                });
+                assertEquals(inner, session(template));
+                return origin();
+            }));
+            assertEquals("read", origin());
+            assertEquals(outer, session(template));
+            return null;
+        });
+        assertNull(TxContextHolder.current().getRouteKey());
+        assertFalse(TransactionSynchronizationManager.hasResource(routing));
+    }
+
+    private String origin() {
+        return template.queryForObject("SELECT origin FROM origin", String.class);
+    }
+
+    private static int session(JdbcTemplate template) {
+        return template.queryForObject("SELECT SESSION_ID()", Integer.class);
+    }
+
+    private static DriverManagerDataSource database(String origin) {
+        DriverManagerDataSource dataSource =
+                new DriverManagerDataSource("jdbc:h2:mem:pinned_" + origin + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.execute("CREATE TABLE IF NOT EXISTS origin (origin VARCHAR(10))");
+        template.execute("DELETE FROM origin");
+        template.update("INSERT INTO origin VALUES (?)", origin);
+        return dataSource;
+    }
+}
@@ -0,0 +1,142 @@
+package io.easytx.routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import io.easytx.context.TxContext;
+import io.easytx.context.TxContextHolder;
+
+class RoutingReconfigurationTest {
+
+    private RoutingDataSource routing;
+    private DriverManagerDataSource write;
+    private DriverManagerDataSource read;
+
+    @BeforeEach
+    void setup() {
+        routing = new RoutingDataSource();
+        write = database("write");
+        read = database("read");
+        routing.setTargetDataSources(Map.of("write", write, "read", read));
+        routing.setDefaultTargetDataSource(write);
+        routing.setDrainTimeout(Duration.ofSeconds(5));
+        routing.afterPropertiesSet();
+    }
+
+    @Test
+    void weightedTargetTakesLookupsOfItsGroup() {
+        routing.putTarget("read-1", database("replica"), 0).join();
+        assertEquals("read", originOf("read"));
+
+        routing.setWeight("read-1", 1);
+        routing.setWeight("read", 0);
+        assertEquals("replica", originOf("read"));
+        assertEquals("replica", originOf("read-1"));
+        assertEquals(List.of("read", "read-1"), new Replicas(routing).keys());
+    }
+
+    @Test
+    void routeViewFollowsReplacedTarget() {
+        JdbcTemplate template = new JdbcTemplate(routing.routeTo("read"));
+        assertEquals("read", template.queryForObject("SELECT origin FROM origin", String.class));
+        routing.putTarget("read", database("replica")).join();
+        assertEquals("replica", template.queryForObject("SELECT origin FROM origin", String.class));
+    }
+
+    @Test
+    void removedTargetIsClosedOnceDrained() throws Exception {
+        ClosableDataSource replica = database("replica");
+        routing.putTarget("read-1", replica).join();
+        Connection inFlight = routing.routeTo("read-1").getConnection();
+
+        CompletableFuture<Void> drained = routing.removeTarget("read-1");
+        Thread.sleep(200);
+        assertFalse(drained.isDone());
+        assertFalse(replica.closed);
+
+        inFlight.close();
+        drained.get(5, TimeUnit.SECONDS);
+        assertTrue(replica.closed);
+        assertEquals("write", originOf("read-1"));
+    }
+
+    @Test
+    void targetFailingWarmupIsNotPublished() {
+        DriverManagerDataSource broken = new DriverManagerDataSource("jdbc:unknown:nothing");
+        assertThrows(CannotGetJdbcConnectionException.class,
+                () -> routing.putTarget("read-2", broken));
+        assertFalse(routing.getResolvedDataSources().containsKey("read-2"));
+        assertThrows(IllegalArgumentException.class, () -> routing.removeTarget("read"));
+    }
+
+    @Test
+    void retargetPublishesAllTargetsOrNone() {
+        DriverManagerDataSource broken = new DriverManagerDataSource("jdbc:unknown:nothing");
+        assertThrows(CannotGetJdbcConnectionException.class, () -> routing.retarget(
+                Map.of("write", write, "read", database("replica"), "read-2", broken)));
+        assertEquals("read", originOf("read"));
+        assertFalse(routing.getResolvedDataSources().containsKey("read-2"));
+
+        routing.putTarget("read-1", database("old")).join();
+        routing.retarget(Map.of("write", write, "read", read, "read-2", database("replica")))
+                .join();
+        assertEquals("read", originOf("read"));
+        assertEquals("replica", originOf("read-2"));
+        assertFalse(routing.getResolvedDataSources().containsKey("read-1"));
+    }
+
+    @Test
+    void forcedCloseAfterDrainTimeoutIsCounted() throws Exception {
+        routing.setDrainTimeout(Duration.ofMillis(100));
+        ClosableDataSource replica = database("replica");
+        routing.putTarget("read-1", replica).join();
+        try (Connection inFlight = routing.routeTo("read-1").getConnection()) {
+            routing.removeTarget("read-1").get(5, TimeUnit.SECONDS);
+            assertTrue(replica.closed);
+            assertEquals(1, routing.getForcedCloses());
+        }
+    }
+
+    private String originOf(String route) {
+        return TxContextHolder.callWith(TxContext.EMPTY.withRouteKey(route),
+                () -> new JdbcTemplate(routing).queryForObject("SELECT origin FROM origin",
+                        String.class));
+    }
+
+    private static ClosableDataSource database(String origin) {
+        ClosableDataSource dataSource = new ClosableDataSource(
+                "jdbc:h2:mem:retarget_" + origin + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.execute("CREATE TABLE IF NOT EXISTS origin (origin VARCHAR(10))");
+        template.execute("DELETE FROM origin");
+        template.update("INSERT INTO origin VALUES (?)", origin);
+        return dataSource;
+    }
+
+    private static final class ClosableDataSource extends DriverManagerDataSource
+            implements AutoCloseable {
+
+        private volatile boolean closed;
+
+        private ClosableDataSource(String url) {
+            super(url);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package io.easytx.routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class StatementRoutingTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnlyTransaction;
+
+    @BeforeAll
+    void setup() {
+        DriverManagerDataSource write =
+                new DriverManagerDataSource("jdbc:h2:mem:inspectWrite;DB_CLOSE_DELAY=-1");
+        DriverManagerDataSource read =
+                new DriverManagerDataSource("jdbc:h2:mem:inspectRead;DB_CLOSE_DELAY=-1");
+        new JdbcTemplate(write).execute("CREATE TABLE origin (name VARCHAR(10))");
+        new JdbcTemplate(write).execute("INSERT INTO origin VALUES ('write')");
+        new JdbcTemplate(read).execute("CREATE TABLE origin (name VARCHAR(10))");
+        new JdbcTemplate(read).execute("INSERT INTO origin VALUES ('read')");
+
+        RoutingDataSource routing = new RoutingDataSource();
+        routing.setTargetDataSources(Map.of("write", write, "read", read));
+        routing.setDefaultTargetDataSource(write);
+        routing.setStatementInspection(true);
+        routing.afterPropertiesSet();
+        jdbcTemplate = new JdbcTemplate(routing);
+        readOnlyTransaction = new TransactionTemplate(new DataSourceTransactionManager(routing));
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Test
+    void plainSelectRunsOnReadRoute() {
+        assertEquals("read", jdbcTemplate.queryForObject("SELECT name FROM origin", String.class));
+        assertEquals("read", jdbcTemplate.queryForObject("SELECT name FROM origin WHERE 1 = ?",
+                String.class, 1));
+    }
+
+    @Test
+    void lockingSelectRunsOnWriteRoute() {
+        assertEquals("write", jdbcTemplate
+                .queryForObject("SELECT name FROM origin FOR UPDATE", String.class));
+    }
+
+    @Test
+    void readOnlyTransactionRunsOnReadRoute() {
+        assertEquals("read", readOnlyTransaction.execute(status -> jdbcTemplate
+                .queryForObject("SELECT name FROM origin", String.class)));
+    }
+
+    @Test
+    void classifiesStatements() {
+        assertTrue(SqlStatementClassifier.isPlainSelect("select count(*) from t where a = 'x;'"));
+        assertTrue(SqlStatementClassifier.isPlainSelect(" (SELECT a FROM t) UNION (SELECT b FROM u)"));
+        assertFalse(SqlStatementClassifier.isPlainSelect("UPDATE t SET a = 1"));
+        assertFalse(SqlStatementClassifier.isPlainSelect("SELECT * FROM t FOR SHARE"));
+        assertFalse(SqlStatementClassifier.isPlainSelect("SELECT nextval('seq')"));
+        assertFalse(SqlStatementClassifier.isPlainSelect("SELECT * INTO copy FROM t"));
+        assertFalse(SqlStatementClassifier.isPlainSelect("SELECT 1; DELETE FROM t"));
+        assertFalse(SqlStatementClassifier.isPlainSelect("WITH d AS (DELETE FROM t) SELECT 1"));
+    }
+}
@@ -0,0 +1,146 @@
+package io.easytx.routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import io.easytx.context.TxContext;
+import io.easytx.context.TxContextHolder;
+
+class TenantPoolsTest {
+
+    private final AtomicInteger created = new AtomicInteger();
+    private final Map<String, TenantDatabase> databases = new ConcurrentHashMap<>();
+    private TenantPools tenantPools;
+
+    @AfterEach
+    void close() {
+        tenantPools.close();
+    }
+
+    @Test
+    void tenantPoolIsCreatedOnceForConcurrentRequests() throws Exception {
+        tenantPools = new TenantPools(this::slowlyCreate, 2, 10, Duration.ofMinutes(1));
+        RoutingDataSource routing = routing(tenantPools);
+        JdbcTemplate template = new JdbcTemplate(routing.routeTo("write"));
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<String>> origins = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            origins.add(pool.submit(() -> TxContextHolder.callWith(
+                    TxContext.EMPTY.withTenantId("acme"), () -> template
+                            .queryForObject("SELECT origin FROM origin", String.class))));
+        }
+        for (Future<String> origin : origins) {
+            assertEquals("acme/write", origin.get());
+        }
+        pool.shutdown();
+        assertEquals(1, created.get());
+        assertEquals("shared", template.queryForObject("SELECT origin FROM origin",
+                String.class));
+    }
+
+    @Test
+    void leastRecentlyUsedIdlePoolIsEvictedAtConnectionCap() throws Exception {
+        tenantPools = new TenantPools(this::create, 2, 4, Duration.ofMinutes(1));
+        tenantPools.get("a", "write").getConnection().close();
+        Thread.sleep(5);
+        tenantPools.get("b", "write").getConnection().close();
+        tenantPools.get("c", "write").getConnection().close();
+
+        assertEquals(2, tenantPools.openPools());
+        assertEquals(4, tenantPools.reservedConnections());
+        Thread.sleep(300);
+        assertTrue(databases.get("a/write").closed);
+        assertFalse(databases.get("b/write").closed);
+    }
+
+    @Test
+    void busyPoolsAreNotEvicted() throws Exception {
+        tenantPools = new TenantPools(this::create, 2, 4, Duration.ofMinutes(1));
+        try (Connection a = tenantPools.get("a", "write").getConnection();
+                Connection b = tenantPools.get("b", "write").getConnection()) {
+            assertThrows(CannotGetJdbcConnectionException.class,
+                    () -> tenantPools.get("c", "write"));
+        }
+        tenantPools.get("c", "write");
+        assertEquals(2, tenantPools.openPools());
+    }
+
+    @Test
+    void idlePoolsAreEvicted() throws Exception {
+        tenantPools = new TenantPools(this::create, 2, 10, Duration.ofMillis(10));
+        tenantPools.get("a", "read").getConnection().close();
+        Thread.sleep(20);
+        tenantPools.evictIdle();
+        assertEquals(0, tenantPools.openPools());
+        assertEquals(0, tenantPools.reservedConnections());
+    }
+
+    private DataSource slowlyCreate(String tenantId, String routeKey, int maxConnections) {
+        try {
+            Thread.sleep(100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return create(tenantId, routeKey, maxConnections);
+    }
+
+    private DataSource create(String tenantId, String routeKey, int maxConnections) {
+        created.incrementAndGet();
+        TenantDatabase database = database(tenantId + "/" + routeKey);
+        databases.put(tenantId + "/" + routeKey, database);
+        return database;
+    }
+
+    private static RoutingDataSource routing(TenantPools tenantPools) {
+        DriverManagerDataSource shared = database("shared");
+        RoutingDataSource routing = new RoutingDataSource();
+        routing.setTargetDataSources(Map.of("write", shared, "read", shared));
+        routing.setDefaultTargetDataSource(shared);
+        routing.setTenantPools(tenantPools);
+        routing.afterPropertiesSet();
+        return routing;
+    }
+
+    private static TenantDatabase database(String origin) {
+        TenantDatabase dataSource = new TenantDatabase(
+                "jdbc:h2:mem:tenant_" + origin.replace('/', '_') + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.execute("CREATE TABLE IF NOT EXISTS origin (origin VARCHAR(20))");
+        template.execute("DELETE FROM origin");
+        template.update("INSERT INTO origin VALUES (?)", origin);
+        return dataSource;
+    }
+
+    private static final class TenantDatabase extends DriverManagerDataSource
+            implements AutoCloseable {
+
+        private volatile boolean closed;
+
+        private TenantDatabase(String url) {
+            super(url);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -1,12 +1,15 @@
 package io.easytx.service;
 
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
+import io.easytx.annotation.Read;
 import io.easytx.annotation.TxRead;
 import io.easytx.annotation.TxWrite;
+import io.easytx.context.TxContextHolder;
 
 @Service
 public class AnnotatedService {
@@ -63,4 +66,18 @@ public class AnnotatedService {
             throw new RuntimeException("Forzando rollback");
         }
     }
+
+    @TxRead(singleFlight = true, singleFlightTimeoutMillis = 5000)
+    public int singleFlightRead(CountDownLatch release, AtomicInteger calls)
+            throws InterruptedException {
+        int call = calls.incrementAndGet();
+        release.await();
+        return call;
+    }
+
+    @Read
+    public String readRoute() {
+        return TxContextHolder.current().getRouteKey()
+                + (TransactionSynchronizationManager.isActualTransactionActive() ? "-tx" : "");
+    }
 }
@@ -0,0 +1,65 @@
+package io.easytx.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import io.easytx.context.TxContext;
+import io.easytx.context.TxContextHolder;
+
+class BlockIdGeneratorTest {
+
+    private static final int BLOCK_SIZE = 4;
+
+    // One sequence per tenant database, "" stands for the shared one
+    private final Map<String, AtomicLong> sequences = new ConcurrentHashMap<>();
+    private final BlockIdGenerator generator = new BlockIdGenerator(() -> {
+        String tenantId = TxContextHolder.current().getTenantId();
+        AtomicLong sequence = sequences.computeIfAbsent(tenantId != null ? tenantId : "",
+                t -> new AtomicLong(tenantId != null ? 1000 * (tenantId.charAt(0) - 'a' + 1) : 0));
+        return sequence.getAndAdd(BLOCK_SIZE);
+    }, BLOCK_SIZE);
+
+    @Test
+    void handsOutConsecutiveIdsAcrossBlocks() {
+        long[] ids = new long[10];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = generator.next();
+        }
+        assertArrayEquals(new long[] {0, 1, 2, 3, 4, 5, 6, 7, 8, 9}, ids);
+        assertArrayEquals(new long[] {10, 11, 12, 13, 14}, generator.next(5));
+    }
+
+    @Test
+    void reservesSeparateBlocksPerTenant() {
+        assertEquals(0, generator.next());
+        assertArrayEquals(new long[] {1000, 1001, 1002, 1003, 1004, 1005},
+                inTenant("a", () -> generator.next(6)));
+        assertArrayEquals(new long[] {2000, 2001, 2002, 2003, 2004, 2005},
+                inTenant("b", () -> generator.next(6)));
+        assertEquals(1006, (long) inTenant("a", generator::next));
+        assertEquals(1, generator.next());
+    }
+
+    @Test
+    void reservesInTheCallerWhenThePrefetchHasNotStarted() {
+        Queue<Runnable> queued = new ArrayDeque<>();
+        BlockIdGenerator stalled = new BlockIdGenerator(() -> sequences
+                .computeIfAbsent("", t -> new AtomicLong()).getAndAdd(BLOCK_SIZE), BLOCK_SIZE,
+                queued::add);
+        assertArrayEquals(new long[] {0, 1, 2, 3, 4, 5, 6, 7, 8, 9}, stalled.next(10));
+        assertEquals(2, queued.size());
+        queued.forEach(Runnable::run);
+        assertEquals(10, stalled.next());
+        assertEquals(12, sequences.get("").get());
+    }
+
+    private static <T> T inTenant(String tenantId, Supplier<T> call) {
+        return TxContextHolder.callWith(TxContext.EMPTY.withTenantId(tenantId), call);
+    }
+}
@@ -0,0 +1,183 @@
+package io.easytx.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import io.easytx.annotation.TransactionConfiguration;
+import io.easytx.context.TxExecutors;
+import io.easytx.metrics.Metrics;
+import io.easytx.metrics.TxStatistics;
+import io.easytx.routing.Replicas;
+import io.easytx.routing.RoutingDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class HedgedReadTest {
+
+    // Billions of rows, only ends when cancelled
+    private static final String ENDLESS_QUERY =
+            "SELECT MAX(A.X + B.X) FROM SYSTEM_RANGE(1, 100000) A, SYSTEM_RANGE(1, 100000) B";
+
+    private RoutingDataSource routing;
+    private DriverManagerDataSource write;
+    private DriverManagerDataSource slow;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void setup() {
+        write = new DriverManagerDataSource("jdbc:h2:mem:hedgeWrite;DB_CLOSE_DELAY=-1");
+        slow = new DriverManagerDataSource("jdbc:h2:mem:hedgeSlow;DB_CLOSE_DELAY=-1");
+        DriverManagerDataSource fast =
+                new DriverManagerDataSource("jdbc:h2:mem:hedgeFast;DB_CLOSE_DELAY=-1");
+        createReplica(slow, "slow", "Thread.sleep(ms);");
+        createReplica(fast, "fast", "");
+
+        routing = new RoutingDataSource();
+        routing.setTargetDataSources(Map.of("write", write, "read", slow, "read-1", fast));
+        routing.setDefaultTargetDataSource(write);
+        routing.afterPropertiesSet();
+        jdbcTemplate = new JdbcTemplate(routing);
+    }
+
+    @Test
+    void slowReplicaIsHedgedAndCounted() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TransactionService transactionService = transactionService(1.0, registry);
+        String replica = transactionService.readHedged(() -> {
+            jdbcTemplate.execute("CALL PAUSE(500)");
+            return replicaName();
+        }, config("slowRead", 50));
+        assertEquals("fast", replica);
+        assertEquals(1, counter(registry, "txlens.hedge.fired", "slowRead").count());
+        assertEquals(1, counter(registry, "txlens.hedge.won", "slowRead").count());
+    }
+
+    @Test
+    void hedgesBeyondTheBudgetAreRefused() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TransactionService transactionService = transactionService(0.0, registry);
+        String replica = transactionService.readHedged(() -> {
+            jdbcTemplate.execute("CALL PAUSE(200)");
+            return replicaName();
+        }, config("refused", 20));
+        assertEquals("slow", replica);
+        assertNull(registry.find("txlens.hedge.fired").counter());
+    }
+
+    @Test
+    void losingAttemptIsCancelled() throws Exception {
+        TransactionService transactionService = transactionService(1.0, new SimpleMeterRegistry());
+        CountDownLatch cancelled = new CountDownLatch(1);
+        String replica = transactionService.readHedged(() -> {
+            String name = replicaName();
+            if ("slow".equals(name)) {
+                try {
+                    jdbcTemplate.queryForObject(ENDLESS_QUERY, Long.class);
+                } catch (DataAccessException e) {
+                    cancelled.countDown();
+                    throw e;
+                }
+            }
+            return name;
+        }, config("cancelled", 50));
+        assertEquals("fast", replica);
+        assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void delayFollowsRecentFirstAttempts() throws Exception {
+        long defaultDelay = TimeUnit.SECONDS.toNanos(10);
+        HedgedRead hedgedRead = new HedgedRead(new Replicas(routing), List.of(routing),
+                new Metrics(null), Admission.NONE, TxExecutors.shared(), 0.0, defaultDelay, 0);
+        TransactionConfiguration config = config("adaptive", -1);
+        Set<String> served = new HashSet<>();
+        for (int i = 0; i < 30; i++) {
+            served.add(hedgedRead.read("adaptive", config, this::replicaName));
+        }
+        assertEquals(Set.of("slow", "fast"), served);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (hedgedRead.delayNanos("adaptive") == defaultDelay && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(hedgedRead.delayNanos("adaptive") < TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    void quietPeriodsBankOnlyAFewHedges() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        HedgedRead hedgedRead = new HedgedRead(new Replicas(routing), List.of(routing),
+                new Metrics(registry), Admission.NONE, TxExecutors.shared(), 0.1,
+                TimeUnit.SECONDS.toNanos(10));
+        for (int i = 0; i < 200; i++) {
+            hedgedRead.read("quiet", config("quiet", 10_000), this::replicaName);
+        }
+        for (int i = 0; i < 40; i++) {
+            hedgedRead.read("outage", config("outage", 1), () -> {
+                String name = replicaName();
+                if ("slow".equals(name)) {
+                    jdbcTemplate.execute("CALL PAUSE(50)");
+                }
+                return name;
+            });
+        }
+        double hedges = counter(registry, "txlens.hedge.fired", "outage").count();
+        assertTrue(hedges >= 10 && hedges <= 14, "hedges: " + hedges);
+    }
+
+    @Test
+    void replicasListReadTargetsFirst() {
+        assertEquals(List.of("read", "read-1"), new Replicas(routing).keys());
+    }
+
+    private TransactionService transactionService(double budget, SimpleMeterRegistry registry) {
+        TransactionService transactionService = new TransactionService(
+                new DataSourceTransactionManager(write), new DataSourceTransactionManager(slow),
+                new JdbcTemplate(write), new JdbcTemplate(slow), new TxStatistics(),
+                new Metrics(registry));
+        transactionService.enableHedging(new Replicas(routing), budget, Duration.ofMillis(100));
+        return transactionService;
+    }
+
+    private String replicaName() {
+        return jdbcTemplate.queryForObject("SELECT name FROM replica", String.class);
+    }
+
+    private static TransactionConfiguration config(String name, long hedgeDelayMillis) {
+        TransactionConfiguration config =
+                new TransactionConfiguration(Propagation.REQUIRED, Isolation.DEFAULT);
+        config.setName(name);
+        config.setHedgeDelayMillis(hedgeDelayMillis);
+        return config;
+    }
+
+    private static Counter counter(SimpleMeterRegistry registry, String name, String method) {
+        return registry.get(name).tag("method", method).counter();
+    }
+
+    private static void createReplica(DriverManagerDataSource dataSource, String name,
+            String pause) {
+        JdbcTemplate replica = new JdbcTemplate(dataSource);
+        replica.execute("CREATE TABLE IF NOT EXISTS replica (name VARCHAR(10))");
+        replica.execute("DELETE FROM replica");
+        replica.update("INSERT INTO replica VALUES (?)", name);
+        replica.execute("CREATE ALIAS IF NOT EXISTS PAUSE AS "
+                + "'void pause(long ms) throws Exception { " + pause + " }'");
+    }
+}
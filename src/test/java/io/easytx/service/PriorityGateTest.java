@@ -0,0 +1,61 @@
+package io.easytx.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import io.easytx.annotation.Priority;
+
+class PriorityGateTest {
+
+    private static final long SHORT_WAIT = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long LONG_WAIT = TimeUnit.SECONDS.toNanos(5);
+
+    @Test
+    void classMaximumIsEnforced() {
+        PriorityGate gate = PriorityGate.parse(2, "background:0:0.5");
+        gate.acquire(Priority.BACKGROUND, SHORT_WAIT);
+        assertThrows(CannotGetJdbcConnectionException.class,
+                () -> gate.acquire(Priority.BACKGROUND, SHORT_WAIT));
+        gate.acquire(Priority.NORMAL, SHORT_WAIT);
+    }
+
+    @Test
+    void reservedCapacityIsKeptForItsClass() {
+        PriorityGate gate = PriorityGate.parse(4, "critical:0.25:1.0");
+        for (int i = 0; i < 3; i++) {
+            gate.acquire(Priority.NORMAL, SHORT_WAIT);
+        }
+        assertThrows(CannotGetJdbcConnectionException.class,
+                () -> gate.acquire(Priority.NORMAL, SHORT_WAIT));
+        gate.acquire(Priority.CRITICAL, SHORT_WAIT);
+    }
+
+    @Test
+    void waitersAreAdmittedInPriorityOrder() throws Exception {
+        PriorityGate gate = PriorityGate.parse(1, "critical:0:1.0");
+        gate.acquire(Priority.NORMAL, SHORT_WAIT);
+        List<Priority> admitted = new CopyOnWriteArrayList<>();
+        Thread background = waiter(gate, Priority.BACKGROUND, admitted);
+        Thread.sleep(100);
+        Thread critical = waiter(gate, Priority.CRITICAL, admitted);
+        Thread.sleep(100);
+        gate.release(Priority.NORMAL);
+        critical.join(5000);
+        background.join(5000);
+        assertEquals(List.of(Priority.CRITICAL, Priority.BACKGROUND), admitted);
+    }
+
+    private static Thread waiter(PriorityGate gate, Priority priority, List<Priority> admitted) {
+        Thread thread = new Thread(() -> {
+            gate.acquire(priority, LONG_WAIT);
+            admitted.add(priority);
+            gate.release(priority);
+        });
+        thread.start();
+        return thread;
+    }
+}
@@ -0,0 +1,20 @@
+package io.easytx.service;
+
+import org.springframework.stereotype.Service;
+import io.easytx.annotation.Read;
+import io.easytx.annotation.Write;
+import io.easytx.context.TxContextHolder;
+
+@Service
+@Read
+public class ReadRoutedService {
+
+    public String route() {
+        return TxContextHolder.current().getRouteKey();
+    }
+
+    @Write
+    public String writeRoute() {
+        return TxContextHolder.current().getRouteKey();
+    }
+}
@@ -0,0 +1,83 @@
+package io.easytx.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import io.easytx.context.TxContext;
+import io.easytx.context.TxContextHolder;
+import io.easytx.metrics.Metrics;
+
+class SingleFlightTest {
+
+    private final SingleFlight singleFlight = new SingleFlight(new Metrics(null));
+    private final Object target = new Object();
+    private final ExecutorService pool = Executors.newFixedThreadPool(2);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @AfterEach
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void coalescesEqualCallsOfOneTenant() throws Exception {
+        Future<Object> leader = call(TxContext.EMPTY.withTenantId("a"));
+        awaitCalls(1);
+        Future<Object> follower = call(TxContext.EMPTY.withTenantId("a"));
+        Thread.sleep(100);
+        release.countDown();
+        assertEquals(1, leader.get(5, TimeUnit.SECONDS));
+        assertEquals(1, follower.get(5, TimeUnit.SECONDS));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void neverSharesResultsAcrossTenants() throws Exception {
+        Future<Object> first = call(TxContext.EMPTY.withTenantId("a"));
+        awaitCalls(1);
+        Future<Object> second = call(TxContext.EMPTY.withTenantId("b"));
+        awaitCalls(2);
+        release.countDown();
+        assertEquals(1, first.get(5, TimeUnit.SECONDS));
+        assertEquals(2, second.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void neverSharesResultsAcrossRoutes() throws Exception {
+        Future<Object> first = call(TxContext.EMPTY.withRouteKey("read"));
+        awaitCalls(1);
+        Future<Object> second = call(TxContext.EMPTY.withRouteKey("write"));
+        awaitCalls(2);
+        release.countDown();
+        assertEquals(1, first.get(5, TimeUnit.SECONDS));
+        assertEquals(2, second.get(5, TimeUnit.SECONDS));
+    }
+
+    private Future<Object> call(TxContext context) {
+        return pool.submit(() -> TxContextHolder.callWith(context,
+                () -> singleFlight.call(target, "Orders.find", new Object[] {42L}, 5000, () -> {
+                    int call = calls.incrementAndGet();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return call;
+                })));
+    }
+
+    private void awaitCalls(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (calls.get() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, calls.get());
+    }
+}
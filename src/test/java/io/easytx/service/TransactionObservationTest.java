@@ -0,0 +1,97 @@
+package io.easytx.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import io.easytx.annotation.TransactionConfiguration;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+
+class TransactionObservationTest {
+
+    private final List<Observation.Context> stopped = new CopyOnWriteArrayList<>();
+    private TransactionService transactionService;
+    private ObservationRegistry registry;
+
+    @BeforeEach
+    void setup() {
+        DriverManagerDataSource write =
+                new DriverManagerDataSource("jdbc:h2:mem:observeWrite;DB_CLOSE_DELAY=-1");
+        DriverManagerDataSource read =
+                new DriverManagerDataSource("jdbc:h2:mem:observeRead;DB_CLOSE_DELAY=-1");
+        transactionService = new TransactionService(new DataSourceTransactionManager(write),
+                new DataSourceTransactionManager(read), new JdbcTemplate(write),
+                new JdbcTemplate(read));
+        registry = ObservationRegistry.create();
+        registry.observationConfig().observationHandler(new ObservationHandler<>() {
+            @Override
+            public void onStop(Observation.Context context) {
+                stopped.add(context);
+            }
+
+            @Override
+            public boolean supportsContext(Observation.Context context) {
+                return true;
+            }
+        });
+        transactionService.enableObservations(registry);
+    }
+
+    @Test
+    void nestedTransactionIsChildObservation() {
+        TransactionConfiguration config =
+                new TransactionConfiguration(Propagation.REQUIRED, Isolation.DEFAULT);
+        config.setName("Orders.place");
+        transactionService.write(() -> transactionService.read(() -> 1), config);
+
+        assertEquals(2, stopped.size());
+        Observation.Context inner = stopped.get(0);
+        Observation.Context outer = stopped.get(1);
+        assertEquals("read", inner.getLowCardinalityKeyValue("type").getValue());
+        assertEquals("write", outer.getLowCardinalityKeyValue("route").getValue());
+        assertEquals("success", outer.getLowCardinalityKeyValue("outcome").getValue());
+        assertEquals("Orders.place", outer.getHighCardinalityKeyValue("method").getValue());
+        assertSame(outer, inner.getParentObservation().getContextView());
+        assertNull(outer.getParentObservation());
+    }
+
+    @Test
+    void openStreamIsNotInScope() {
+        RowMapper<Long> ids = (rs, rowNum) -> rs.getLong("id");
+        Stream<Long> stream = transactionService.streamPartitioned(Partitions.hash("id", 2),
+                "SELECT X AS id FROM SYSTEM_RANGE(1, 10)", ids);
+        assertNull(registry.getCurrentObservation());
+        transactionService.read(() -> 1);
+        assertNull(stopped.get(0).getParentObservation());
+
+        assertEquals(10, stream.count());
+        stream.close();
+        assertEquals(2, stopped.size());
+        assertEquals("success", stopped.get(1).getLowCardinalityKeyValue("outcome").getValue());
+        assertNull(registry.getCurrentObservation());
+    }
+
+    @Test
+    void failedTransactionRecordsError() {
+        IllegalStateException error = new IllegalStateException("boom");
+        assertThrows(IllegalStateException.class, () -> transactionService.write(() -> {
+            throw error;
+        }));
+        Observation.Context context = stopped.get(0);
+        assertEquals("error", context.getLowCardinalityKeyValue("outcome").getValue());
+        assertSame(error, context.getError());
+    }
+}
@@ -1,8 +1,22 @@
 package io.easytx.service;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -10,13 +24,29 @@ import org.junit.jupiter.api.TestInstance;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.transaction.UnexpectedRollbackException;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import io.easytx.annotation.StatementGuard;
 import io.easytx.annotation.TransactionConfiguration;
 import io.easytx.configuration.TestDataSourceConfig;
+import io.easytx.context.Deadline;
+import io.easytx.context.TxContext;
+import io.easytx.context.TxContextHolder;
+import io.easytx.jdbc.ColumnType;
+import io.easytx.jdbc.Columns;
+import io.easytx.metrics.Metrics;
+import io.easytx.metrics.TxStatistics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 @SpringBootTest
 @Import(TestDataSourceConfig.class)
@@ -92,6 +122,27 @@ class TransactionServiceTest {
         assertEquals(0, countFromTestEntity()); // the rollback affected both transactions
     }
 
+    @Test
+    void propagationRequiredJoinsWithoutTemplate() {
+        transactionService.write(() -> {
+            assertTrue(transactionService.joinsWrite(null));
+            assertFalse(transactionService.joinsRead(null));
+            return insertTransaction(null, "joined");
+        });
+        testEntityHasNames(List.of("joined"));
+    }
+
+    @Test
+    void propagationRequiredInnerFailureMarksRollbackOnly() {
+        assertThrows(UnexpectedRollbackException.class, () -> transactionService.write(() -> {
+            insertIntoTestEntity("outer");
+            assertThrows(RuntimeException.class,
+                    () -> insertAndExceptionTransaction(null, "inner", "rollback inner"));
+            return null;
+        }));
+        assertEquals(0, countFromTestEntity());
+    }
+
     /*
      * @Test void propagationRequiredWithAnotations() { assertThrows(RuntimeException.class, () ->
      * insertIntoTestEntityWithException("outer")); assertEquals(0, countFromTestEntity()); // the
@@ -230,6 +281,244 @@ class TransactionServiceTest {
         }, config);
     }
 
+    // DEADLINES
+    @Test
+    void expiredDeadlineFailsBeforeTransaction() {
+        TxContext expired = TxContext.EMPTY.withDeadline(Deadline.afterMillis(0));
+        assertThrows(TransactionTimedOutException.class, () -> TxContextHolder.callWith(expired,
+                () -> transactionService.write(() -> insertIntoTestEntity("late"))));
+        assertEquals(0, countFromTestEntity());
+    }
+
+    @Test
+    void configuredDeadlineIsCarriedToNestedCalls() {
+        TransactionConfiguration config =
+                new TransactionConfiguration(Propagation.REQUIRED, Isolation.DEFAULT);
+        config.setDeadlineMillis(1500);
+        Deadline nested = transactionService.write(() -> transactionService
+                .read(() -> TxContextHolder.current().getDeadline()), config);
+        assertTrue(nested.remaining().toMillis() <= 1500);
+    }
+
+    // AUTOCOMMIT READS
+    @Test
+    void readAutoCommitRunsWithoutTransaction() {
+        insertIntoTestEntity("autocommit");
+        assertEquals(List.of("autocommit"), transactionService.readAutoCommit(() -> {
+            assertFalse(TransactionSynchronizationManager.isActualTransactionActive());
+            return findNames();
+        }));
+    }
+
+    @Test
+    void readAutoCommitFailGuardRejectsSecondStatement() {
+        TransactionConfiguration config =
+                new TransactionConfiguration(Propagation.REQUIRED, Isolation.DEFAULT);
+        config.setStatementGuard(StatementGuard.FAIL);
+        assertThrows(InvalidDataAccessApiUsageException.class,
+                () -> transactionService.readAutoCommit(() -> {
+                    countFromTestEntity();
+                    return findNames();
+                }, config));
+    }
+
+    @Test
+    void readAutoCommitUpgradeGuardSwitchesToTransaction() {
+        TransactionConfiguration config =
+                new TransactionConfiguration(Propagation.REQUIRED, Isolation.DEFAULT);
+        config.setName("upgradedRead");
+        config.setStatementGuard(StatementGuard.UPGRADE);
+        transactionService.readAutoCommit(() -> {
+            countFromTestEntity();
+            return findNames();
+        }, config);
+        assertTrue(transactionService.readAutoCommit(
+                TransactionSynchronizationManager::isActualTransactionActive, config));
+    }
+
+    // SAVEPOINT BATCHES
+    @Test
+    void writeBatchCommitsValidItems() {
+        String tooLong = "x".repeat(101);
+        BatchResult<String> result = transactionService
+                .writeBatch(List.of("first", tooLong, "second"), this::insertIntoTestEntity);
+        assertEquals(List.of("first", "second"), result.getSucceeded());
+        assertEquals(1, result.getFailures().size());
+        assertEquals(tooLong, result.getFailures().get(0).getItem());
+        testEntityHasNames(List.of("first", "second"));
+    }
+
+    @Test
+    void writeBatchReplaysFailingGroup() {
+        String tooLong = "x".repeat(101);
+        BatchResult<String> result = transactionService.writeBatch(
+                List.of("a", "b", tooLong, "c", "d"), this::insertIntoTestEntity, 2);
+        assertEquals(List.of("a", "b", "c", "d"), result.getSucceeded());
+        assertEquals(1, result.getFailures().size());
+        assertEquals(4, countFromTestEntity());
+    }
+
+    // BULK LOAD
+    @Test
+    void bulkLoadFallsBackToBatchesOutsidePostgres() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            rows.add(new Object[] {"row-" + i});
+        }
+        assertEquals(2500, transactionService.bulkLoad("test_entity", List.of("name"),
+                rows.iterator()));
+        assertEquals(2500, countFromTestEntity());
+    }
+
+    @Test
+    void bulkLoadReadsCopyTextFormat() {
+        byte[] input = "plain\ntab\\there\n\\N\n".getBytes(StandardCharsets.UTF_8);
+        assertEquals(3, transactionService.bulkLoad("test_entity", List.of("name"),
+                new ByteArrayInputStream(input)));
+        assertEquals(1, writeJdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM test_entity WHERE name IS NULL", Integer.class));
+        assertEquals(1, writeJdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM test_entity WHERE name = 'tab\there'", Integer.class));
+    }
+
+    @Test
+    void bulkLoadRejectsInvalidIdentifiers() {
+        List<Object[]> rows = List.of(new Object[][] {{"a"}});
+        assertThrows(IllegalArgumentException.class, () -> transactionService
+                .bulkLoad("test_entity; DROP TABLE test_entity", List.of("name"), rows.iterator()));
+        assertThrows(IllegalArgumentException.class, () -> transactionService
+                .bulkLoad("test_entity", List.of("name) VALUES ('x'); --"), rows.iterator()));
+        assertEquals(0, countFromTestEntity());
+    }
+
+    // COLUMNAR READS
+    @Test
+    void readColumnsFillsPrimitiveArrays() {
+        Columns columns = transactionService.readColumns("""
+                SELECT X, X * 1.5, CASE WHEN MOD(X, 100) = 0 THEN NULL ELSE X END,
+                    TIMESTAMP '2024-01-01 00:00:00'
+                FROM SYSTEM_RANGE(1, ?)
+                """, new ColumnType[] {ColumnType.LONG, ColumnType.DOUBLE, ColumnType.INT,
+                ColumnType.EPOCH_MILLIS}, 5000);
+        assertEquals(5000, columns.size());
+        assertEquals(5000, columns.longs(0).length);
+        assertEquals(5000L, columns.longs(0)[4999]);
+        assertEquals(3.0, columns.doubles(1)[1]);
+        assertTrue(columns.isNull(99, 2));
+        assertFalse(columns.isNull(98, 2));
+        assertEquals(99, columns.ints(2)[98]);
+        assertEquals(Timestamp.valueOf("2024-01-01 00:00:00").getTime(), columns.longs(3)[0]);
+        assertThrows(IllegalArgumentException.class, () -> columns.doubles(0));
+    }
+
+    // ID BLOCKS
+    @Test
+    void idGeneratorHandsOutUniqueIdsAcrossThreads() throws Exception {
+        writeJdbcTemplate.execute(
+                "CREATE SEQUENCE IF NOT EXISTS id_block START WITH 1 INCREMENT BY 100");
+        BlockIdGenerator generator = transactionService.idGenerator("id_block", 100);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    ids.add(generator.next());
+                }
+                for (long id : generator.next(250)) {
+                    ids.add(id);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+        assertEquals(8 * 1250, ids.size());
+
+        long[] batch = transactionService.idGenerator("id_block", 100).next(5);
+        assertEquals(batch[0] + 4, batch[4]);
+    }
+
+    // KEYSET PAGES
+    @Test
+    void readPagesSeeksPageByPage() {
+        for (boolean prefetch : new boolean[] {false, true}) {
+            List<Long> ids = new ArrayList<>();
+            try (KeysetIterator<Long> rows = transactionService.readPages(
+                    "SELECT X AS id FROM SYSTEM_RANGE(1, ?) WHERE MOD(X, 7) <> 0", "id", 100,
+                    prefetch, (rs, rowNum) -> rs.getLong("id"), 1050)) {
+                rows.forEachRemaining(id -> {
+                    assertFalse(TransactionSynchronizationManager.isActualTransactionActive());
+                    ids.add(id);
+                });
+            }
+            assertEquals(900, ids.size());
+            assertEquals(1L, ids.get(0));
+            assertEquals(1049L, ids.get(899));
+            for (int i = 1; i < ids.size(); i++) {
+                assertTrue(ids.get(i - 1) < ids.get(i));
+            }
+        }
+    }
+
+    // PARTITIONED READS
+    @Test
+    void readPartitionedReadsEveryRowOnce() {
+        assertArrayEquals(new Object[] {4L, 7L}, Partitions.range("id", 0, 10, 3).bounds(1));
+        assertArrayEquals(new Object[] {7L, 10L}, Partitions.range("id", 0, 10, 3).bounds(2));
+
+        String sql = "SELECT X AS id FROM SYSTEM_RANGE(1, ?)";
+        RowMapper<Long> ids = (rs, rowNum) -> rs.getLong("id");
+        Set<Long> seen = ConcurrentHashMap.newKeySet();
+        long rows = transactionService.readPartitioned(Partitions.range("id", 1, 10_001, 8), sql,
+                ids, (id, partition) -> {
+                    assertTrue(TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+                    assertTrue(seen.add(id));
+                }, 20_000);
+        assertEquals(10_000, rows);
+        assertEquals(10_000, seen.size());
+
+        try (Stream<Long> merged = transactionService.streamPartitioned(
+                Partitions.hash("id", 5), sql, ids, 3000)) {
+            assertEquals(3000, merged.distinct().count());
+        }
+        try (Stream<Long> merged = transactionService.streamPartitioned(
+                Partitions.hash("id", 5), sql, ids, 50_000)) {
+            assertEquals(10, merged.limit(10).count());
+        }
+        try (Stream<Long> merged = transactionService.streamPartitioned(Partitions.hash("id", 3),
+                "SELECT X - 50 AS id FROM SYSTEM_RANGE(1, 100)", ids)) {
+            assertEquals(100, merged.distinct().count());
+        }
+    }
+
+    @Test
+    void partitionedReadsAreAdmittedPerPartition() {
+        DriverManagerDataSource dataSource =
+                new DriverManagerDataSource("jdbc:h2:mem:partitionAdmission;DB_CLOSE_DELAY=-1");
+        DataSourceTransactionManager txManager = new DataSourceTransactionManager(dataSource);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TransactionService service = new TransactionService(txManager, txManager,
+                new JdbcTemplate(dataSource), new JdbcTemplate(dataSource), new TxStatistics(),
+                new Metrics(registry));
+        PriorityGate gate = PriorityGate.parse(1, "normal:0:1.0");
+        service.enablePriorities(gate, gate, Duration.ofSeconds(5));
+        String sql = "SELECT X AS id FROM SYSTEM_RANGE(1, 1000)";
+        RowMapper<Long> ids = (rs, rowNum) -> rs.getLong("id");
+
+        assertEquals(1000, service.readPartitioned(Partitions.range("id", 1, 1001, 4), sql, ids,
+                (id, partition) -> { }));
+        assertEquals(4, registry.get("txlens.priority.wait").tag("route", "read").timer().count());
+
+        try (Stream<Long> merged = service.streamPartitioned(Partitions.hash("id", 3), sql, ids)) {
+            assertEquals(1000, merged.count());
+        }
+        assertEquals(7, registry.get("txlens.priority.wait").tag("route", "read").timer().count());
+        assertEquals(1, service.getStatistics()
+                .get("streamPartitioned:" + getClass().getName()
+                        + ".partitionedReadsAreAdmittedPerPartition", "read").getCount());
+    }
 
     private int insertIntoTestEntityWithException(String name) throws RuntimeException {
         writeJdbcTemplate.update("INSERT INTO test_entity (name) VALUES (?)", name);
@@ -0,0 +1,200 @@
+package io.easytx.weaving;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.support.GenericBeanDefinition;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import io.easytx.interceptor.EasyTxAspect;
+import io.easytx.metrics.Metrics;
+import io.easytx.processor.AdviceCompiler;
+import io.easytx.service.TransactionService;
+
+/**
+ * Compiles an annotated service with the advice processor and checks that the generated subclass
+ * replaces the AOP proxy in a Spring context without changing transaction semantics.
+ */
+class TxAdviceWeavingTest {
+
+    private static final String ORDERS = """
+            package demo;
+
+            import java.sql.Connection;
+            import io.easytx.annotation.TxRead;
+            import io.easytx.annotation.TxWrite;
+            import org.springframework.jdbc.core.JdbcTemplate;
+            import org.springframework.jdbc.datasource.DataSourceUtils;
+            import org.springframework.transaction.annotation.Isolation;
+            import org.springframework.transaction.annotation.Propagation;
+            import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+            public class Orders {
+                private final JdbcTemplate jdbcTemplate;
+
+                public Orders(JdbcTemplate jdbcTemplate) {
+                    this.jdbcTemplate = jdbcTemplate;
+                }
+
+                @TxWrite(isolation = Isolation.SERIALIZABLE)
+                public int isolation() throws java.sql.SQLException {
+                    Connection connection =
+                            DataSourceUtils.getConnection(jdbcTemplate.getDataSource());
+                    return connection.getTransactionIsolation();
+                }
+
+                @TxWrite
+                public void placeAndFail(int id) {
+                    jdbcTemplate.update("INSERT INTO woven_order (id) VALUES (?)", id);
+                    throw new IllegalStateException("rejected");
+                }
+
+                @TxWrite(propagation = Propagation.REQUIRES_NEW)
+                public int countInNewTransaction() {
+                    return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM woven_order",
+                            Integer.class);
+                }
+
+                @TxRead
+                public boolean readOnly() {
+                    return TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+                }
+
+                public boolean readOnlyBySelfInvocation() {
+                    return readOnly();
+                }
+            }
+            """;
+
+    @TempDir
+    Path directory;
+
+    private AnnotationConfigApplicationContext context;
+    private JdbcTemplate jdbcTemplate;
+    private Object orders;
+
+    @BeforeEach
+    void startContext() throws Exception {
+        AdviceCompiler compiled = AdviceCompiler.compile(directory, Map.of("demo.Orders", ORDERS));
+        assertTrue(compiled.isSuccess(), compiled.getOutput());
+        context = new AnnotationConfigApplicationContext();
+        context.setClassLoader(compiled.classLoader(getClass().getClassLoader()));
+        context.register(WeavingConfig.class);
+        GenericBeanDefinition definition = new GenericBeanDefinition();
+        definition.setBeanClassName("demo.Orders");
+        context.registerBeanDefinition("orders", definition);
+        context.refresh();
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS woven_order (id INT PRIMARY KEY)");
+        jdbcTemplate.update("DELETE FROM woven_order");
+        orders = context.getBean("orders");
+    }
+
+    @AfterEach
+    void closeContext() {
+        context.close();
+    }
+
+    @Test
+    void generatedSubclassReplacesTheProxy() {
+        assertInstanceOf(TxAdvised.class, orders);
+        assertEquals("demo.Orders_EasyTx", orders.getClass().getName());
+        assertFalse(AopUtils.isAopProxy(orders));
+    }
+
+    @Test
+    void appliesIsolation() throws Exception {
+        assertEquals(Connection.TRANSACTION_SERIALIZABLE, call("isolation"));
+    }
+
+    @Test
+    void rollsBackOnException() {
+        InvocationTargetException failure =
+                assertThrows(InvocationTargetException.class, () -> call("placeAndFail", 1));
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+        assertEquals(0, count());
+    }
+
+    @Test
+    void requiresNewRunsInItsOwnTransaction() {
+        TransactionService transactionService = context.getBean(TransactionService.class);
+        int seen = transactionService.write(() -> {
+            jdbcTemplate.update("INSERT INTO woven_order (id) VALUES (2)");
+            try {
+                return (Integer) call("countInNewTransaction");
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertEquals(0, seen);
+        assertEquals(1, count());
+    }
+
+    @Test
+    void readsAndSelfInvocationsAreTransactional() throws Exception {
+        assertEquals(true, call("readOnly"));
+        assertEquals(true, call("readOnlyBySelfInvocation"));
+    }
+
+    private Object call(String method, Object... args) throws ReflectiveOperationException {
+        Class<?>[] types = new Class<?>[args.length];
+        for (int i = 0; i < args.length; i++) {
+            types[i] = args[i] instanceof Integer ? int.class : args[i].getClass();
+        }
+        return orders.getClass().getMethod(method, types).invoke(orders, args);
+    }
+
+    private int count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM woven_order", Integer.class);
+    }
+
+    @Configuration
+    @EnableAspectJAutoProxy
+    @Import(EasyTxAspect.class)
+    static class WeavingConfig {
+
+        @Bean
+        static TxAdviceBeanDefinitionPostProcessor txAdviceBeanDefinitionPostProcessor() {
+            return new TxAdviceBeanDefinitionPostProcessor();
+        }
+
+        @Bean
+        DataSource dataSource() {
+            return new DriverManagerDataSource("jdbc:h2:mem:weaving;DB_CLOSE_DELAY=-1");
+        }
+
+        @Bean
+        JdbcTemplate jdbcTemplate(DataSource dataSource) {
+            return new JdbcTemplate(dataSource);
+        }
+
+        @Bean
+        Metrics metrics() {
+            return new Metrics(null);
+        }
+
+        @Bean
+        TransactionService transactionService(DataSource dataSource, JdbcTemplate jdbcTemplate) {
+            DataSourceTransactionManager txManager = new DataSourceTransactionManager(dataSource);
+            return new TransactionService(txManager, txManager, jdbcTemplate, jdbcTemplate);
+        }
+    }
+}